@@ -1,15 +1,26 @@
 package com.kerala.traveltracker;
 
+import android.content.Context;
 import android.content.Intent;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.TypedArray;
 import android.os.Bundle;
+import android.view.Window;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.kerala.traveltracker.data.TripInsights;
+import com.kerala.traveltracker.data.TripListing;
+import com.kerala.traveltracker.data.TripRepository;
 import com.kerala.traveltracker.fragments.HomeFragment;
 import com.kerala.traveltracker.fragments.TripsFragment;
 import com.kerala.traveltracker.fragments.InsightsFragment;
@@ -19,6 +30,7 @@ import com.kerala.traveltracker.models.Trip;
 import com.kerala.traveltracker.utils.PreferenceManager.PreferenceHelper;
 import com.kerala.traveltracker.utils.LanguageManager;
 import com.kerala.traveltracker.utils.ThemeManager;
+import com.kerala.traveltracker.utils.ThemePalette;
 
 import java.util.List;
 
@@ -31,8 +43,12 @@ public class HomeActivity extends AppCompatActivity implements
     InsightsFragment.OnInsightsInteractionListener,
     ProfileFragment.OnProfileInteractionListener {
 
+    public static final String EXTRA_USER = "com.kerala.traveltracker.extra.USER";
+
     private static final String TAG = "HomeActivity";
     private static final String CURRENT_FRAGMENT_KEY = "current_fragment";
+    private static final int SEARCH_RESULT_LIMIT = 200;
+    private static final String[] TAB_TAGS = {"home", "trips", "insights", "profile"};
 
     // UI Components
     private BottomNavigationView bottomNavigationView;
@@ -41,14 +57,23 @@ public class HomeActivity extends AppCompatActivity implements
     private PreferenceHelper preferenceHelper;
     private LanguageManager languageManager;
     private ThemeManager themeManager;
+    private TripRepository tripRepository;
 
     // Data
     private User currentUser;
-    private List<Trip> trips;
 
     // Current fragment tracking
     private String currentFragmentTag = "home";
 
+    // Appearance the views were last resolved with
+    private boolean appliedDarkMode;
+    private LanguageManager.Language appliedLanguage;
+
+    @Override
+    protected void attachBaseContext(Context base) {
+        super.attachBaseContext(LanguageManager.wrap(base));
+    }
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -59,6 +84,8 @@ public class HomeActivity extends AppCompatActivity implements
         // Apply theme and language
         themeManager.applyTheme(this);
         languageManager.applyLanguage();
+        appliedDarkMode = themeManager.isDarkMode();
+        appliedLanguage = languageManager.getCurrentLanguage();
 
         setContentView(R.layout.activity_home);
 
@@ -73,6 +100,7 @@ public class HomeActivity extends AppCompatActivity implements
 
         // Initialize UI
         initializeViews();
+        applyNavigationColors();
         setupBottomNavigation();
 
         // Restore state or load default fragment
@@ -81,17 +109,25 @@ public class HomeActivity extends AppCompatActivity implements
         }
 
         navigateToFragment(currentFragmentTag);
+        StartupOrchestrator.start(this).markFirstFrame(this);
     }
 
     private void initializeManagers() {
-        preferenceHelper = new PreferenceHelper(this);
-        languageManager = new LanguageManager(this);
-        themeManager = new ThemeManager(this);
+        // Shared with MainActivity through the startup pipeline, which has already warmed it
+        preferenceHelper = StartupOrchestrator.start(this).getPreferenceHelper();
+        languageManager = new LanguageManager(this, preferenceHelper);
+        themeManager = new ThemeManager(this, preferenceHelper);
+        tripRepository = preferenceHelper.getTripRepository();
     }
 
     private void loadUserData() {
-        currentUser = preferenceHelper.getUser();
-        trips = preferenceHelper.getTrips();
+        if (currentUser == null) {
+            // Handed over by MainActivity when it already loaded the user
+            currentUser = getIntent().getParcelableExtra(EXTRA_USER);
+        }
+        if (currentUser == null) {
+            currentUser = preferenceHelper.getUser();
+        }
 
         if (currentUser == null) {
             navigateToLogin();
@@ -104,54 +140,97 @@ public class HomeActivity extends AppCompatActivity implements
 
     private void setupBottomNavigation() {
         bottomNavigationView.setOnItemSelectedListener(item -> {
-            int itemId = item.getItemId();
-            
-            if (itemId == R.id.nav_home) {
-                navigateToFragment("home");
-                return true;
-            } else if (itemId == R.id.nav_trips) {
-                navigateToFragment("trips");
-                return true;
-            } else if (itemId == R.id.nav_insights) {
-                navigateToFragment("insights");
-                return true;
-            } else if (itemId == R.id.nav_profile) {
-                navigateToFragment("profile");
-                return true;
+            String fragmentTag = tagForItem(item.getItemId());
+            if (fragmentTag == null) {
+                return false;
             }
-            
-            return false;
+            showTab(fragmentTag);
+            return true;
         });
     }
 
+    /**
+     * Switch tabs from code, keeping the bottom navigation in step
+     */
     private void navigateToFragment(String fragmentTag) {
-        Fragment fragment = null;
+        int itemId = itemForTag(fragmentTag);
+        if (bottomNavigationView.getSelectedItemId() != itemId) {
+            // Selecting the item runs the listener, which shows the tab
+            bottomNavigationView.setSelectedItemId(itemId);
+        } else {
+            showTab(fragmentTag);
+        }
+    }
+
+    /**
+     * Show a tab's fragment, creating it on first use. Other tabs are hidden
+     * and capped at STARTED rather than removed, so their views, scroll
+     * positions and adapters survive and they are paused while hidden.
+     */
+    private void showTab(String fragmentTag) {
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        Fragment target = fragmentManager.findFragmentByTag(fragmentTag);
+        if (target != null && fragmentTag.equals(currentFragmentTag) && !target.isHidden()) {
+            return;
+        }
+
+        FragmentTransaction transaction = fragmentManager.beginTransaction();
+        transaction.setReorderingAllowed(true);
+        for (String tag : TAB_TAGS) {
+            Fragment fragment = fragmentManager.findFragmentByTag(tag);
+            if (fragment != null && fragment != target && !fragment.isHidden()) {
+                transaction.hide(fragment);
+                transaction.setMaxLifecycle(fragment, Lifecycle.State.STARTED);
+            }
+        }
+        if (target == null) {
+            target = createFragment(fragmentTag);
+            transaction.add(R.id.fragment_container, target, fragmentTag);
+        } else {
+            transaction.show(target);
+        }
+        transaction.setMaxLifecycle(target, Lifecycle.State.RESUMED);
+        // Run now, so a quick second tap finds the fragment already added
+        transaction.commitNow();
         currentFragmentTag = fragmentTag;
+    }
 
+    private Fragment createFragment(String fragmentTag) {
         switch (fragmentTag) {
-            case "home":
-                fragment = new HomeFragment();
-                bottomNavigationView.setSelectedItemId(R.id.nav_home);
-                break;
             case "trips":
-                fragment = new TripsFragment();
-                bottomNavigationView.setSelectedItemId(R.id.nav_trips);
-                break;
+                return new TripsFragment();
             case "insights":
-                fragment = new InsightsFragment();
-                bottomNavigationView.setSelectedItemId(R.id.nav_insights);
-                break;
+                return new InsightsFragment();
             case "profile":
-                fragment = new ProfileFragment();
-                bottomNavigationView.setSelectedItemId(R.id.nav_profile);
-                break;
+                return new ProfileFragment();
+            default:
+                return new HomeFragment();
+        }
+    }
+
+    private static String tagForItem(int itemId) {
+        if (itemId == R.id.nav_home) {
+            return "home";
+        } else if (itemId == R.id.nav_trips) {
+            return "trips";
+        } else if (itemId == R.id.nav_insights) {
+            return "insights";
+        } else if (itemId == R.id.nav_profile) {
+            return "profile";
         }
+        return null;
+    }
 
-        if (fragment != null) {
-            FragmentManager fragmentManager = getSupportFragmentManager();
-            FragmentTransaction transaction = fragmentManager.beginTransaction();
-            transaction.replace(R.id.fragment_container, fragment, fragmentTag);
-            transaction.commit();
+    private static int itemForTag(String fragmentTag) {
+        switch (fragmentTag) {
+            case "trips":
+                return R.id.nav_trips;
+            case "insights":
+                return R.id.nav_insights;
+            case "profile":
+                return R.id.nav_profile;
+            default:
+                return R.id.nav_home;
         }
     }
 
@@ -191,35 +270,64 @@ public class HomeActivity extends AppCompatActivity implements
     // TripsFragment Interface
     @Override
     public void onTripAdded(Trip trip) {
-        trips.add(trip);
-        preferenceHelper.saveTrips(trips);
+        tripRepository.addTrip(trip);
         Toast.makeText(this, getString(R.string.success_trip_added), Toast.LENGTH_SHORT).show();
     }
 
     @Override
     public void onTripUpdated(Trip trip) {
-        preferenceHelper.updateTrip(trip);
-        // Reload trips
-        trips = preferenceHelper.getTrips();
+        tripRepository.updateTrip(trip);
         Toast.makeText(this, getString(R.string.success_profile_updated), Toast.LENGTH_SHORT).show();
     }
 
     @Override
     public void onTripDeleted(int tripId) {
-        preferenceHelper.deleteTrip(tripId);
-        trips = preferenceHelper.getTrips();
+        tripRepository.deleteTrip(tripId);
         Toast.makeText(this, "Trip deleted successfully", Toast.LENGTH_SHORT).show();
     }
 
     @Override
     public List<Trip> getTrips() {
-        return trips;
+        return tripRepository.getTrips();
+    }
+
+    @Override
+    public TripListing listTrips(Trip.TripStatus status) {
+        return tripRepository.listNewestFirst(status);
+    }
+
+    @Override
+    public TripListing searchTrips(String query, Trip.TripStatus status) {
+        return tripRepository.listSearch(query, status, SEARCH_RESULT_LIMIT);
+    }
+
+    @Override
+    public void prepareSearch() {
+        tripRepository.prepareSearch();
+    }
+
+    @Override
+    public List<Trip> loadTrips(TripListing listing, int start, int count) {
+        return tripRepository.getTrips(listing, start, count);
+    }
+
+    @Override
+    public int getTripChangeCount() {
+        return tripRepository.getChangeCount();
     }
 
     // InsightsFragment Interface
     @Override
     public List<Trip> getTripsForInsights() {
-        return trips;
+        return getTrips();
+    }
+
+    /**
+     * Insights totals kept up to date by the trip store, so the insights
+     * screen can read them without scanning every trip
+     */
+    public TripInsights getInsights() {
+        return tripRepository.getInsights();
     }
 
     @Override
@@ -255,21 +363,89 @@ public class HomeActivity extends AppCompatActivity implements
     @Override
     public void onLanguageChanged(LanguageManager.Language language) {
         languageManager.setLanguage(language);
-        
-        // Restart activity to apply language change
-        Intent intent = getIntent();
-        finish();
-        startActivity(intent);
+        refreshAppearance();
     }
 
     @Override
     public void onThemeChanged(ThemeManager.Theme theme) {
+        // HomeActivity handles uiMode changes itself, so switching the night
+        // mode reconfigures it in place instead of recreating it
         themeManager.setTheme(theme);
-        
-        // Restart activity to apply theme change
-        Intent intent = getIntent();
-        finish();
-        startActivity(intent);
+        refreshAppearance();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        // The system dark mode changed while the theme follows it
+        refreshAppearance();
+    }
+
+    /**
+     * Apply a theme or language change; does nothing when neither changed
+     * since the last call. A language change recreates the activity, which
+     * takes the new language from {@link LanguageManager#wrap(Context)}. A
+     * theme change is applied in place: the window and navigation colours
+     * are re-applied and the tabs' views rebuilt, which inflate against the
+     * new theme while the fragments keep their state.
+     */
+    private void refreshAppearance() {
+        boolean darkMode = themeManager.isDarkMode();
+        LanguageManager.Language language = languageManager.getCurrentLanguage();
+        if (darkMode == appliedDarkMode && language == appliedLanguage) {
+            return;
+        }
+        appliedDarkMode = darkMode;
+        if (language != appliedLanguage) {
+            // The new activity resolves both theme and language from scratch
+            appliedLanguage = language;
+            recreate();
+            return;
+        }
+        applyWindowColors();
+        applyNavigationColors();
+
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        FragmentTransaction rebuild = fragmentManager.beginTransaction();
+        for (String tag : TAB_TAGS) {
+            Fragment fragment = fragmentManager.findFragmentByTag(tag);
+            if (fragment != null) {
+                rebuild.detach(fragment).attach(fragment);
+            }
+        }
+        rebuild.commit();
+    }
+
+    /**
+     * Re-apply the theme style and take the window colours from it
+     */
+    private void applyWindowColors() {
+        setTheme(themeManager.getThemeStyle());
+        TypedArray colors = getTheme().obtainStyledAttributes(new int[]{
+                android.R.attr.statusBarColor,
+                android.R.attr.navigationBarColor,
+                android.R.attr.windowBackground});
+        try {
+            Window window = getWindow();
+            window.setStatusBarColor(colors.getColor(0, 0));
+            window.setNavigationBarColor(colors.getColor(1, 0));
+            window.setBackgroundDrawable(colors.getDrawable(2));
+        } finally {
+            colors.recycle();
+        }
+    }
+
+    /**
+     * Tint the bottom navigation from the current palette
+     */
+    private void applyNavigationColors() {
+        ThemePalette palette = themeManager.getPalette();
+        ColorStateList itemColors = new ColorStateList(
+                new int[][]{{android.R.attr.state_checked}, {}},
+                new int[]{palette.getPrimaryColor(), ContextCompat.getColor(this, R.color.gray_400)});
+        bottomNavigationView.setBackgroundColor(palette.getBackgroundColor());
+        bottomNavigationView.setItemIconTintList(itemColors);
+        bottomNavigationView.setItemTextColor(itemColors);
     }
 
     @Override
@@ -301,13 +477,29 @@ public class HomeActivity extends AppCompatActivity implements
     protected void onResume() {
         super.onResume();
         
-        // Refresh data
-        loadUserData();
+        // Profile edits update currentUser directly, so the user is only
+        // read again if none is loaded
+        if (currentUser == null) {
+            loadUserData();
+        }
         
         // Apply current theme
         themeManager.applyTheme(this);
     }
 
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Persist any batched trip edits before we may be killed
+        tripRepository.flush();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        tripRepository.flush();
+    }
+
     @Override
     public void onBackPressed() {
         // If not on home fragment, go to home
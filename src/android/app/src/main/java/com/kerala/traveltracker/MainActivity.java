@@ -1,5 +1,6 @@
 package com.kerala.traveltracker;
 
+import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
@@ -7,6 +8,7 @@ import android.preference.PreferenceManager;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.splashscreen.SplashScreen;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentTransaction;
@@ -36,16 +38,38 @@ public class MainActivity extends AppCompatActivity implements
     }
     
     private ViewState currentView = ViewState.LANDING;
+    private StartupOrchestrator startup;
+    // Queued on the pipeline until it is ready; dropped if this screen goes first
+    private Runnable startupReady;
     private PreferenceHelper preferenceHelper;
     private LanguageManager languageManager;
     private ThemeManager themeManager;
     private User currentUser;
 
+    @Override
+    protected void attachBaseContext(Context base) {
+        super.attachBaseContext(LanguageManager.wrap(base));
+    }
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        // The splash stays up until the startup pipeline has the settings and user
+        SplashScreen splashScreen = SplashScreen.installSplashScreen(this);
         super.onCreate(savedInstanceState);
+        startup = StartupOrchestrator.start(this);
+        splashScreen.setKeepOnScreenCondition(() -> !startup.isReady());
         setContentView(R.layout.activity_main);
 
+        startupReady = () -> onStartupReady(savedInstanceState);
+        startup.whenReady(startupReady);
+    }
+
+    private void onStartupReady(Bundle savedInstanceState) {
+        if (isFinishing() || isDestroyed()) {
+            // Replaced while the splash was up; the new instance carries on
+            return;
+        }
+        
         // Initialize managers
         initializeManagers();
         
@@ -56,21 +80,35 @@ public class MainActivity extends AppCompatActivity implements
         if (savedInstanceState != null) {
             currentView = ViewState.valueOf(savedInstanceState.getString(CURRENT_VIEW_KEY, ViewState.LANDING.toString()));
         } else {
-            // Check if user is already authenticated
-            if (preferenceHelper.isUserAuthenticated()) {
+            // Check if user is already authenticated; the startup pipeline's
+            // answer only holds for the cold start, not after a sign-out
+            boolean authenticated;
+            User user;
+            if (startup.claimColdStart()) {
+                authenticated = startup.isUserAuthenticated();
+                user = startup.getUser();
+            } else {
+                authenticated = preferenceHelper.isUserAuthenticated();
+                user = authenticated ? preferenceHelper.getUser() : null;
+            }
+            if (authenticated) {
                 currentView = ViewState.APP;
-                currentUser = preferenceHelper.getUser();
+                currentUser = user;
             }
         }
         
         // Navigate to appropriate view
         navigateToView(currentView);
+        if (currentView != ViewState.APP) {
+            startup.markFirstFrame(this);
+        }
     }
 
     private void initializeManagers() {
-        preferenceHelper = new PreferenceHelper(this);
-        languageManager = new LanguageManager(this);
-        themeManager = new ThemeManager(this);
+        // One preference helper, opened by the startup pipeline, shared by every manager
+        preferenceHelper = startup.getPreferenceHelper();
+        languageManager = new LanguageManager(this, preferenceHelper);
+        themeManager = new ThemeManager(this, preferenceHelper);
         
         // Apply saved language
         languageManager.applyLanguage();
@@ -100,8 +138,11 @@ public class MainActivity extends AppCompatActivity implements
                 fragment = new ForgotPasswordFragment();
                 break;
             case APP:
-                // Start main app activity
+                // Start main app activity, handing over the user already loaded
                 Intent intent = new Intent(this, HomeActivity.class);
+                if (currentUser != null) {
+                    intent.putExtra(HomeActivity.EXTRA_USER, currentUser);
+                }
                 startActivity(intent);
                 finish();
                 return;
@@ -223,8 +264,16 @@ public class MainActivity extends AppCompatActivity implements
     @Override
     protected void onResume() {
         super.onResume();
-        // Apply current theme
-        themeManager.applyTheme(this);
+        // Apply current theme, once the startup pipeline has created the manager
+        if (themeManager != null) {
+            themeManager.applyTheme(this);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        startup.cancelWhenReady(startupReady);
     }
 
     @Override
@@ -0,0 +1,237 @@
+package com.kerala.traveltracker;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import com.kerala.traveltracker.models.User;
+import com.kerala.traveltracker.utils.PreferenceManager.PreferenceHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cold-start pipeline for Kerala Travel Tracker
+ * Settings and the signed-in user are loaded in parallel on background
+ * threads while the splash screen stays up, and the trip journal opens on
+ * the persistence writer meanwhile. The splash is released as soon as the
+ * settings and the user are known, which is all the first screen needs;
+ * the journal keeps replaying behind it. Phase durations, not counting the
+ * wait for the shared preference helper, are logged once the first screen
+ * has drawn. The user and
+ * sign-in state it loaded describe the cold start only; the screen that
+ * claims them with {@link #claimColdStart()} is the only one to use them.
+ */
+public final class StartupOrchestrator {
+
+    private static final String TAG = "Startup";
+
+    public enum Phase {
+        SETTINGS, USER, TRIPS
+    }
+
+    // Phases the splash screen waits for
+    private static final int GATING_PHASES = 2;
+
+    private static StartupOrchestrator instance;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(Phase.values().length);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Future<PreferenceHelper> preferenceHelper;
+    private final long startNanos = SystemClock.elapsedRealtimeNanos();
+    // Written by the phase threads, read on the main thread
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(Phase.values().length);
+    private final AtomicInteger pendingGates = new AtomicInteger(GATING_PHASES);
+
+    // Written by the phases, read once the gate opens
+    private volatile boolean authenticated;
+    private volatile User user;
+
+    // Main thread only
+    private boolean ready;
+    private final List<Runnable> readyActions = new ArrayList<>();
+    private boolean firstFrameLogged;
+    private boolean coldStartClaimed;
+
+    private StartupOrchestrator(Context context) {
+        Context appContext = context.getApplicationContext();
+        // Opening preferences touches the disk, so even that is done off the main thread
+        preferenceHelper = executor.submit(() -> new PreferenceHelper(appContext));
+        executor.execute(() -> runPhase(Phase.SETTINGS, helper -> {
+            // The first read waits for the preferences file to load
+            authenticated = helper.isUserAuthenticated();
+            helper.getLanguage();
+            helper.getTheme();
+        }));
+        executor.execute(() -> runPhase(Phase.USER, helper -> user = helper.getUser()));
+        // The helper's repository started opening the journal on the writer
+        // thread; this phase only times the replay
+        executor.execute(() -> runPhase(Phase.TRIPS, helper -> helper.getTripRepository().awaitOpen()));
+        // Threads exit once the queued phases are done
+        executor.shutdown();
+    }
+
+    /**
+     * Start the pipeline on first call; later calls return the running one
+     */
+    public static synchronized StartupOrchestrator start(Context context) {
+        if (instance == null) {
+            instance = new StartupOrchestrator(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Whether the settings and user are loaded; polled by the splash screen
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Run {@code action} on the main thread once the settings and user are
+     * loaded, right away if they already are
+     */
+    public void whenReady(Runnable action) {
+        if (ready) {
+            action.run();
+        } else {
+            readyActions.add(action);
+        }
+    }
+
+    /**
+     * Drop an action passed to {@link #whenReady(Runnable)} that has not run
+     * yet, so the pipeline does not keep a destroyed screen alive
+     */
+    public void cancelWhenReady(Runnable action) {
+        readyActions.remove(action);
+    }
+
+    /**
+     * The shared preference helper; waits only for it to be constructed
+     */
+    public PreferenceHelper getPreferenceHelper() {
+        try {
+            return preferenceHelper.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while opening preferences", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to open preferences", e.getCause());
+        }
+    }
+
+    /**
+     * True the first time it is called, once the pipeline is ready; the
+     * caller may then use {@link #isUserAuthenticated()} and
+     * {@link #getUser()}. Later screens must read the live values instead,
+     * since the user may have signed in or out since the cold start.
+     */
+    public boolean claimColdStart() {
+        if (!ready || coldStartClaimed) {
+            return false;
+        }
+        coldStartClaimed = true;
+        return true;
+    }
+
+    /**
+     * Whether a user was signed in at the cold start
+     */
+    public boolean isUserAuthenticated() {
+        return authenticated;
+    }
+
+    /**
+     * The user as loaded at the cold start, or null if none was saved
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Log the startup timeline when the activity's first frame is about to
+     * draw; only the first screen shown after a cold start is logged
+     */
+    public void markFirstFrame(Activity activity) {
+        if (firstFrameLogged) {
+            return;
+        }
+        firstFrameLogged = true;
+        View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                logTimeline(activity.getClass().getSimpleName());
+                return true;
+            }
+        });
+    }
+
+    // Pipeline helpers
+
+    private interface PhaseTask {
+        void run(PreferenceHelper helper) throws Exception;
+    }
+
+    private void runPhase(Phase phase, PhaseTask task) {
+        long start = 0;
+        try {
+            PreferenceHelper helper = preferenceHelper.get();
+            // Timed from here, so a phase does not count the wait for the helper
+            start = SystemClock.elapsedRealtimeNanos();
+            task.run(helper);
+        } catch (Exception e) {
+            // A failed phase only loses its head start; screens load it themselves
+            Log.e(TAG, "Startup phase " + phase + " failed", e);
+        }
+        if (start != 0) {
+            phaseNanos.set(phase.ordinal(), SystemClock.elapsedRealtimeNanos() - start);
+        }
+        if (phase != Phase.TRIPS && pendingGates.decrementAndGet() == 0) {
+            mainHandler.post(this::openGate);
+        }
+    }
+
+    private void openGate() {
+        ready = true;
+        // Emptied before running, so the singleton holds on to none of the
+        // screens the actions capture
+        List<Runnable> actions = new ArrayList<>(readyActions);
+        readyActions.clear();
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+
+    private void logTimeline(String screen) {
+        StringBuilder timeline = new StringBuilder("Cold start to first frame of ")
+                .append(screen).append(": ")
+                .append(millis(SystemClock.elapsedRealtimeNanos() - startNanos)).append(" ms (");
+        for (Phase phase : Phase.values()) {
+            long nanos = phaseNanos.get(phase.ordinal());
+            timeline.append(phase.name().toLowerCase(Locale.ROOT)).append(' ')
+                    .append(nanos > 0 ? millis(nanos) + " ms" : "running")
+                    .append(phase.ordinal() < Phase.values().length - 1 ? ", " : ")");
+        }
+        Log.i(TAG, timeline.toString());
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,269 @@
+package com.kerala.traveltracker.adapters;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.kerala.traveltracker.data.IntIntMap;
+import com.kerala.traveltracker.data.TripListing;
+import com.kerala.traveltracker.models.Trip;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Read-only list of trips that decodes a {@link TripListing} page by page
+ * Only the pages near the last position read are held: the pages just
+ * ahead of and behind it are prefetched on a worker thread, and pages
+ * further away are released. Memory held is therefore independent of how
+ * many trips the listing covers. A position read before its page arrives
+ * reads as null, which {@link TripsAdapter} binds as a placeholder row; the
+ * {@link Callback} is told once the trip is there. Must be used from the
+ * main thread.
+ */
+public class PagedTripList extends AbstractList<Trip> {
+
+    /**
+     * Decodes trips from a listing, null for those deleted since it was
+     * taken; called on the worker thread
+     */
+    public interface PageLoader {
+        List<Trip> loadTrips(TripListing listing, int start, int count);
+    }
+
+    /**
+     * Told on the main thread when trips read as placeholders have been
+     * decoded, and when the listing turns out to hold deleted trips and
+     * should be replaced
+     */
+    public interface Callback {
+        void onTripsLoaded(int start, int count);
+
+        void onListingStale();
+    }
+
+    public static final int PAGE_SIZE = 50;
+    // Pages loaded ahead of and behind the one being read
+    private static final int PREFETCH_PAGES = 1;
+    // Pages further than this from the one being read are released
+    private static final int RETAINED_PAGES = 3;
+    // Marks a position whose trip was deleted after the listing was taken
+    private static final Trip GONE = new Trip();
+
+    private final PageLoader loader;
+    private final Executor executor;
+    private final Callback callback;
+    // Runs page results on the main thread
+    private final Executor mainExecutor;
+
+    private TripListing listing = TripListing.EMPTY;
+    private Trip[][] pages = new Trip[0][];
+    private boolean[] loading = new boolean[0];
+    private int currentPage;
+    // False until the pages around currentPage have been requested
+    private boolean prefetched;
+    // Bumped on every submit so late pages of an older listing are dropped
+    private int generation;
+    // Whether onListingStale was already called for this listing
+    private boolean staleReported;
+
+    public PagedTripList(PageLoader loader, Executor executor, Callback callback) {
+        this(loader, executor, new Handler(Looper.getMainLooper())::post, callback);
+    }
+
+    // For testing, where the main thread is the test's own
+    PagedTripList(PageLoader loader, Executor executor, Executor mainExecutor, Callback callback) {
+        this.loader = loader;
+        this.executor = executor;
+        this.mainExecutor = mainExecutor;
+        this.callback = callback;
+    }
+
+    public TripListing getListing() {
+        return listing;
+    }
+
+    /**
+     * Show a new listing. Trips already decoded near the current position
+     * are carried over when their version is unchanged, so a refresh only
+     * decodes the pages holding trips that were added or edited.
+     */
+    public void submit(TripListing newListing) {
+        // Trips decoded near the current position, found by trip id
+        int first = Math.max(0, currentPage - RETAINED_PAGES);
+        int last = Math.min(pages.length - 1, currentPage + RETAINED_PAGES);
+        int capacity = Math.max(0, last - first + 1) * PAGE_SIZE;
+        Trip[] decoded = new Trip[capacity];
+        int[] decodedVersions = new int[capacity];
+        IntIntMap decodedById = new IntIntMap(capacity);
+        for (int page = first; page <= last; page++) {
+            Trip[] trips = pages[page];
+            for (int i = 0; trips != null && i < trips.length; i++) {
+                if (trips[i] != null && trips[i] != GONE) {
+                    int position = page * PAGE_SIZE + i;
+                    int index = decodedById.size();
+                    decoded[index] = trips[i];
+                    decodedVersions[index] = listing.getVersion(position);
+                    decodedById.put(listing.getTripId(position), index);
+                }
+            }
+        }
+
+        listing = newListing;
+        generation++;
+        int pageCount = (newListing.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+        pages = new Trip[pageCount][];
+        loading = new boolean[pageCount];
+        currentPage = Math.min(currentPage, Math.max(0, pageCount - 1));
+        prefetched = false;
+        staleReported = false;
+        if (decodedById.size() == 0) {
+            return;
+        }
+        for (int page = Math.max(0, currentPage - RETAINED_PAGES);
+             page <= currentPage + RETAINED_PAGES && page < pageCount; page++) {
+            Trip[] trips = new Trip[pageLength(page)];
+            boolean any = false;
+            for (int i = 0; i < trips.length; i++) {
+                int position = page * PAGE_SIZE + i;
+                int index = decodedById.get(newListing.getTripId(position));
+                // Only an unchanged copy of the trip is carried over
+                if (index >= 0 && decodedVersions[index] == newListing.getVersion(position)) {
+                    trips[i] = decoded[index];
+                    any = true;
+                }
+            }
+            if (any) {
+                pages[page] = trips;
+            }
+        }
+    }
+
+    /**
+     * The trip at {@code position}, or null while it is being decoded or if
+     * it was deleted after the listing was taken
+     */
+    @Override
+    public Trip get(int position) {
+        if (position < 0 || position >= listing.size()) {
+            throw new IndexOutOfBoundsException("Position " + position + " of " + listing.size());
+        }
+        int page = position / PAGE_SIZE;
+        int offset = position - page * PAGE_SIZE;
+        Trip trip = pages[page] != null ? pages[page][offset] : null;
+        if (page != currentPage || !prefetched) {
+            currentPage = page;
+            prefetched = true;
+            releaseDistantPages();
+            prefetchAround(page);
+        } else if (trip == null && !loading[page]) {
+            // Added or edited since the page was carried over, or its
+            // prefetch was dropped
+            prefetch(page);
+        }
+        return trip != GONE ? trip : null;
+    }
+
+    /**
+     * Id of the trip at {@code position}, known before the trip is decoded;
+     * reading it loads nothing
+     */
+    public int getTripId(int position) {
+        return listing.getTripId(position);
+    }
+
+    @Override
+    public int size() {
+        return listing.size();
+    }
+
+    // Paging helpers
+
+    private void prefetchAround(int page) {
+        for (int p = page - PREFETCH_PAGES; p <= page + PREFETCH_PAGES; p++) {
+            if (p >= 0 && p < pages.length && !loading[p] && !isComplete(p)) {
+                prefetch(p);
+            }
+        }
+    }
+
+    private void prefetch(int page) {
+        loading[page] = true;
+        TripListing target = listing;
+        int expected = generation;
+        executor.execute(() -> {
+            List<Trip> trips = loader.loadTrips(target, page * PAGE_SIZE, pageLength(target, page));
+            mainExecutor.execute(() -> {
+                if (expected != generation) {
+                    return;
+                }
+                loading[page] = false;
+                if (Math.abs(page - currentPage) > RETAINED_PAGES) {
+                    // Scrolled away while it was loading
+                    return;
+                }
+                Trip[] loaded = toArray(trips);
+                Trip[] previous = pages[page];
+                int first = -1;
+                int last = -1;
+                boolean gone = false;
+                for (int i = 0; i < loaded.length; i++) {
+                    if (previous != null && previous[i] != null) {
+                        // Keep the trips already handed out for this page
+                        loaded[i] = previous[i];
+                        continue;
+                    }
+                    if (loaded[i] == null) {
+                        loaded[i] = GONE;
+                        gone = true;
+                    }
+                    if (first < 0) {
+                        first = i;
+                    }
+                    last = i;
+                }
+                pages[page] = loaded;
+                if (first >= 0) {
+                    callback.onTripsLoaded(page * PAGE_SIZE + first, last - first + 1);
+                }
+                if (gone && !staleReported) {
+                    staleReported = true;
+                    callback.onListingStale();
+                }
+            });
+        });
+    }
+
+    private void releaseDistantPages() {
+        for (int page = 0; page < pages.length; page++) {
+            if (pages[page] != null && Math.abs(page - currentPage) > RETAINED_PAGES) {
+                pages[page] = null;
+            }
+        }
+    }
+
+    private boolean isComplete(int page) {
+        Trip[] trips = pages[page];
+        if (trips == null) {
+            return false;
+        }
+        for (Trip trip : trips) {
+            if (trip == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int pageLength(int page) {
+        return pageLength(listing, page);
+    }
+
+    private static int pageLength(TripListing listing, int page) {
+        return Math.min(PAGE_SIZE, listing.size() - page * PAGE_SIZE);
+    }
+
+    private static Trip[] toArray(List<Trip> trips) {
+        return trips.toArray(new Trip[0]);
+    }
+}
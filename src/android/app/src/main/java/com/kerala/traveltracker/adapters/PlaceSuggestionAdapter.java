@@ -0,0 +1,125 @@
+package com.kerala.traveltracker.adapters;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.TextView;
+
+import com.kerala.traveltracker.utils.LanguageManager;
+import com.kerala.traveltracker.utils.PlaceNameIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adapter for place-name suggestions in an AutoCompleteTextView
+ * Matches come from {@link PlaceNameIndex} on the filter's worker thread.
+ * Each keystroke supersedes the previous query: a query that is no longer
+ * the latest is abandoned before its lookup, and its results are dropped
+ * if they arrive late. Suggestions show the name in the current language
+ * next to the English name, and the English name is what gets entered.
+ */
+public class PlaceSuggestionAdapter extends BaseAdapter implements Filterable {
+
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final Context context;
+    private final LanguageManager.Language language;
+    private List<PlaceNameIndex.Place> suggestions = new ArrayList<>();
+    private final PlaceFilter filter = new PlaceFilter();
+
+    public PlaceSuggestionAdapter(Context context, LanguageManager.Language language) {
+        this.context = context.getApplicationContext();
+        this.language = language;
+    }
+
+    @Override
+    public int getCount() {
+        return suggestions.size();
+    }
+
+    @Override
+    public PlaceNameIndex.Place getItem(int position) {
+        return suggestions.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        View view = convertView;
+        if (view == null) {
+            view = LayoutInflater.from(parent.getContext())
+                    .inflate(android.R.layout.simple_dropdown_item_1line, parent, false);
+        }
+        PlaceNameIndex.Place place = getItem(position);
+        String localName = place.getLocalName(language);
+        TextView textView = (TextView) view;
+        textView.setText(localName.equals(place.getName())
+                ? localName
+                : localName + " · " + place.getName());
+        return view;
+    }
+
+    @Override
+    public Filter getFilter() {
+        return filter;
+    }
+
+    private class PlaceFilter extends Filter {
+
+        // Written on the main thread, read on the filter thread
+        private volatile String latestQuery;
+
+        @Override
+        public void filter(CharSequence constraint, FilterListener listener) {
+            latestQuery = constraint != null ? constraint.toString() : null;
+            super.filter(constraint, listener);
+        }
+
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            FilterResults results = new FilterResults();
+            if (constraint == null || !isLatest(constraint)) {
+                // Superseded while queued; leave results empty and unpublished
+                return results;
+            }
+            List<PlaceNameIndex.Place> matches = PlaceNameIndex.getInstance(context)
+                    .suggest(constraint, MAX_SUGGESTIONS);
+            results.values = matches;
+            results.count = matches.size();
+            return results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            if (constraint == null || !isLatest(constraint) || results.values == null) {
+                // A newer query is pending; keep showing the current list
+                return;
+            }
+            suggestions = (List<PlaceNameIndex.Place>) results.values;
+            if (results.count > 0) {
+                notifyDataSetChanged();
+            } else {
+                notifyDataSetInvalidated();
+            }
+        }
+
+        private boolean isLatest(CharSequence constraint) {
+            return constraint.toString().equals(latestQuery);
+        }
+
+        @Override
+        public CharSequence convertResultToString(Object resultValue) {
+            return ((PlaceNameIndex.Place) resultValue).getName();
+        }
+    }
+}
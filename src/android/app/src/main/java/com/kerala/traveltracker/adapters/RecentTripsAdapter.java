@@ -1,34 +1,51 @@
 package com.kerala.traveltracker.adapters;
 
+import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.card.MaterialCardView;
 import com.kerala.traveltracker.R;
 import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.LanguageManager;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Adapter for displaying recent trips on the home screen
+ * Lists are diffed on a background thread by {@link ListAdapter}, after
+ * their rows have been formatted by {@link TripRenderCache}; binding only
+ * assigns prepared text and colours. Submit a new list instance for every
+ * update with {@link #submitTrips(List)}.
  */
-public class RecentTripsAdapter extends RecyclerView.Adapter<RecentTripsAdapter.TripViewHolder> {
+public class RecentTripsAdapter extends ListAdapter<Trip, RecentTripsAdapter.TripViewHolder> {
     
     public interface OnTripClickListener {
         void onTripClick(Trip trip);
     }
     
-    private List<Trip> trips;
     private OnTripClickListener listener;
+    private final TripRenderCache renderCache;
     
-    public RecentTripsAdapter(List<Trip> trips, OnTripClickListener listener) {
-        this.trips = trips;
+    public RecentTripsAdapter(Context context, Executor renderExecutor, LanguageManager languageManager,
+                              OnTripClickListener listener) {
+        super(TripDiffCallback.INSTANCE);
         this.listener = listener;
+        this.renderCache = new TripRenderCache(context, renderExecutor, languageManager);
+        setHasStableIds(true);
+    }
+    
+    /**
+     * Format the trips off the main thread, then show them
+     */
+    public void submitTrips(List<Trip> trips) {
+        renderCache.prepare(trips, () -> submitList(trips));
     }
     
     @NonNull
@@ -41,78 +58,35 @@ public class RecentTripsAdapter extends RecyclerView.Adapter<RecentTripsAdapter.
     
     @Override
     public void onBindViewHolder(@NonNull TripViewHolder holder, int position) {
-        Trip trip = trips.get(position);
-        holder.bind(trip);
+        holder.bind(renderCache.get(getItem(position)));
     }
     
     @Override
-    public int getItemCount() {
-        return trips != null ? trips.size() : 0;
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
     
     class TripViewHolder extends RecyclerView.ViewHolder {
         private MaterialCardView cardView;
-        private TextView modeTextView;
-        private TextView routeTextView;
-        private TextView dateTextView;
-        private TextView distanceTextView;
-        private TextView carbonTextView;
-        private TextView statusTextView;
+        private TripRowViews rowViews;
+        private Trip boundTrip;
         
         public TripViewHolder(@NonNull View itemView) {
             super(itemView);
             cardView = itemView.findViewById(R.id.trip_card_view);
-            modeTextView = itemView.findViewById(R.id.mode_text_view);
-            routeTextView = itemView.findViewById(R.id.route_text_view);
-            dateTextView = itemView.findViewById(R.id.date_text_view);
-            distanceTextView = itemView.findViewById(R.id.distance_text_view);
-            carbonTextView = itemView.findViewById(R.id.carbon_text_view);
-            statusTextView = itemView.findViewById(R.id.status_text_view);
-        }
-        
-        public void bind(Trip trip) {
-            // Set transport mode emoji
-            modeTextView.setText(trip.getMode().getEmoji());
-            
-            // Set route
-            routeTextView.setText(trip.getFormattedRoute());
-            
-            // Set date
-            dateTextView.setText(trip.getDate());
+            rowViews = new TripRowViews(itemView);
             
-            // Set distance
-            distanceTextView.setText(trip.getDistance());
-            
-            // Set carbon footprint
-            carbonTextView.setText(trip.getCarbonFootprint() + " CO₂");
-            
-            // Set status
-            statusTextView.setText(trip.getStatusEmoji() + " " + trip.getStatusDisplayName());
-            
-            // Set status color
-            int statusColor;
-            switch (trip.getStatus()) {
-                case COMPLETED:
-                    statusColor = itemView.getContext().getColor(R.color.green_500);
-                    break;
-                case ONGOING:
-                    statusColor = itemView.getContext().getColor(R.color.blue_500);
-                    break;
-                case PLANNED:
-                    statusColor = itemView.getContext().getColor(R.color.orange_500);
-                    break;
-                default:
-                    statusColor = itemView.getContext().getColor(R.color.gray_500);
-                    break;
-            }
-            statusTextView.setTextColor(statusColor);
-            
-            // Set click listener
+            // One click listener per row, reading whichever trip is bound
             cardView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onTripClick(trip);
+                if (listener != null && boundTrip != null) {
+                    listener.onTripClick(boundTrip);
                 }
             });
         }
+        
+        public void bind(TripRenderModel model) {
+            boundTrip = model.trip;
+            rowViews.bind(model, renderCache);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package com.kerala.traveltracker.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.kerala.traveltracker.data.TripListing;
+import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.DateUtils;
+import com.kerala.traveltracker.utils.UnitUtils;
+
+import java.util.Objects;
+
+/**
+ * Diff rules for trip lists
+ * Trips are the same item when their ids match, and unchanged when every
+ * field a trip row displays is equal, so an edit rebinds only its own row.
+ * Numeric fields are compared directly; display text is only formatted for
+ * values that could not be parsed.
+ */
+public class TripDiffCallback extends DiffUtil.ItemCallback<Trip> {
+
+    public static final TripDiffCallback INSTANCE = new TripDiffCallback();
+
+    @Override
+    public boolean areItemsTheSame(@NonNull Trip oldTrip, @NonNull Trip newTrip) {
+        return oldTrip.getId() == newTrip.getId();
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Trip oldTrip, @NonNull Trip newTrip) {
+        return oldTrip.getMode() == newTrip.getMode()
+                && oldTrip.getStatus() == newTrip.getStatus()
+                && oldTrip.getDuration() == newTrip.getDuration()
+                && Objects.equals(oldTrip.getOrigin(), newTrip.getOrigin())
+                && Objects.equals(oldTrip.getDestination(), newTrip.getDestination())
+                && Objects.equals(oldTrip.getNotes(), newTrip.getNotes())
+                && sameDate(oldTrip, newTrip)
+                && sameDistance(oldTrip, newTrip)
+                && sameCarbon(oldTrip, newTrip);
+    }
+
+    /**
+     * Callback for a one-off {@link DiffUtil#calculateDiff} between two
+     * listings; versions stand in for contents, so nothing is decoded
+     */
+    public static DiffUtil.Callback between(TripListing oldListing, TripListing newListing) {
+        return new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldListing.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newListing.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return oldListing.getTripId(oldPosition) == newListing.getTripId(newPosition);
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return oldListing.getVersion(oldPosition) == newListing.getVersion(newPosition);
+            }
+        };
+    }
+
+    private static boolean sameDate(Trip a, Trip b) {
+        int day = a.getEpochDay();
+        return day == b.getEpochDay()
+                && (day != DateUtils.NO_DATE || Objects.equals(a.getDate(), b.getDate()));
+    }
+
+    private static boolean sameDistance(Trip a, Trip b) {
+        int meters = a.getDistanceMeters();
+        return meters == b.getDistanceMeters()
+                && (meters != UnitUtils.UNKNOWN || Objects.equals(a.getDistance(), b.getDistance()));
+    }
+
+    private static boolean sameCarbon(Trip a, Trip b) {
+        int grams = a.getCarbonGrams();
+        return grams == b.getCarbonGrams()
+                && (grams != UnitUtils.UNKNOWN || Objects.equals(a.getCarbonFootprint(), b.getCarbonFootprint()));
+    }
+}
@@ -0,0 +1,122 @@
+package com.kerala.traveltracker.adapters;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseArray;
+
+import androidx.core.content.ContextCompat;
+import androidx.core.text.PrecomputedTextCompat;
+
+import com.kerala.traveltracker.R;
+import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.LanguageManager;
+import com.kerala.traveltracker.utils.LocalizationTable;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Render models for the trips an adapter shows, keyed by trip id
+ * Models are built on a worker thread before a list is shown. A model is
+ * reused while its trip is unchanged, so a refresh only formats the trips
+ * that were added or edited, or every trip after a language change. The
+ * set of models is replaced on the main thread and never changed after
+ * that, so workers can read it freely.
+ */
+final class TripRenderCache {
+
+    private final Executor executor;
+    private final LanguageManager languageManager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Status colours, resolved once, by status ordinal
+    private final int[] statusColors;
+    private final int noStatusColor;
+    // Taken from the first row bound; until then text is formatted but not
+    // measured. Always null before Android 9, where PrecomputedText is missing
+    private volatile PrecomputedTextCompat.Params[] textParams;
+    private SparseArray<TripRenderModel> models = new SparseArray<>();
+    // Bumped on every prepare so an older list's models are dropped
+    private int generation;
+
+    TripRenderCache(Context context, Executor executor, LanguageManager languageManager) {
+        this.executor = executor;
+        this.languageManager = languageManager;
+        Trip.TripStatus[] statuses = Trip.TripStatus.values();
+        statusColors = new int[statuses.length];
+        for (Trip.TripStatus status : statuses) {
+            statusColors[status.ordinal()] = ContextCompat.getColor(context, colorOf(status));
+        }
+        noStatusColor = ContextCompat.getColor(context, R.color.gray_500);
+    }
+
+    /**
+     * Measure text with these params, read from a row's views, unless a row
+     * already offered its params
+     */
+    void offerTextParams(PrecomputedTextCompat.Params[] params) {
+        if (textParams == null) {
+            textParams = params;
+        }
+    }
+
+    /**
+     * Build the models for {@code trips} on the worker thread, then run
+     * {@code onReady} on the main thread once they can be bound
+     */
+    void prepare(List<Trip> trips, Runnable onReady) {
+        SparseArray<TripRenderModel> current = models;
+        LocalizationTable labels = languageManager.getLocalizationTable();
+        int expected = ++generation;
+        executor.execute(() -> {
+            PrecomputedTextCompat.Params[] params = textParams;
+            SparseArray<TripRenderModel> built = new SparseArray<>(trips.size());
+            for (Trip trip : trips) {
+                TripRenderModel model = current.get(trip.getId());
+                if (model == null || !model.isCurrent(trip, labels) || (params != null && !model.measured)) {
+                    model = build(trip, labels, params);
+                }
+                built.put(trip.getId(), model);
+            }
+            mainHandler.post(() -> {
+                if (expected != generation) {
+                    return;
+                }
+                models = built;
+                onReady.run();
+            });
+        });
+    }
+
+    /**
+     * The prepared model for a trip; a trip that was not prepared is
+     * formatted on the spot, without measuring
+     */
+    TripRenderModel get(Trip trip) {
+        LocalizationTable labels = languageManager.getLocalizationTable();
+        TripRenderModel model = models.get(trip.getId());
+        if (model == null || !model.isCurrent(trip, labels)) {
+            model = build(trip, labels, null);
+        }
+        return model;
+    }
+
+    private TripRenderModel build(Trip trip, LocalizationTable labels, PrecomputedTextCompat.Params[] params) {
+        Trip.TripStatus status = trip.getStatus();
+        int statusColor = status != null ? statusColors[status.ordinal()] : noStatusColor;
+        return TripRenderModel.build(trip, statusColor, labels, params);
+    }
+
+    private static int colorOf(Trip.TripStatus status) {
+        switch (status) {
+            case COMPLETED:
+                return R.color.green_500;
+            case ONGOING:
+                return R.color.blue_500;
+            case PLANNED:
+                return R.color.orange_500;
+            default:
+                return R.color.gray_500;
+        }
+    }
+}
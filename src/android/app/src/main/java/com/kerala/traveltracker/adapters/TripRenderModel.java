@@ -0,0 +1,87 @@
+package com.kerala.traveltracker.adapters;
+
+import androidx.core.text.PrecomputedTextCompat;
+
+import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.LocalizationTable;
+
+/**
+ * Display-ready fields of one trip row
+ * Text is formatted, and measured where the platform supports it, and the
+ * status colour is resolved when the model is built, so binding a row only
+ * assigns fields. Models are immutable and may be built off the main thread.
+ */
+final class TripRenderModel {
+
+    // Text fields, in the order of their measuring params
+    static final int FIELD_MODE = 0;
+    static final int FIELD_ROUTE = 1;
+    static final int FIELD_DATE = 2;
+    static final int FIELD_DISTANCE = 3;
+    static final int FIELD_CARBON = 4;
+    static final int FIELD_STATUS = 5;
+    static final int FIELD_COUNT = 6;
+
+    final Trip trip;
+    final CharSequence mode;
+    final CharSequence route;
+    final CharSequence date;
+    final CharSequence distance;
+    final CharSequence carbon;
+    final CharSequence status;
+    final int statusColor;
+    // Labels the text was built with
+    final LocalizationTable labels;
+    // Whether the text was measured against a row's text views
+    final boolean measured;
+
+    private TripRenderModel(Trip trip, CharSequence[] texts, int statusColor, LocalizationTable labels,
+                            boolean measured) {
+        this.trip = trip;
+        this.mode = texts[FIELD_MODE];
+        this.route = texts[FIELD_ROUTE];
+        this.date = texts[FIELD_DATE];
+        this.distance = texts[FIELD_DISTANCE];
+        this.carbon = texts[FIELD_CARBON];
+        this.status = texts[FIELD_STATUS];
+        this.statusColor = statusColor;
+        this.labels = labels;
+        this.measured = measured;
+    }
+
+    /**
+     * Format a trip; {@code params} holds each field's measuring params, or
+     * is null to leave the text unmeasured
+     */
+    static TripRenderModel build(Trip trip, int statusColor, LocalizationTable labels,
+                                 PrecomputedTextCompat.Params[] params) {
+        CharSequence[] texts = new CharSequence[FIELD_COUNT];
+        // Trips restored from old data may lack a mode, footprint or status
+        Trip.TransportMode mode = trip.getMode();
+        String carbon = trip.getCarbonFootprint();
+        Trip.TripStatus status = trip.getStatus();
+        texts[FIELD_MODE] = mode != null ? mode.getEmoji() : "";
+        texts[FIELD_ROUTE] = trip.getFormattedRoute();
+        texts[FIELD_DATE] = trip.getDate();
+        texts[FIELD_DISTANCE] = trip.getDistance();
+        texts[FIELD_CARBON] = carbon != null ? carbon + " CO₂" : "";
+        texts[FIELD_STATUS] = status != null ? trip.getStatusEmoji() + " " + labels.getStatusName(status) : "";
+        if (params != null) {
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                if (texts[field] != null) {
+                    texts[field] = PrecomputedTextCompat.create(texts[field], params[field]);
+                }
+            }
+        }
+        return new TripRenderModel(trip, texts, statusColor, labels, params != null);
+    }
+
+    /**
+     * Whether the model still shows what the trip would in these labels:
+     * the same trip object, or one whose displayed fields are all equal
+     */
+    boolean isCurrent(Trip other, LocalizationTable currentLabels) {
+        return labels == currentLabels
+                && (trip == other || TripDiffCallback.INSTANCE.areContentsTheSame(trip, other));
+    }
+}
@@ -0,0 +1,91 @@
+package com.kerala.traveltracker.adapters;
+
+import android.os.Build;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+import com.kerala.traveltracker.R;
+
+/**
+ * Text views of one trip row, with the params their text is measured with
+ * The params are read from the views once, when the row is first bound; a
+ * language, font or theme change recreates the rows, so they cannot change
+ * afterwards. Binding compares prepared text against these cached params
+ * instead of asking each view again.
+ */
+final class TripRowViews {
+
+    final TextView mode;
+    final TextView route;
+    final TextView date;
+    final TextView distance;
+    final TextView carbon;
+    final TextView status;
+    // By field; null until the first bind, and always before Android 9,
+    // where text is never measured
+    private PrecomputedTextCompat.Params[] params;
+
+    TripRowViews(View row) {
+        mode = row.findViewById(R.id.mode_text_view);
+        route = row.findViewById(R.id.route_text_view);
+        date = row.findViewById(R.id.date_text_view);
+        distance = row.findViewById(R.id.distance_text_view);
+        carbon = row.findViewById(R.id.carbon_text_view);
+        status = row.findViewById(R.id.status_text_view);
+    }
+
+    void bind(TripRenderModel model, TripRenderCache cache) {
+        readParams(cache);
+        setText(TripRenderModel.FIELD_MODE, mode, model.mode);
+        setText(TripRenderModel.FIELD_ROUTE, route, model.route);
+        setText(TripRenderModel.FIELD_DATE, date, model.date);
+        setText(TripRenderModel.FIELD_DISTANCE, distance, model.distance);
+        setText(TripRenderModel.FIELD_CARBON, carbon, model.carbon);
+        setText(TripRenderModel.FIELD_STATUS, status, model.status);
+        status.setTextColor(model.statusColor);
+    }
+
+    /**
+     * Show {@code text} in place of a trip that is still being decoded
+     */
+    void bindPlaceholder(CharSequence text) {
+        mode.setText(null);
+        route.setText(text);
+        date.setText(null);
+        distance.setText(null);
+        carbon.setText(null);
+        status.setText(null);
+    }
+
+    private void readParams(TripRenderCache cache) {
+        if (params != null || Build.VERSION.SDK_INT < Build.VERSION_CODES.P) {
+            return;
+        }
+        PrecomputedTextCompat.Params[] read = new PrecomputedTextCompat.Params[TripRenderModel.FIELD_COUNT];
+        read[TripRenderModel.FIELD_MODE] = TextViewCompat.getTextMetricsParams(mode);
+        read[TripRenderModel.FIELD_ROUTE] = TextViewCompat.getTextMetricsParams(route);
+        read[TripRenderModel.FIELD_DATE] = TextViewCompat.getTextMetricsParams(date);
+        read[TripRenderModel.FIELD_DISTANCE] = TextViewCompat.getTextMetricsParams(distance);
+        read[TripRenderModel.FIELD_CARBON] = TextViewCompat.getTextMetricsParams(carbon);
+        read[TripRenderModel.FIELD_STATUS] = TextViewCompat.getTextMetricsParams(status);
+        params = read;
+        cache.offerTextParams(read);
+    }
+
+    private void setText(int field, TextView textView, CharSequence text) {
+        if (text instanceof PrecomputedTextCompat) {
+            PrecomputedTextCompat precomputed = (PrecomputedTextCompat) text;
+            if (params != null && precomputed.getParams().equals(params[field])) {
+                TextViewCompat.setPrecomputedText(textView, precomputed);
+            } else {
+                // Measured before the view's text settings changed
+                textView.setText(precomputed.toString());
+            }
+        } else {
+            textView.setText(text);
+        }
+    }
+}
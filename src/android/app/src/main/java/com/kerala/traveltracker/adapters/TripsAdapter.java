@@ -0,0 +1,131 @@
+package com.kerala.traveltracker.adapters;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.Menu;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.PopupMenu;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.card.MaterialCardView;
+import com.kerala.traveltracker.R;
+import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.LanguageManager;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Adapter for the full trip list on the trips screen
+ * Rows read a {@link PagedTripList}, so only the trips near the visible
+ * rows are decoded. A row whose trip is still being decoded is bound as a
+ * placeholder and rebound once the list reports the trip loaded. Item ids
+ * come from the listing, so they are stable even for placeholder rows.
+ */
+public class TripsAdapter extends RecyclerView.Adapter<TripsAdapter.TripViewHolder> {
+
+    public interface OnTripActionListener {
+        void onTripClick(Trip trip);
+        void onEditTrip(Trip trip);
+        void onDeleteTrip(Trip trip);
+    }
+
+    private static final int MENU_EDIT = 1;
+    private static final int MENU_DELETE = 2;
+
+    private final PagedTripList trips;
+    private final OnTripActionListener listener;
+    private final TripRenderCache renderCache;
+    private final CharSequence loadingText;
+
+    public TripsAdapter(Context context, Executor renderExecutor, LanguageManager languageManager,
+                        PagedTripList trips, OnTripActionListener listener) {
+        this.trips = trips;
+        this.listener = listener;
+        this.renderCache = new TripRenderCache(context, renderExecutor, languageManager);
+        this.loadingText = context.getText(R.string.loading);
+        setHasStableIds(true);
+    }
+
+    @NonNull
+    @Override
+    public TripViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_recent_trip, parent, false);
+        return new TripViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TripViewHolder holder, int position) {
+        Trip trip = trips.get(position);
+        if (trip == null) {
+            holder.bindPlaceholder();
+        } else {
+            holder.bind(renderCache.get(trip));
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return trips.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return trips.getTripId(position);
+    }
+
+    class TripViewHolder extends RecyclerView.ViewHolder {
+        private MaterialCardView cardView;
+        private TripRowViews rowViews;
+        // Null while the row is a placeholder, which takes no actions
+        private Trip boundTrip;
+
+        public TripViewHolder(@NonNull View itemView) {
+            super(itemView);
+            cardView = itemView.findViewById(R.id.trip_card_view);
+            rowViews = new TripRowViews(itemView);
+
+            // One listener of each kind per row, reading whichever trip is bound
+            cardView.setOnClickListener(v -> {
+                if (listener != null && boundTrip != null) {
+                    listener.onTripClick(boundTrip);
+                }
+            });
+            cardView.setOnLongClickListener(v -> {
+                if (listener == null || boundTrip == null) {
+                    return false;
+                }
+                showActions(v, boundTrip);
+                return true;
+            });
+        }
+
+        public void bind(TripRenderModel model) {
+            boundTrip = model.trip;
+            rowViews.bind(model, renderCache);
+        }
+
+        public void bindPlaceholder() {
+            boundTrip = null;
+            rowViews.bindPlaceholder(loadingText);
+        }
+    }
+
+    private void showActions(View anchor, Trip trip) {
+        PopupMenu menu = new PopupMenu(anchor.getContext(), anchor);
+        menu.getMenu().add(Menu.NONE, MENU_EDIT, Menu.NONE, R.string.edit);
+        menu.getMenu().add(Menu.NONE, MENU_DELETE, Menu.NONE, R.string.delete);
+        menu.setOnMenuItemClickListener(item -> {
+            if (item.getItemId() == MENU_EDIT) {
+                listener.onEditTrip(trip);
+            } else {
+                listener.onDeleteTrip(trip);
+            }
+            return true;
+        });
+        menu.show();
+    }
+}
@@ -0,0 +1,215 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.utils.CarbonCalculator;
+
+import java.util.Arrays;
+
+/**
+ * Spatial index of trip points in fixed lat/lng grid cells of about 5 km.
+ * A query only visits the cells that overlap its bounding box, so its cost
+ * depends on the area searched rather than on the number of trips. Points
+ * at 0, 0 are treated as unset and not indexed. Queries do not wrap around
+ * the antimeridian.
+ */
+class GeoGrid {
+
+    private static final double CELL_DEGREES = 0.05;
+    private static final int LAT_CELLS = (int) Math.ceil(180 / CELL_DEGREES);
+    private static final int LNG_CELLS = (int) Math.ceil(360 / CELL_DEGREES);
+    private static final double METERS_PER_DEGREE_LAT = 111_320;
+
+    // Cell key to bucket; each bucket keeps its points in parallel arrays
+    private final IntIntMap cells = new IntIntMap(64);
+    private int[][] bucketIds = new int[16][];
+    private double[][] bucketLats = new double[16][];
+    private double[][] bucketLngs = new double[16][];
+    private int[] bucketSizes = new int[16];
+    private int bucketCount;
+    private int size;
+
+    void add(int tripId, double lat, double lng) {
+        if (isUnset(lat, lng)) {
+            return;
+        }
+        int bucket = bucketFor(cellKey(latCell(lat), lngCell(lng)));
+        int count = bucketSizes[bucket];
+        if (count == bucketIds[bucket].length) {
+            int capacity = count * 2;
+            bucketIds[bucket] = Arrays.copyOf(bucketIds[bucket], capacity);
+            bucketLats[bucket] = Arrays.copyOf(bucketLats[bucket], capacity);
+            bucketLngs[bucket] = Arrays.copyOf(bucketLngs[bucket], capacity);
+        }
+        bucketIds[bucket][count] = tripId;
+        bucketLats[bucket][count] = lat;
+        bucketLngs[bucket][count] = lng;
+        bucketSizes[bucket] = count + 1;
+        size++;
+    }
+
+    void remove(int tripId, double lat, double lng) {
+        if (isUnset(lat, lng)) {
+            return;
+        }
+        int bucket = cells.get(cellKey(latCell(lat), lngCell(lng)));
+        if (bucket < 0) {
+            return;
+        }
+        int[] ids = bucketIds[bucket];
+        int last = bucketSizes[bucket] - 1;
+        for (int i = 0; i <= last; i++) {
+            if (ids[i] == tripId) {
+                // Order within a cell does not matter, so swap in the last point
+                ids[i] = ids[last];
+                bucketLats[bucket][i] = bucketLats[bucket][last];
+                bucketLngs[bucket][i] = bucketLngs[bucket][last];
+                bucketSizes[bucket] = last;
+                size--;
+                return;
+            }
+        }
+    }
+
+    void clear() {
+        cells.clear();
+        Arrays.fill(bucketSizes, 0, bucketCount, 0);
+        Arrays.fill(bucketIds, 0, bucketCount, null);
+        Arrays.fill(bucketLats, 0, bucketCount, null);
+        Arrays.fill(bucketLngs, 0, bucketCount, null);
+        bucketCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Ids of the points inside the box, in no particular order
+     */
+    int[] queryBox(double minLat, double minLng, double maxLat, double maxLng) {
+        int[] result = new int[16];
+        int found = 0;
+        for (int bucket : bucketsOverlapping(minLat, minLng, maxLat, maxLng)) {
+            int[] ids = bucketIds[bucket];
+            double[] lats = bucketLats[bucket];
+            double[] lngs = bucketLngs[bucket];
+            for (int i = 0; i < bucketSizes[bucket]; i++) {
+                if (lats[i] >= minLat && lats[i] <= maxLat && lngs[i] >= minLng && lngs[i] <= maxLng) {
+                    if (found == result.length) {
+                        result = Arrays.copyOf(result, found * 2);
+                    }
+                    result[found++] = ids[i];
+                }
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    /**
+     * Ids of the points within {@code radiusMeters} of the centre, nearest first
+     */
+    int[] queryRadius(double lat, double lng, double radiusMeters) {
+        double latDelta = radiusMeters / METERS_PER_DEGREE_LAT;
+        double cosLat = Math.max(Math.cos(Math.toRadians(lat)), 1e-6);
+        double lngDelta = Math.min(180, latDelta / cosLat);
+
+        // Sort keys pack the distance in metres above the candidate's position
+        long[] keys = new long[16];
+        int[] candidates = new int[16];
+        int found = 0;
+        for (int bucket : bucketsOverlapping(lat - latDelta, lng - lngDelta, lat + latDelta, lng + lngDelta)) {
+            int[] ids = bucketIds[bucket];
+            double[] lats = bucketLats[bucket];
+            double[] lngs = bucketLngs[bucket];
+            for (int i = 0; i < bucketSizes[bucket]; i++) {
+                double distance = CarbonCalculator.greatCircleMeters(lat, lng, lats[i], lngs[i]);
+                if (distance > radiusMeters) {
+                    continue;
+                }
+                if (found == keys.length) {
+                    keys = Arrays.copyOf(keys, found * 2);
+                    candidates = Arrays.copyOf(candidates, found * 2);
+                }
+                candidates[found] = ids[i];
+                keys[found] = (Math.round(distance) << 32) | found;
+                found++;
+            }
+        }
+
+        Arrays.sort(keys, 0, found);
+        int[] result = new int[found];
+        for (int i = 0; i < found; i++) {
+            result[i] = candidates[(int) keys[i]];
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Buckets whose cells overlap the box; for boxes spanning more cells
+     * than there are buckets, every bucket is cheaper to visit
+     */
+    private int[] bucketsOverlapping(double minLat, double minLng, double maxLat, double maxLng) {
+        int minLatCell = latCell(minLat);
+        int maxLatCell = latCell(maxLat);
+        int minLngCell = lngCell(minLng);
+        int maxLngCell = lngCell(maxLng);
+        long cellCount = (long) (maxLatCell - minLatCell + 1) * (maxLngCell - minLngCell + 1);
+        if (cellCount > bucketCount) {
+            int[] all = new int[bucketCount];
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                all[bucket] = bucket;
+            }
+            return all;
+        }
+
+        int[] buckets = new int[(int) cellCount];
+        int found = 0;
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int lngCell = minLngCell; lngCell <= maxLngCell; lngCell++) {
+                int bucket = cells.get(cellKey(latCell, lngCell));
+                if (bucket >= 0) {
+                    buckets[found++] = bucket;
+                }
+            }
+        }
+        return Arrays.copyOf(buckets, found);
+    }
+
+    private int bucketFor(int cellKey) {
+        int bucket = cells.get(cellKey);
+        if (bucket >= 0) {
+            return bucket;
+        }
+        if (bucketCount == bucketSizes.length) {
+            int capacity = bucketCount * 2;
+            bucketIds = Arrays.copyOf(bucketIds, capacity);
+            bucketLats = Arrays.copyOf(bucketLats, capacity);
+            bucketLngs = Arrays.copyOf(bucketLngs, capacity);
+            bucketSizes = Arrays.copyOf(bucketSizes, capacity);
+        }
+        bucket = bucketCount++;
+        bucketIds[bucket] = new int[4];
+        bucketLats[bucket] = new double[4];
+        bucketLngs[bucket] = new double[4];
+        cells.put(cellKey, bucket);
+        return bucket;
+    }
+
+    private static boolean isUnset(double lat, double lng) {
+        return lat == 0 && lng == 0;
+    }
+
+    private static int latCell(double lat) {
+        int cell = (int) Math.floor((lat + 90) / CELL_DEGREES);
+        return Math.max(0, Math.min(LAT_CELLS - 1, cell));
+    }
+
+    private static int lngCell(double lng) {
+        int cell = (int) Math.floor((lng + 180) / CELL_DEGREES);
+        return Math.max(0, Math.min(LNG_CELLS - 1, cell));
+    }
+
+    private static int cellKey(int latCell, int lngCell) {
+        return latCell * LNG_CELLS + lngCell;
+    }
+}
@@ -0,0 +1,113 @@
+package com.kerala.traveltracker.data;
+
+import android.util.Log;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single thread every store write runs on
+ * Writes run one at a time in the order they were submitted, so a later
+ * write to the same file always lands after an earlier one. Each returns a
+ * future that completes once its data is on disk. At most
+ * {@link #CAPACITY} writes may be waiting; submitting beyond that blocks
+ * the caller until one finishes. Stores coalesce the writes made from the
+ * main thread, so only bulk work on a worker thread ever waits.
+ */
+public final class PersistenceExecutor {
+
+    private static final String TAG = "PersistenceExecutor";
+
+    // Writes that may be queued or running at once
+    static final int CAPACITY = 64;
+
+    private static PersistenceExecutor instance;
+
+    private final ScheduledThreadPoolExecutor writer;
+    private final Semaphore slots = new Semaphore(CAPACITY, true);
+    private volatile Thread writerThread;
+
+    public static synchronized PersistenceExecutor getInstance() {
+        if (instance == null) {
+            instance = new PersistenceExecutor();
+        }
+        return instance;
+    }
+
+    private PersistenceExecutor() {
+        writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "persistence-writer");
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            writerThread = thread;
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a write after those already submitted
+     */
+    public <T> Future<T> submit(Callable<T> write) {
+        boolean bounded = acquireSlot();
+        return writer.submit(() -> {
+            try {
+                return write.call();
+            } finally {
+                releaseSlot(bounded);
+            }
+        });
+    }
+
+    public Future<?> submit(Runnable write) {
+        return submit(() -> {
+            write.run();
+            return null;
+        });
+    }
+
+    /**
+     * Queue a write to run after {@code delayMs}; writes submitted
+     * meanwhile run before it
+     */
+    public Future<?> schedule(Runnable write, long delayMs) {
+        boolean bounded = acquireSlot();
+        return writer.schedule(() -> {
+            try {
+                write.run();
+            } finally {
+                releaseSlot(bounded);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether the caller is the writer thread itself, which must not wait
+     * on a write it queued
+     */
+    public boolean isWriterThread() {
+        return Thread.currentThread() == writerThread;
+    }
+
+    // Queue bound
+
+    // Writes queued by a running write skip the bound, since the writer
+    // cannot wait for itself to drain the queue
+    private boolean acquireSlot() {
+        if (isWriterThread()) {
+            return false;
+        }
+        if (!slots.tryAcquire()) {
+            Log.w(TAG, "Write queue full; waiting for it to drain");
+            slots.acquireUninterruptibly();
+        }
+        return true;
+    }
+
+    private void releaseSlot(boolean bounded) {
+        if (bounded) {
+            slots.release();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.kerala.traveltracker.data;
+
+import android.util.Log;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Interns place names into compact int ids shared by every trip.
+ * Each distinct origin or destination is stored once, with its coordinates,
+ * and trip records refer to it by id; decoded trips share the dictionary's
+ * String instance. Id 0 stands for no place. Ids are never reassigned, so
+ * records written with an id stay valid for the life of the file.
+ *
+ * The dictionary is persisted as an append-only file: a header, then one
+ * record per new place and one per place whose coordinates became known.
+ * New records are buffered in memory and written by {@link #flush()}, which
+ * the journal calls before it writes any trip record that may refer to them.
+ */
+public class PlaceDictionary {
+
+    public static final int NO_PLACE = 0;
+
+    private static final String TAG = "PlaceDictionary";
+    private static final String PLACES_FILE = "places.dict";
+
+    private static final int MAGIC = 0x4B54504C; // "KTPL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final int OP_PLACE = 1;
+    private static final int OP_LOCATE = 2;
+
+    private final File file;
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    // Records not yet on disk; guarded by this
+    private final RecordWriter pending = new RecordWriter(256);
+    // Held while the file is appended to, so batches land in order
+    private final Object fileLock = new Object();
+    // Indexed by id; slot 0 is the empty place
+    private String[] names = new String[64];
+    private double[] lats = new double[64];
+    private double[] lngs = new double[64];
+    private int count = 1;
+
+    PlaceDictionary(File directory) {
+        this.file = new File(directory, PLACES_FILE);
+        try {
+            load();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read place dictionary", e);
+        }
+    }
+
+    /**
+     * Id for {@code name}, adding it if it is new; {@link #NO_PLACE} for null
+     */
+    public synchronized int intern(String name) {
+        if (name == null) {
+            return NO_PLACE;
+        }
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        int placeId = add(name);
+        pending.writeByte(OP_PLACE);
+        pending.writeString(name);
+        return placeId;
+    }
+
+    /**
+     * Like {@link #intern(String)}, also recording the place's coordinates
+     * the first time they are known
+     */
+    public synchronized int intern(String name, double lat, double lng) {
+        int placeId = intern(name);
+        if (placeId != NO_PLACE && lats[placeId] == 0 && lngs[placeId] == 0 && (lat != 0 || lng != 0)) {
+            lats[placeId] = lat;
+            lngs[placeId] = lng;
+            pending.writeByte(OP_LOCATE);
+            pending.writeVarInt(placeId);
+            pending.writeDouble(lat);
+            pending.writeDouble(lng);
+        }
+        return placeId;
+    }
+
+    /**
+     * Shared name of a place, or null for {@link #NO_PLACE} or an unknown id
+     */
+    public synchronized String getName(int placeId) {
+        return placeId > 0 && placeId < count ? names[placeId] : null;
+    }
+
+    public synchronized double getLat(int placeId) {
+        return placeId > 0 && placeId < count ? lats[placeId] : 0;
+    }
+
+    public synchronized double getLng(int placeId) {
+        return placeId > 0 && placeId < count ? lngs[placeId] : 0;
+    }
+
+    public synchronized int size() {
+        return count - 1;
+    }
+
+    private int add(String name) {
+        if (count == names.length) {
+            int capacity = count * 2;
+            names = Arrays.copyOf(names, capacity);
+            lats = Arrays.copyOf(lats, capacity);
+            lngs = Arrays.copyOf(lngs, capacity);
+        }
+        int placeId = count++;
+        names[placeId] = name;
+        ids.put(name, placeId);
+        return placeId;
+    }
+
+    /**
+     * Append the buffered records and sync them. Call on the persistence
+     * writer before writing trip records, so a place always reaches disk
+     * before any record that refers to it. On failure the records stay
+     * buffered for the next flush.
+     */
+    void flush() throws IOException {
+        synchronized (fileLock) {
+            byte[] batch;
+            synchronized (this) {
+                if (pending.size() == 0) {
+                    return;
+                }
+                batch = pending.toByteArray();
+                pending.reset();
+            }
+
+            long base = file.length();
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                try {
+                    if (base == 0) {
+                        DataOutputStream header = new DataOutputStream(out);
+                        header.writeInt(MAGIC);
+                        header.writeInt(VERSION);
+                    }
+                    out.write(batch);
+                    out.getFD().sync();
+                } catch (IOException e) {
+                    // Drop the partial batch so the next flush appends whole records
+                    out.getChannel().truncate(base);
+                    throw e;
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    byte[] later = pending.toByteArray();
+                    pending.reset();
+                    pending.writeBytes(batch);
+                    pending.writeBytes(later);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        byte[] contents = new byte[(int) file.length()];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.readFully(contents);
+        }
+        if (contents.length < HEADER_SIZE) {
+            file.delete();
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(contents);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Unrecognised place dictionary header");
+        }
+        RecordReader in = new RecordReader(buffer);
+
+        int validLength = HEADER_SIZE;
+        try {
+            while (in.remaining() > 0) {
+                int op = in.readByte();
+                if (op == OP_PLACE) {
+                    add(in.readString());
+                } else if (op == OP_LOCATE) {
+                    int placeId = in.readVarInt();
+                    double lat = in.readDouble();
+                    double lng = in.readDouble();
+                    if (placeId > 0 && placeId < count) {
+                        lats[placeId] = lat;
+                        lngs[placeId] = lng;
+                    }
+                } else {
+                    throw new IllegalStateException("Unknown place record " + op);
+                }
+                validLength = in.position();
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | IllegalStateException torn) {
+            // Last append was interrupted; drop the partial record
+            Log.w(TAG, "Discarding torn place record at offset " + validLength);
+            try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+                out.setLength(validLength);
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.kerala.traveltracker.data;
+
+import java.util.Arrays;
+
+/**
+ * Space-Saving sketch of the most travelled origin-to-destination routes.
+ * A fixed number of counters is kept however many distinct routes exist:
+ * a route that is not being counted takes over the smallest counter and
+ * inherits its count as the error bound, so any route travelled more often
+ * than {@code trips / CAPACITY} times is guaranteed to be present.
+ * Counters are stored as a min-heap on the count, with a small hash table
+ * from route to heap position, so adding or removing a trip is O(log k).
+ */
+class RouteSketch {
+
+    static final int CAPACITY = 64;
+
+    private static final int TABLE_SIZE = CAPACITY * 4;
+    private static final int EMPTY = -1;
+
+    // Heap-ordered counters, smallest count at position 0
+    private final long[] routes = new long[CAPACITY];
+    private final int[] counts = new int[CAPACITY];
+    private final int[] errors = new int[CAPACITY];
+    private final byte[] modes = new byte[CAPACITY];
+    private int size;
+
+    // Route to heap position, linear probing
+    private final long[] tableRoutes = new long[TABLE_SIZE];
+    private final int[] tablePositions = new int[TABLE_SIZE];
+
+    RouteSketch() {
+        Arrays.fill(tablePositions, EMPTY);
+    }
+
+    /**
+     * Count one trip on the route; {@code mode} is remembered as the route's
+     * most recent transport mode
+     */
+    void add(int origin, int destination, byte mode) {
+        if (origin == PlaceDictionary.NO_PLACE || destination == PlaceDictionary.NO_PLACE) {
+            return;
+        }
+        long route = routeKey(origin, destination);
+        int position = find(route);
+        if (position >= 0) {
+            counts[position]++;
+            modes[position] = mode;
+            siftDown(position);
+            return;
+        }
+
+        if (size < CAPACITY) {
+            position = size++;
+            counts[position] = 1;
+            errors[position] = 0;
+        } else {
+            // Evict the smallest counter; its count bounds the newcomer's error
+            position = 0;
+            unlink(routes[position]);
+            errors[position] = counts[position];
+            counts[position]++;
+        }
+        routes[position] = route;
+        modes[position] = mode;
+        link(route, position);
+        if (position == 0) {
+            siftDown(position);
+        } else {
+            siftUp(position);
+        }
+    }
+
+    /**
+     * Uncount one trip on the route; routes that were evicted are ignored,
+     * so removals never make the estimates negative
+     */
+    void remove(int origin, int destination) {
+        if (origin == PlaceDictionary.NO_PLACE || destination == PlaceDictionary.NO_PLACE) {
+            return;
+        }
+        long route = routeKey(origin, destination);
+        int position = find(route);
+        if (position < 0) {
+            return;
+        }
+        int count = --counts[position];
+        errors[position] = Math.min(errors[position], count);
+        if (count > 0) {
+            siftUp(position);
+            return;
+        }
+
+        unlink(route);
+        int last = --size;
+        if (position != last) {
+            move(last, position);
+            siftDown(position);
+            siftUp(position);
+        }
+    }
+
+    void clear() {
+        size = 0;
+        Arrays.fill(tablePositions, EMPTY);
+    }
+
+    /**
+     * The {@code limit} highest counters, most travelled first, as
+     * {@code (origin, destination, count, mode)} quadruples
+     */
+    int[] top(int limit) {
+        // Sort keys pack the count above the heap position
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) counts[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int found = Math.min(limit, size);
+        int[] result = new int[found * 4];
+        for (int i = 0; i < found; i++) {
+            int position = (int) order[size - 1 - i];
+            result[i * 4] = (int) (routes[position] >>> 32);
+            result[i * 4 + 1] = (int) routes[position];
+            result[i * 4 + 2] = counts[position];
+            result[i * 4 + 3] = modes[position];
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Heap helpers
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int child = position * 2 + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (counts[position] <= counts[child]) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long route = routes[a];
+        int count = counts[a];
+        int error = errors[a];
+        byte mode = modes[a];
+        move(b, a);
+        routes[b] = route;
+        counts[b] = count;
+        errors[b] = error;
+        modes[b] = mode;
+        relink(route, b);
+    }
+
+    private void move(int from, int to) {
+        routes[to] = routes[from];
+        counts[to] = counts[from];
+        errors[to] = errors[from];
+        modes[to] = modes[from];
+        relink(routes[to], to);
+    }
+
+    // Table helpers
+
+    private int find(long route) {
+        for (int t = slotOf(route); tablePositions[t] != EMPTY; t = (t + 1) & (TABLE_SIZE - 1)) {
+            if (tableRoutes[t] == route) {
+                return tablePositions[t];
+            }
+        }
+        return EMPTY;
+    }
+
+    private void link(long route, int position) {
+        int t = slotOf(route);
+        while (tablePositions[t] != EMPTY) {
+            t = (t + 1) & (TABLE_SIZE - 1);
+        }
+        tableRoutes[t] = route;
+        tablePositions[t] = position;
+    }
+
+    private void relink(long route, int position) {
+        for (int t = slotOf(route); tablePositions[t] != EMPTY; t = (t + 1) & (TABLE_SIZE - 1)) {
+            if (tableRoutes[t] == route) {
+                tablePositions[t] = position;
+                return;
+            }
+        }
+    }
+
+    private void unlink(long route) {
+        int t = slotOf(route);
+        while (tablePositions[t] != EMPTY && tableRoutes[t] != route) {
+            t = (t + 1) & (TABLE_SIZE - 1);
+        }
+        if (tablePositions[t] == EMPTY) {
+            return;
+        }
+        // Backward-shift the rest of the probe run so lookups never stop early
+        int hole = t;
+        for (int next = (hole + 1) & (TABLE_SIZE - 1); tablePositions[next] != EMPTY;
+             next = (next + 1) & (TABLE_SIZE - 1)) {
+            int home = slotOf(tableRoutes[next]);
+            if (((next - home) & (TABLE_SIZE - 1)) >= ((next - hole) & (TABLE_SIZE - 1))) {
+                tableRoutes[hole] = tableRoutes[next];
+                tablePositions[hole] = tablePositions[next];
+                hole = next;
+            }
+        }
+        tablePositions[hole] = EMPTY;
+    }
+
+    private static int slotOf(long route) {
+        long h = route * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 56) & (TABLE_SIZE - 1);
+    }
+
+    private static long routeKey(int origin, int destination) {
+        return ((long) origin << 32) | (destination & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,190 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.DateUtils;
+import com.kerala.traveltracker.utils.UnitUtils;
+
+/**
+ * Versioned binary record format for {@link Trip}.
+ * Layout (version 1): version byte, flags byte, varint id, mode and status
+ * ordinals, date as zig-zag epoch day (or a string when the trip has no
+ * parseable date), varint createdAt, four fixed-width coordinates, varint
+ * duration, zig-zag distance in metres and carbon in grams, varint origin
+ * and destination ids from the {@link PlaceDictionary}, then
+ * length-prefixed UTF-8 strings. Distance and carbon text is only written
+ * when it could not be parsed to a number.
+ */
+public final class TripCodec {
+
+    private static final int VERSION_1 = 1;
+    private static final int CURRENT_VERSION = VERSION_1;
+
+    private static final int FLAG_EPOCH_DAY = 1;
+
+    // Slots filled by readKeys
+    static final int KEY_MODE = 0;
+    static final int KEY_STATUS = 1;
+    static final int KEY_EPOCH_DAY = 2;
+    static final int KEY_DURATION = 3;
+    static final int KEY_DISTANCE = 4;
+    static final int KEY_CARBON = 5;
+    static final int KEY_ORIGIN = 6;
+    static final int KEY_DESTINATION = 7;
+    static final int KEY_COUNT = 8;
+
+    // Slots filled with the coordinates, in payload order
+    static final int COORDINATE_COUNT = 4;
+
+    private final PlaceDictionary places;
+    private final RecordWriter writer = new RecordWriter(128);
+
+    public TripCodec(PlaceDictionary places) {
+        this.places = places;
+    }
+
+    public byte[] encode(Trip trip) {
+        writer.reset();
+        encode(trip, writer);
+        return writer.toByteArray();
+    }
+
+    public void encode(Trip trip, RecordWriter out) {
+        int epochDay = trip.getEpochDay();
+        boolean hasEpochDay = epochDay != DateUtils.NO_DATE;
+
+        out.writeByte(CURRENT_VERSION);
+        out.writeByte(hasEpochDay ? FLAG_EPOCH_DAY : 0);
+        out.writeVarInt(trip.getId());
+        out.writeByte(ordinal(trip.getMode()));
+        out.writeByte(ordinal(trip.getStatus()));
+        if (hasEpochDay) {
+            out.writeSignedVarInt(epochDay);
+        } else {
+            out.writeString(trip.getDate());
+        }
+        out.writeVarLong(trip.getCreatedAt());
+        out.writeDouble(trip.getOriginLat());
+        out.writeDouble(trip.getOriginLng());
+        out.writeDouble(trip.getDestinationLat());
+        out.writeDouble(trip.getDestinationLng());
+        out.writeVarInt(trip.getDuration());
+        int meters = trip.getDistanceMeters();
+        int grams = trip.getCarbonGrams();
+        out.writeSignedVarInt(meters);
+        out.writeSignedVarInt(grams);
+        out.writeVarInt(places.intern(trip.getOrigin(), trip.getOriginLat(), trip.getOriginLng()));
+        out.writeVarInt(places.intern(trip.getDestination(), trip.getDestinationLat(), trip.getDestinationLng()));
+        out.writeString(meters == UnitUtils.UNKNOWN ? trip.getDistance() : null);
+        out.writeString(grams == UnitUtils.UNKNOWN ? trip.getCarbonFootprint() : null);
+        out.writeString(trip.getNotes());
+    }
+
+    public Trip decode(RecordReader in) {
+        readVersion(in);
+
+        int flags = in.readByte();
+        Trip trip = new Trip();
+        trip.setId(in.readVarInt());
+        trip.setMode(modeAt(in.readByte()));
+        trip.setStatus(statusAt(in.readByte()));
+        if ((flags & FLAG_EPOCH_DAY) != 0) {
+            trip.setEpochDay(in.readSignedVarInt());
+        } else {
+            trip.setDate(in.readString());
+        }
+        trip.setCreatedAt(in.readVarLong());
+        trip.setOriginLat(in.readDouble());
+        trip.setOriginLng(in.readDouble());
+        trip.setDestinationLat(in.readDouble());
+        trip.setDestinationLng(in.readDouble());
+        trip.setDuration(in.readVarInt());
+        trip.setDistanceMeters(in.readSignedVarInt());
+        trip.setCarbonGrams(in.readSignedVarInt());
+        // Shared instances from the dictionary, not per-trip copies
+        trip.setOrigin(places.getName(in.readVarInt()));
+        trip.setDestination(places.getName(in.readVarInt()));
+        String distance = in.readString();
+        if (distance != null) {
+            trip.setDistance(distance);
+        }
+        String carbonFootprint = in.readString();
+        if (carbonFootprint != null) {
+            trip.setCarbonFootprint(carbonFootprint);
+        }
+        trip.setNotes(in.readString());
+        return trip;
+    }
+
+    public Trip decode(byte[] bytes) {
+        return decode(new RecordReader(bytes));
+    }
+
+    /**
+     * Read only the numeric fields the indexes, rollups and columns need
+     * (mode, status, epoch day, duration, distance, carbon and place ids)
+     * into {@code keys} and the coordinates into {@code coordinates}, leaving
+     * the strings undecoded
+     */
+    void readKeys(RecordReader in, int[] keys, double[] coordinates) {
+        readVersion(in);
+        int flags = in.readByte();
+        in.readVarInt();
+        keys[KEY_MODE] = modeAt(in.readByte()).ordinal();
+        keys[KEY_STATUS] = statusAt(in.readByte()).ordinal();
+        if ((flags & FLAG_EPOCH_DAY) != 0) {
+            keys[KEY_EPOCH_DAY] = in.readSignedVarInt();
+        } else {
+            keys[KEY_EPOCH_DAY] = DateUtils.parseEpochDay(in.readString());
+        }
+        in.readVarLong();
+        for (int i = 0; i < COORDINATE_COUNT; i++) {
+            coordinates[i] = in.readDouble();
+        }
+        keys[KEY_DURATION] = in.readVarInt();
+        keys[KEY_DISTANCE] = in.readSignedVarInt();
+        keys[KEY_CARBON] = in.readSignedVarInt();
+        keys[KEY_ORIGIN] = in.readVarInt();
+        keys[KEY_DESTINATION] = in.readVarInt();
+    }
+
+    /**
+     * The same keys as {@link #readKeys} for a trip held in memory
+     */
+    void keysOf(Trip trip, int[] keys, double[] coordinates) {
+        keys[KEY_MODE] = trip.getMode() != null ? trip.getMode().ordinal() : Trip.TransportMode.CAR.ordinal();
+        keys[KEY_STATUS] = trip.getStatus() != null ? trip.getStatus().ordinal() : Trip.TripStatus.PLANNED.ordinal();
+        keys[KEY_EPOCH_DAY] = trip.getEpochDay();
+        keys[KEY_DURATION] = trip.getDuration();
+        keys[KEY_DISTANCE] = trip.getDistanceMeters();
+        keys[KEY_CARBON] = trip.getCarbonGrams();
+        keys[KEY_ORIGIN] = places.intern(trip.getOrigin(), trip.getOriginLat(), trip.getOriginLng());
+        keys[KEY_DESTINATION] = places.intern(trip.getDestination(), trip.getDestinationLat(), trip.getDestinationLng());
+        coordinates[0] = trip.getOriginLat();
+        coordinates[1] = trip.getOriginLng();
+        coordinates[2] = trip.getDestinationLat();
+        coordinates[3] = trip.getDestinationLng();
+    }
+
+    // Field helpers
+
+    private static void readVersion(RecordReader in) {
+        int version = in.readByte();
+        if (version != VERSION_1) {
+            throw new IllegalStateException("Unsupported trip record version " + version);
+        }
+    }
+
+    private static int ordinal(Enum<?> value) {
+        return value != null ? value.ordinal() : 0xFF;
+    }
+
+    private static Trip.TransportMode modeAt(int ordinal) {
+        Trip.TransportMode[] modes = Trip.TransportMode.values();
+        return ordinal < modes.length ? modes[ordinal] : Trip.TransportMode.CAR;
+    }
+
+    private static Trip.TripStatus statusAt(int ordinal) {
+        Trip.TripStatus[] statuses = Trip.TripStatus.values();
+        return ordinal < statuses.length ? statuses[ordinal] : Trip.TripStatus.PLANNED;
+    }
+}
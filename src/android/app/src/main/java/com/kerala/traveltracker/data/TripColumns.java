@@ -0,0 +1,101 @@
+package com.kerala.traveltracker.data;
+
+/**
+ * Struct-of-arrays projection of the live trips for analytics scans.
+ * Row {@code i} of every array describes the same trip, in journal order, so
+ * aggregations can loop over tight primitive arrays instead of loading
+ * {@link com.kerala.traveltracker.models.Trip} objects and calling getters.
+ * The arrays are shared with other readers and must not be modified.
+ */
+public final class TripColumns {
+
+    // Offsets of each trip's coordinates within its stride of coordinates()
+    public static final int ORIGIN_LAT = 0;
+    public static final int ORIGIN_LNG = 1;
+    public static final int DESTINATION_LAT = 2;
+    public static final int DESTINATION_LNG = 3;
+    public static final int COORDINATE_STRIDE = 4;
+
+    private final int size;
+    private final int[] ids;
+    private final byte[] modes;
+    private final byte[] statuses;
+    private final int[] epochDays;
+    private final int[] durations;
+    private final double[] distancesKm;
+    private final double[] carbonKg;
+    private final int[] origins;
+    private final int[] destinations;
+    private final double[] coordinates;
+
+    TripColumns(int size, int[] ids, byte[] modes, byte[] statuses, int[] epochDays, int[] durations,
+                double[] distancesKm, double[] carbonKg, int[] origins, int[] destinations,
+                double[] coordinates) {
+        this.size = size;
+        this.ids = ids;
+        this.modes = modes;
+        this.statuses = statuses;
+        this.epochDays = epochDays;
+        this.durations = durations;
+        this.distancesKm = distancesKm;
+        this.carbonKg = carbonKg;
+        this.origins = origins;
+        this.destinations = destinations;
+        this.coordinates = coordinates;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int[] ids() {
+        return ids;
+    }
+
+    // Trip.TransportMode ordinals
+    public byte[] modes() {
+        return modes;
+    }
+
+    // Trip.TripStatus ordinals
+    public byte[] statuses() {
+        return statuses;
+    }
+
+    // DateUtils.NO_DATE for trips without a date
+    public int[] epochDays() {
+        return epochDays;
+    }
+
+    // Minutes
+    public int[] durations() {
+        return durations;
+    }
+
+    // 0 when unknown
+    public double[] distancesKm() {
+        return distancesKm;
+    }
+
+    // Kilograms of CO₂, 0 when unknown
+    public double[] carbonKg() {
+        return carbonKg;
+    }
+
+    // PlaceDictionary ids
+    public int[] origins() {
+        return origins;
+    }
+
+    // PlaceDictionary ids
+    public int[] destinations() {
+        return destinations;
+    }
+
+    /**
+     * Four values per trip: origin lat/lng then destination lat/lng
+     */
+    public double[] coordinates() {
+        return coordinates;
+    }
+}
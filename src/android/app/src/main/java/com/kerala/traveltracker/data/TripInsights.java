@@ -0,0 +1,98 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.Trip;
+
+/**
+ * Immutable snapshot of the trip rollups for the insights screen.
+ * Totals are available overall, per {@link Trip.TransportMode}, per
+ * {@link Trip.TripStatus} and per calendar month; months are identified by
+ * {@link com.kerala.traveltracker.utils.DateUtils#monthIndex(int)}.
+ */
+public final class TripInsights {
+
+    /**
+     * Trip count and summed distance, carbon and duration for one group
+     */
+    public static final class Totals {
+
+        static final Totals EMPTY = new Totals(0, 0, 0, 0);
+
+        private final int tripCount;
+        private final long distanceMeters;
+        private final long carbonGrams;
+        private final long durationMinutes;
+
+        Totals(int tripCount, long distanceMeters, long carbonGrams, long durationMinutes) {
+            this.tripCount = tripCount;
+            this.distanceMeters = distanceMeters;
+            this.carbonGrams = carbonGrams;
+            this.durationMinutes = durationMinutes;
+        }
+
+        public int getTripCount() {
+            return tripCount;
+        }
+
+        public long getDistanceMeters() {
+            return distanceMeters;
+        }
+
+        public long getCarbonGrams() {
+            return carbonGrams;
+        }
+
+        public long getDurationMinutes() {
+            return durationMinutes;
+        }
+
+        public double getDistanceKm() {
+            return distanceMeters / 1000.0;
+        }
+
+        public double getCarbonKg() {
+            return carbonGrams / 1000.0;
+        }
+    }
+
+    private final Totals overall;
+    private final Totals[] byMode;
+    private final Totals[] byStatus;
+    private final int[] months;
+    private final Totals[] byMonth;
+
+    TripInsights(Totals overall, Totals[] byMode, Totals[] byStatus, int[] months, Totals[] byMonth) {
+        this.overall = overall;
+        this.byMode = byMode;
+        this.byStatus = byStatus;
+        this.months = months;
+        this.byMonth = byMonth;
+    }
+
+    public Totals getOverall() {
+        return overall;
+    }
+
+    public Totals getForMode(Trip.TransportMode mode) {
+        return byMode[mode.ordinal()];
+    }
+
+    public Totals getForStatus(Trip.TripStatus status) {
+        return byStatus[status.ordinal()];
+    }
+
+    /**
+     * Month indexes that have at least one trip, oldest first
+     */
+    public int[] getMonths() {
+        return months.clone();
+    }
+
+    public Totals getForMonth(int monthIndex) {
+        for (int i = 0; i < months.length; i++) {
+            if (months[i] == monthIndex) {
+                return byMonth[i];
+            }
+        }
+        return Totals.EMPTY;
+    }
+}
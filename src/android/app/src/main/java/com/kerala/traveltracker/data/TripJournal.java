@@ -0,0 +1,1513 @@
+package com.kerala.traveltracker.data;
+
+import android.util.Log;
+
+import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.CarbonCalculator;
+import com.kerala.traveltracker.utils.UnitUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Append-only journal of trip mutations for Kerala Travel Tracker.
+ * Every add, update and delete becomes a small record, buffered in memory
+ * until the next {@link #flush()} appends the whole batch at once. Opening
+ * the journal only scans record headers through a memory mapping; trip
+ * payloads are decoded lazily the first time they are read. Records
+ * superseded by later ones are reclaimed by a background compaction.
+ *
+ * Live trips sit in a slot table of parallel primitive arrays, in insertion
+ * order, with an {@link IntIntMap} from trip id to slot so point lookups,
+ * updates and deletes cost O(1) regardless of history size. Mode, status,
+ * date, duration, distance and carbon are kept per slot as well; they feed a
+ * {@link TripSecondaryIndex}, so filtered listings never decode trips they
+ * do not return, and {@link TripRollups} for the insights totals. Together
+ * with the coordinates they are also handed out as {@link TripColumns}, and
+ * origins and destinations are kept in {@link GeoGrid} spatial indexes.
+ * Place names are interned in a {@link PlaceDictionary}, so each slot holds
+ * its origin and destination as int ids; those ids also feed the
+ * {@link RouteSketch} of popular routes. Text search goes through a
+ * {@link TripSearchIndex}, built without holding the monitor before the
+ * first search.
+ */
+public class TripJournal {
+
+    /**
+     * Supplies the initial trips when no journal exists yet
+     */
+    public interface Seed {
+        List<Trip> load();
+
+        /**
+         * Called once the seeded trips have been written to the journal
+         */
+        void onSeeded();
+    }
+
+    /**
+     * Which end of a trip a location query matches against
+     */
+    public enum Endpoint {
+        ORIGIN, DESTINATION
+    }
+
+    private static final String TAG = "TripJournal";
+    private static final String JOURNAL_FILE = "trips.journal";
+    // Rewrites and compaction each build the next journal in their own
+    // file, so one can never truncate or append to the other's
+    private static final String COMPACT_FILE = "trips.journal.compact";
+    private static final String REWRITE_FILE = "trips.journal.rewrite";
+    // An unreadable journal is kept here, replacing any older one
+    private static final String CORRUPT_FILE = "trips.journal.corrupt";
+
+    private static final int MAGIC = 0x4B545452; // "KTTR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_SEQUENCE = 3;
+
+    // Offset of a trip whose record is still waiting for a flush
+    private static final int UNWRITTEN = -1;
+    // Version of a slot whose trip was deleted
+    private static final int HOLE = 0;
+
+    // Compact once dead records reach this count and outnumber live trips
+    private static final int COMPACTION_MIN_GARBAGE = 256;
+    // Squeeze deleted slots out of memory once there are this many
+    private static final int MIN_HOLES_TO_SQUEEZE = 64;
+
+    private final File journalFile;
+    private final File compactFile;
+    private final File rewriteFile;
+    private final PlaceDictionary places;
+    private final TripCodec codec;
+    private final TripSegmentReader reader;
+    private final ExecutorService compactionExecutor;
+    // Held while the journal file is appended to, rewritten or swapped, and
+    // taken before the monitor, so readers never wait for disk I/O
+    private final Object fileLock = new Object();
+    // Held while the search index is built, so it is only built once
+    private final Object searchBuildLock = new Object();
+
+    // Slot table, one entry per put in insertion order
+    private int[] slotIds = new int[64];
+    private int[] slotOffsets = new int[64];
+    private int[] slotLengths = new int[64];
+    private int[] slotVersions = new int[64];
+    private byte[] slotModes = new byte[64];
+    private byte[] slotStatuses = new byte[64];
+    private int[] slotDays = new int[64];
+    private int[] slotDurations = new int[64];
+    private int[] slotMeters = new int[64];
+    private int[] slotGrams = new int[64];
+    private int[] slotOrigins = new int[64];
+    private int[] slotDestinations = new int[64];
+    private double[] slotCoordinates = new double[64 * TripCodec.COORDINATE_COUNT];
+    private Trip[] slotTrips = new Trip[64];
+    private int slotCount;
+    private int liveCount;
+    private final IntIntMap index = new IntIntMap(64);
+    private final TripSecondaryIndex secondaryIndex = new TripSecondaryIndex();
+    private final TripRollups rollups = new TripRollups();
+    private final RouteSketch routeSketch = new RouteSketch();
+    // Built by prepareSearchIndex, then kept up to date; null until then
+    private TripSearchIndex searchIndex;
+    private final GeoGrid originGrid = new GeoGrid();
+    private final GeoGrid destinationGrid = new GeoGrid();
+    private final int[] keys = new int[TripCodec.KEY_COUNT];
+    private final double[] coordinates = new double[TripCodec.COORDINATE_COUNT];
+    // Built on demand and dropped on the next mutation
+    private TripColumns columns;
+    // Bumped by every mutation, so readers can tell when what they show is stale
+    private int changeCount;
+    // While replaying or rewriting, indexes and rollups are rebuilt once at the end
+    private boolean bulkLoading;
+    private int versionCounter;
+    private int nextId = 1;
+
+    // Records buffered until the next flush
+    private final RecordWriter pending = new RecordWriter(1024);
+    private int[] pendingIds = new int[16];
+    private int[] pendingVersions = new int[16];
+    private int[] pendingOffsets = new int[16];
+    private int pendingCount;
+
+    private FileOutputStream output;
+    private long journalLength;
+    private int garbage;
+    private int generation;
+    private boolean compacting;
+
+    TripJournal(File directory, Seed seed) {
+        this.journalFile = new File(directory, JOURNAL_FILE);
+        this.compactFile = new File(directory, COMPACT_FILE);
+        this.rewriteFile = new File(directory, REWRITE_FILE);
+        this.places = new PlaceDictionary(directory);
+        this.codec = new TripCodec(places);
+        this.reader = new TripSegmentReader(journalFile, places);
+        this.compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trip-journal-compaction");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        try {
+            if (journalFile.exists()) {
+                replay();
+            } else {
+                rewrite(seed.load());
+                seed.onSeeded();
+            }
+            if (output == null) {
+                output = new FileOutputStream(journalFile, true);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Any failure to read it, not just I/O, sets the journal aside
+            Log.e(TAG, "Failed to open trip journal", e);
+            recover();
+        }
+    }
+
+    // Reads
+
+    public synchronized List<Trip> getTrips() {
+        return getTrips(0, liveCount);
+    }
+
+    /**
+     * Decode only the trips in {@code [start, start + count)} of journal order
+     */
+    public synchronized List<Trip> getTrips(int start, int count) {
+        int end = Math.min(liveCount, start + count);
+        List<Trip> trips = new ArrayList<>(Math.max(0, end - start));
+        int rank = 0;
+        for (int slot = 0; slot < slotCount && rank < end; slot++) {
+            if (slotVersions[slot] == HOLE) {
+                continue;
+            }
+            if (rank >= start) {
+                addLoaded(trips, slot);
+            }
+            rank++;
+        }
+        return trips;
+    }
+
+    /**
+     * The most recently added trips, oldest first
+     */
+    public synchronized List<Trip> getRecentTrips(int count) {
+        List<Trip> trips = new ArrayList<>(Math.min(count, liveCount));
+        for (int slot = slotCount - 1; slot >= 0 && trips.size() < count; slot--) {
+            if (slotVersions[slot] != HOLE) {
+                addLoaded(trips, slot);
+            }
+        }
+        Collections.reverse(trips);
+        return trips;
+    }
+
+    /**
+     * All trips ordered by date, newest first
+     */
+    public synchronized List<Trip> getTripsNewestFirst() {
+        return loadAll(secondaryIndex.newestFirst());
+    }
+
+    /**
+     * Trips with {@code status} ordered by date, newest first
+     */
+    public synchronized List<Trip> getTripsNewestFirst(Trip.TripStatus status) {
+        return loadAll(secondaryIndex.newestFirst(status));
+    }
+
+    /**
+     * Trips taken by {@code mode} ordered by date, newest first
+     */
+    public synchronized List<Trip> getTripsNewestFirst(Trip.TransportMode mode) {
+        return loadAll(secondaryIndex.newestFirst(mode));
+    }
+
+    public synchronized int count(Trip.TripStatus status) {
+        return secondaryIndex.count(status);
+    }
+
+    public synchronized int count(Trip.TransportMode mode) {
+        return secondaryIndex.count(mode);
+    }
+
+    /**
+     * Ids and versions of the trips with {@code status}, or of all trips when
+     * it is null, newest first; nothing is decoded
+     */
+    public synchronized TripListing listNewestFirst(Trip.TripStatus status) {
+        int[] tripIds = status != null ? secondaryIndex.newestFirst(status) : secondaryIndex.newestFirst();
+        return listing(tripIds, tripIds.length);
+    }
+
+    /**
+     * Ids and versions of up to {@code limit} search matches, best first,
+     * narrowed to {@code status} unless it is null. Builds the search index
+     * first if {@link #prepareSearchIndex()} has not, so call it off the
+     * main thread.
+     */
+    public TripListing listSearch(String query, Trip.TripStatus status, int limit) {
+        while (true) {
+            prepareSearchIndex();
+            synchronized (this) {
+                // Null again only if the journal was rewritten meanwhile
+                if (searchIndex != null) {
+                    return searchListing(query, status, limit);
+                }
+            }
+        }
+    }
+
+    private TripListing searchListing(String query, Trip.TripStatus status, int limit) {
+        int[] tripIds = searchIndex.search(query, limit);
+        int found = tripIds.length;
+        if (status != null) {
+            found = 0;
+            for (int tripId : tripIds) {
+                if (slotStatuses[index.get(tripId)] == status.ordinal()) {
+                    tripIds[found++] = tripId;
+                }
+            }
+        }
+        return listing(tripIds, found);
+    }
+
+    /**
+     * Decode the trips at {@code [start, start + count)} of a listing. Trips
+     * are not cached, so paging through a long history does not pin it in
+     * memory. A trip deleted since the listing was taken, or one that cannot
+     * be decoded, comes back as null, so positions still line up; the caller
+     * should take a fresh listing.
+     */
+    public synchronized List<Trip> getTrips(TripListing listing, int start, int count) {
+        int end = Math.min(listing.size(), start + count);
+        List<Trip> trips = new ArrayList<>(Math.max(0, end - start));
+        for (int position = start; position < end; position++) {
+            int tripId = listing.getTripId(position);
+            int slot = index.get(tripId);
+            trips.add(slot >= 0 ? peek(slot) : null);
+        }
+        return trips;
+    }
+
+    /**
+     * Trips whose {@code endpoint} lies within {@code radiusMeters} of the
+     * given point, nearest first
+     */
+    public synchronized List<Trip> getTripsNear(Endpoint endpoint, double lat, double lng,
+                                                double radiusMeters) {
+        return loadAll(grid(endpoint).queryRadius(lat, lng, radiusMeters));
+    }
+
+    /**
+     * Trips whose {@code endpoint} lies inside the bounding box, by id
+     */
+    public synchronized List<Trip> getTripsWithin(Endpoint endpoint, double minLat, double minLng,
+                                                  double maxLat, double maxLng) {
+        int[] tripIds = grid(endpoint).queryBox(minLat, minLng, maxLat, maxLng);
+        Arrays.sort(tripIds);
+        return loadAll(tripIds);
+    }
+
+    private GeoGrid grid(Endpoint endpoint) {
+        return endpoint == Endpoint.ORIGIN ? originGrid : destinationGrid;
+    }
+
+    public PlaceDictionary getPlaces() {
+        return places;
+    }
+
+    /**
+     * Columnar copy of the live trips; reused until the next mutation
+     */
+    public synchronized TripColumns getColumns() {
+        if (columns == null) {
+            columns = buildColumns();
+        }
+        return columns;
+    }
+
+    /**
+     * Current insights totals; costs one copy of the rollups, not a scan
+     */
+    public synchronized TripInsights getInsights() {
+        return rollups.snapshot();
+    }
+
+    /**
+     * Up to {@code limit} most travelled routes, most travelled first; reads
+     * the fixed-size route sketch, never the trip history
+     */
+    public synchronized List<TripRoute> getPopularRoutes(int limit) {
+        int[] top = routeSketch.top(limit);
+        Trip.TransportMode[] modes = Trip.TransportMode.values();
+        List<TripRoute> routes = new ArrayList<>(top.length / 4);
+        for (int i = 0; i < top.length; i += 4) {
+            routes.add(new TripRoute(places.getName(top[i]), places.getName(top[i + 1]),
+                    top[i + 2], modes[top[i + 3]]));
+        }
+        return routes;
+    }
+
+    /**
+     * Up to {@code limit} trips whose origin, destination or notes contain
+     * every word of {@code query}, best match first. The first search builds
+     * the index by decoding every trip once; later ones only read the index.
+     */
+    public List<Trip> search(String query, int limit) {
+        while (true) {
+            prepareSearchIndex();
+            synchronized (this) {
+                if (searchIndex != null) {
+                    return loadAll(searchIndex.search(query, limit));
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the search index if it does not exist yet. Trips are decoded
+     * without holding the monitor, so other readers carry on meanwhile;
+     * call it off the main thread, ahead of the first search.
+     */
+    public void prepareSearchIndex() {
+        synchronized (searchBuildLock) {
+            while (true) {
+                int[] ids;
+                int[] versions;
+                int[] offsets;
+                Trip[] trips;
+                ByteBuffer source;
+                int snapshotGeneration;
+                synchronized (this) {
+                    if (searchIndex != null) {
+                        return;
+                    }
+                    ids = new int[liveCount];
+                    versions = new int[liveCount];
+                    offsets = new int[liveCount];
+                    trips = new Trip[liveCount];
+                    int i = 0;
+                    for (int slot = 0; slot < slotCount; slot++) {
+                        if (slotVersions[slot] == HOLE) {
+                            continue;
+                        }
+                        ids[i] = slotIds[slot];
+                        versions[i] = slotVersions[slot];
+                        offsets[i] = slotOffsets[slot];
+                        trips[i] = slotTrips[slot];
+                        i++;
+                    }
+                    snapshotGeneration = generation;
+                    try {
+                        source = journalLength > 0 ? reader.map(journalLength) : null;
+                    } catch (IOException e) {
+                        Log.e(TAG, "Failed to map trip journal for search", e);
+                        return;
+                    }
+                }
+
+                TripSearchIndex built = new TripSearchIndex();
+                TripCodec searchCodec = new TripCodec(places);
+                for (int i = 0; i < ids.length; i++) {
+                    Trip trip = trips[i];
+                    if (trip == null && source != null) {
+                        try {
+                            ByteBuffer view = source.duplicate();
+                            view.position(offsets[i]);
+                            trip = searchCodec.decode(new RecordReader(view));
+                        } catch (RuntimeException e) {
+                            Log.e(TAG, "Failed to decode trip at offset " + offsets[i], e);
+                        }
+                    }
+                    if (trip != null) {
+                        built.add(trip);
+                    }
+                }
+
+                synchronized (this) {
+                    if (generation != snapshotGeneration) {
+                        // Rewritten meanwhile; the snapshot is stale
+                        continue;
+                    }
+                    catchUp(built, ids, versions);
+                    searchIndex = built;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Bring an index built from a snapshot of {@code ids} and
+     * {@code versions} up to date with the trips put or deleted since
+     */
+    private void catchUp(TripSearchIndex built, int[] ids, int[] versions) {
+        IntIntMap snapshot = new IntIntMap(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            snapshot.put(ids[i], i);
+            int slot = index.get(ids[i]);
+            if (slot < 0 || slotVersions[slot] != versions[i]) {
+                built.remove(ids[i]);
+            }
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotVersions[slot] == HOLE) {
+                continue;
+            }
+            int i = snapshot.get(slotIds[slot]);
+            if (i < 0 || versions[i] != slotVersions[slot]) {
+                Trip trip = peek(slot);
+                if (trip != null) {
+                    built.add(trip);
+                }
+            }
+        }
+    }
+
+    public synchronized Trip getTrip(int tripId) {
+        int slot = index.get(tripId);
+        return slot >= 0 ? load(slot) : null;
+    }
+
+    public synchronized boolean contains(int tripId) {
+        return index.containsKey(tripId);
+    }
+
+    public synchronized int size() {
+        return liveCount;
+    }
+
+    /**
+     * Count of puts, deletes and rewrites so far; a reader that saw the same
+     * count last time can skip reloading
+     */
+    public synchronized int getChangeCount() {
+        return changeCount;
+    }
+
+    private List<Trip> loadAll(int[] tripIds) {
+        List<Trip> trips = new ArrayList<>(tripIds.length);
+        for (int tripId : tripIds) {
+            addLoaded(trips, index.get(tripId));
+        }
+        return trips;
+    }
+
+    private void addLoaded(List<Trip> trips, int slot) {
+        Trip trip = load(slot);
+        if (trip != null) {
+            trips.add(trip);
+        }
+    }
+
+    private TripListing listing(int[] tripIds, int count) {
+        int[] ids = count == tripIds.length ? tripIds : Arrays.copyOf(tripIds, count);
+        int[] versions = new int[count];
+        for (int i = 0; i < count; i++) {
+            versions[i] = slotVersions[index.get(ids[i])];
+        }
+        return new TripListing(ids, versions);
+    }
+
+    /**
+     * The cached trip in {@code slot}, or a freshly decoded one that is not
+     * cached; null if it cannot be decoded
+     */
+    private Trip peek(int slot) {
+        Trip trip = slotTrips[slot];
+        if (trip == null) {
+            try {
+                trip = reader.decodeAt(slotOffsets[slot], journalLength);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to decode trip at offset " + slotOffsets[slot], e);
+            }
+        }
+        return trip;
+    }
+
+    private Trip load(int slot) {
+        if (slotTrips[slot] == null) {
+            try {
+                slotTrips[slot] = reader.decodeAt(slotOffsets[slot], journalLength);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to decode trip at offset " + slotOffsets[slot], e);
+            }
+        }
+        return slotTrips[slot];
+    }
+
+    // Mutations
+
+    /**
+     * Hand out the next trip id; ids are never reused, even after deletes
+     */
+    public synchronized int allocateId() {
+        return nextId++;
+    }
+
+    public synchronized void put(Trip trip) {
+        byte[] payload = codec.encode(trip);
+        pending.writeByte(OP_PUT);
+        pending.writeVarInt(trip.getId());
+        pending.writeVarInt(payload.length);
+        int payloadOffset = pending.size();
+        pending.writeBytes(payload);
+
+        codec.keysOf(trip, keys, coordinates);
+        int slot = putSlot(trip.getId(), UNWRITTEN, payload.length, trip, keys, coordinates);
+        addPending(trip.getId(), slotVersions[slot], payloadOffset);
+    }
+
+    public synchronized void delete(int tripId) {
+        if (!removeSlot(tripId)) {
+            return;
+        }
+        // Both the last put and the delete record itself are now dead
+        garbage += 2;
+        pending.writeByte(OP_DELETE);
+        pending.writeVarInt(tripId);
+    }
+
+    public synchronized boolean hasPendingWrites() {
+        return pending.size() > 0;
+    }
+
+    /**
+     * Append every buffered record to the journal in a single write and
+     * sync it. The batch is taken out under the lock but written outside
+     * it, so readers never wait for the disk; mutations made meanwhile are
+     * buffered for the next flush.
+     */
+    public void flush() {
+        synchronized (fileLock) {
+            byte[] batch;
+            int count;
+            int[] ids;
+            int[] versions;
+            int[] offsets;
+            FileOutputStream out;
+            long base;
+            synchronized (this) {
+                if (pending.size() == 0 || !openOutput()) {
+                    return;
+                }
+                batch = pending.toByteArray();
+                count = pendingCount;
+                ids = Arrays.copyOf(pendingIds, count);
+                versions = Arrays.copyOf(pendingVersions, count);
+                offsets = Arrays.copyOf(pendingOffsets, count);
+                clearPending();
+                out = output;
+                base = journalLength;
+            }
+
+            try {
+                // Places the batch refers to go first
+                places.flush();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to append places", e);
+                synchronized (this) {
+                    restorePending(batch, ids, versions, offsets, count);
+                }
+                return;
+            }
+            try {
+                out.write(batch);
+                out.getFD().sync();
+            } catch (IOException e) {
+                // Keep the batch buffered and retry on the next flush
+                Log.e(TAG, "Failed to append trip records", e);
+                truncate(out, base);
+                synchronized (this) {
+                    restorePending(batch, ids, versions, offsets, count);
+                }
+                return;
+            }
+
+            synchronized (this) {
+                for (int i = 0; i < count; i++) {
+                    int slot = index.get(ids[i]);
+                    if (slot >= 0 && slotVersions[slot] == versions[i]) {
+                        slotOffsets[slot] = (int) base + offsets[i];
+                    }
+                }
+                journalLength = base + batch.length;
+                maybeScheduleCompaction();
+            }
+        }
+    }
+
+    /**
+     * Replace the whole trip set, rewriting the journal as a fresh snapshot;
+     * readers only wait while the new set is swapped in, not while it is
+     * written. Puts and deletes made while it is written count as made after
+     * the replacement, so they are applied again on top of it.
+     */
+    public void replaceAll(List<Trip> trips) {
+        synchronized (fileLock) {
+            try {
+                int sequence;
+                int replacedPending;
+                synchronized (this) {
+                    sequence = nextId;
+                    replacedPending = pending.size();
+                }
+                Snapshot snapshot = writeSnapshot(trips, sequence);
+                synchronized (this) {
+                    installKeepingRecords(snapshot, replacedPending);
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to rewrite trip journal", e);
+            }
+        }
+    }
+
+    /**
+     * Recompute every trip's carbon footprint with {@link CarbonCalculator}
+     * in one pass over the columns, then write the result as a fresh journal.
+     * Trips whose footprint cannot be estimated keep the one they have, and
+     * trips edited while it runs keep their edit. The live set is copied
+     * under the monitor and decoded and written outside it. If any trip
+     * cannot be decoded nothing is rewritten, since leaving it out would
+     * delete it.
+     */
+    public void reestimateCarbon() {
+        synchronized (fileLock) {
+            LiveCopy live;
+            int replacedPending;
+            synchronized (this) {
+                live = copyLive();
+                if (live == null) {
+                    return;
+                }
+                replacedPending = pending.size();
+            }
+            List<Trip> trips = reestimated(live);
+            if (trips == null) {
+                return;
+            }
+            try {
+                Snapshot snapshot = writeSnapshot(trips, live.sequence);
+                synchronized (this) {
+                    installKeepingRecords(snapshot, replacedPending);
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to rewrite trip journal", e);
+            }
+        }
+    }
+
+    /**
+     * Decoded copies of the live trips with re-estimated carbon, or null if
+     * any trip cannot be decoded; runs without the monitor
+     */
+    private List<Trip> reestimated(LiveCopy live) {
+        List<Trip> trips = decodeCopy(live);
+        if (trips == null) {
+            return null;
+        }
+        // Columns and decoded trips both follow slot order
+        TripColumns tripColumns = live.columns;
+        int[] grams = new int[tripColumns.size()];
+        CarbonCalculator.estimateGrams(tripColumns.modes(), tripColumns.distancesKm(),
+                tripColumns.coordinates(), tripColumns.size(), grams);
+        for (int row = 0; row < grams.length; row++) {
+            if (grams[row] != UnitUtils.UNKNOWN) {
+                trips.get(row).setCarbonGrams(grams[row]);
+            }
+        }
+        return trips;
+    }
+
+    // Slot table
+
+    /**
+     * Insert or overwrite the slot for {@code tripId}; updates keep their position
+     */
+    private int putSlot(int tripId, int offset, int length, Trip trip,
+                        int[] tripKeys, double[] tripCoordinates) {
+        columns = null;
+        changeCount++;
+        int slot = index.get(tripId);
+        if (slot >= 0) {
+            garbage++;
+            if (!bulkLoading) {
+                unindexSlot(slot);
+            }
+        } else {
+            if (slotCount == slotIds.length) {
+                growSlots(slotCount * 2);
+            }
+            slot = slotCount++;
+            slotIds[slot] = tripId;
+            index.put(tripId, slot);
+            liveCount++;
+        }
+        slotOffsets[slot] = offset;
+        slotLengths[slot] = length;
+        slotVersions[slot] = ++versionCounter;
+        slotModes[slot] = (byte) tripKeys[TripCodec.KEY_MODE];
+        slotStatuses[slot] = (byte) tripKeys[TripCodec.KEY_STATUS];
+        slotDays[slot] = tripKeys[TripCodec.KEY_EPOCH_DAY];
+        slotDurations[slot] = tripKeys[TripCodec.KEY_DURATION];
+        slotMeters[slot] = tripKeys[TripCodec.KEY_DISTANCE];
+        slotGrams[slot] = tripKeys[TripCodec.KEY_CARBON];
+        slotOrigins[slot] = tripKeys[TripCodec.KEY_ORIGIN];
+        slotDestinations[slot] = tripKeys[TripCodec.KEY_DESTINATION];
+        System.arraycopy(tripCoordinates, 0, slotCoordinates,
+                slot * TripCodec.COORDINATE_COUNT, TripCodec.COORDINATE_COUNT);
+        slotTrips[slot] = trip;
+        if (!bulkLoading) {
+            indexSlot(slot);
+        }
+        if (tripId >= nextId) {
+            nextId = tripId + 1;
+        }
+        return slot;
+    }
+
+    private boolean removeSlot(int tripId) {
+        int slot = index.remove(tripId);
+        if (slot < 0) {
+            return false;
+        }
+        columns = null;
+        changeCount++;
+        slotVersions[slot] = HOLE;
+        slotTrips[slot] = null;
+        liveCount--;
+        if (!bulkLoading) {
+            unindexSlot(slot);
+        }
+
+        int holes = slotCount - liveCount;
+        if (holes >= MIN_HOLES_TO_SQUEEZE && holes > liveCount) {
+            squeezeSlots();
+        }
+        return true;
+    }
+
+    /**
+     * Drop deleted slots from the table, keeping the order of live ones
+     */
+    private void squeezeSlots() {
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotVersions[slot] == HOLE) {
+                continue;
+            }
+            slotIds[live] = slotIds[slot];
+            slotOffsets[live] = slotOffsets[slot];
+            slotLengths[live] = slotLengths[slot];
+            slotVersions[live] = slotVersions[slot];
+            slotModes[live] = slotModes[slot];
+            slotStatuses[live] = slotStatuses[slot];
+            slotDays[live] = slotDays[slot];
+            slotDurations[live] = slotDurations[slot];
+            slotMeters[live] = slotMeters[slot];
+            slotGrams[live] = slotGrams[slot];
+            slotOrigins[live] = slotOrigins[slot];
+            slotDestinations[live] = slotDestinations[slot];
+            System.arraycopy(slotCoordinates, slot * TripCodec.COORDINATE_COUNT, slotCoordinates,
+                    live * TripCodec.COORDINATE_COUNT, TripCodec.COORDINATE_COUNT);
+            slotTrips[live] = slotTrips[slot];
+            index.put(slotIds[live], live);
+            live++;
+        }
+        Arrays.fill(slotTrips, live, slotCount, null);
+        slotCount = live;
+    }
+
+    private void resetSlots() {
+        columns = null;
+        changeCount++;
+        Arrays.fill(slotTrips, 0, slotCount, null);
+        slotCount = 0;
+        liveCount = 0;
+        index.clear();
+    }
+
+    private void growSlots(int capacity) {
+        slotIds = Arrays.copyOf(slotIds, capacity);
+        slotOffsets = Arrays.copyOf(slotOffsets, capacity);
+        slotLengths = Arrays.copyOf(slotLengths, capacity);
+        slotVersions = Arrays.copyOf(slotVersions, capacity);
+        slotModes = Arrays.copyOf(slotModes, capacity);
+        slotStatuses = Arrays.copyOf(slotStatuses, capacity);
+        slotDays = Arrays.copyOf(slotDays, capacity);
+        slotDurations = Arrays.copyOf(slotDurations, capacity);
+        slotMeters = Arrays.copyOf(slotMeters, capacity);
+        slotGrams = Arrays.copyOf(slotGrams, capacity);
+        slotOrigins = Arrays.copyOf(slotOrigins, capacity);
+        slotDestinations = Arrays.copyOf(slotDestinations, capacity);
+        slotCoordinates = Arrays.copyOf(slotCoordinates, capacity * TripCodec.COORDINATE_COUNT);
+        slotTrips = Arrays.copyOf(slotTrips, capacity);
+    }
+
+    private void indexSlot(int slot) {
+        secondaryIndex.add(slotIds[slot], slotModes[slot], slotStatuses[slot], slotDays[slot]);
+        rollups.add(slotModes[slot], slotStatuses[slot], slotDays[slot],
+                slotDurations[slot], slotMeters[slot], slotGrams[slot]);
+        routeSketch.add(slotOrigins[slot], slotDestinations[slot], slotModes[slot]);
+        addToGrids(slot);
+        if (searchIndex != null) {
+            searchIndex.add(slotTrips[slot]);
+        }
+    }
+
+    private void unindexSlot(int slot) {
+        secondaryIndex.remove(slotIds[slot], slotModes[slot], slotStatuses[slot], slotDays[slot]);
+        rollups.remove(slotModes[slot], slotStatuses[slot], slotDays[slot],
+                slotDurations[slot], slotMeters[slot], slotGrams[slot]);
+        routeSketch.remove(slotOrigins[slot], slotDestinations[slot]);
+        if (searchIndex != null) {
+            searchIndex.remove(slotIds[slot]);
+        }
+        int c = slot * TripCodec.COORDINATE_COUNT;
+        originGrid.remove(slotIds[slot], slotCoordinates[c], slotCoordinates[c + 1]);
+        destinationGrid.remove(slotIds[slot], slotCoordinates[c + 2], slotCoordinates[c + 3]);
+    }
+
+    private void addToGrids(int slot) {
+        int c = slot * TripCodec.COORDINATE_COUNT;
+        originGrid.add(slotIds[slot], slotCoordinates[c], slotCoordinates[c + 1]);
+        destinationGrid.add(slotIds[slot], slotCoordinates[c + 2], slotCoordinates[c + 3]);
+    }
+
+    private TripColumns buildColumns() {
+        int[] ids = new int[liveCount];
+        byte[] modes = new byte[liveCount];
+        byte[] statuses = new byte[liveCount];
+        int[] epochDays = new int[liveCount];
+        int[] durations = new int[liveCount];
+        double[] distancesKm = new double[liveCount];
+        double[] carbonKg = new double[liveCount];
+        int[] origins = new int[liveCount];
+        int[] destinations = new int[liveCount];
+        double[] tripCoordinates = new double[liveCount * TripColumns.COORDINATE_STRIDE];
+        int row = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotVersions[slot] == HOLE) {
+                continue;
+            }
+            ids[row] = slotIds[slot];
+            modes[row] = slotModes[slot];
+            statuses[row] = slotStatuses[slot];
+            epochDays[row] = slotDays[slot];
+            durations[row] = slotDurations[slot];
+            distancesKm[row] = slotMeters[slot] != UnitUtils.UNKNOWN ? slotMeters[slot] / 1000.0 : 0;
+            carbonKg[row] = slotGrams[slot] != UnitUtils.UNKNOWN ? slotGrams[slot] / 1000.0 : 0;
+            origins[row] = slotOrigins[slot];
+            destinations[row] = slotDestinations[slot];
+            System.arraycopy(slotCoordinates, slot * TripCodec.COORDINATE_COUNT, tripCoordinates,
+                    row * TripColumns.COORDINATE_STRIDE, TripColumns.COORDINATE_STRIDE);
+            row++;
+        }
+        return new TripColumns(liveCount, ids, modes, statuses, epochDays, durations,
+                distancesKm, carbonKg, origins, destinations, tripCoordinates);
+    }
+
+    private void rebuildIndexes() {
+        secondaryIndex.clear();
+        rollups.clear();
+        routeSketch.clear();
+        searchIndex = null;
+        originGrid.clear();
+        destinationGrid.clear();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotVersions[slot] != HOLE) {
+                secondaryIndex.append(slotIds[slot], slotModes[slot], slotStatuses[slot], slotDays[slot]);
+                rollups.add(slotModes[slot], slotStatuses[slot], slotDays[slot],
+                        slotDurations[slot], slotMeters[slot], slotGrams[slot]);
+                routeSketch.add(slotOrigins[slot], slotDestinations[slot], slotModes[slot]);
+                addToGrids(slot);
+            }
+        }
+        secondaryIndex.sort();
+    }
+
+    private void addPending(int tripId, int version, int payloadOffset) {
+        if (pendingCount == pendingIds.length) {
+            int capacity = pendingCount * 2;
+            pendingIds = Arrays.copyOf(pendingIds, capacity);
+            pendingVersions = Arrays.copyOf(pendingVersions, capacity);
+            pendingOffsets = Arrays.copyOf(pendingOffsets, capacity);
+        }
+        pendingIds[pendingCount] = tripId;
+        pendingVersions[pendingCount] = version;
+        pendingOffsets[pendingCount] = payloadOffset;
+        pendingCount++;
+    }
+
+    private void clearPending() {
+        pending.reset();
+        pendingCount = 0;
+    }
+
+    /**
+     * Put a batch that failed to append back in front of the records
+     * buffered since it was taken
+     */
+    private void restorePending(byte[] batch, int[] ids, int[] versions, int[] offsets, int count) {
+        byte[] newer = pending.toByteArray();
+        int newerCount = pendingCount;
+        int[] newerIds = Arrays.copyOf(pendingIds, newerCount);
+        int[] newerVersions = Arrays.copyOf(pendingVersions, newerCount);
+        int[] newerOffsets = Arrays.copyOf(pendingOffsets, newerCount);
+        clearPending();
+        pending.writeBytes(batch);
+        for (int i = 0; i < count; i++) {
+            addPending(ids[i], versions[i], offsets[i]);
+        }
+        pending.writeBytes(newer);
+        for (int i = 0; i < newerCount; i++) {
+            addPending(newerIds[i], newerVersions[i], batch.length + newerOffsets[i]);
+        }
+    }
+
+    // Journal file I/O
+
+    /**
+     * Rebuild the slot table by scanning record headers; payloads are skipped
+     */
+    private void replay() throws IOException {
+        long fileLength = journalFile.length();
+        if (fileLength < HEADER_SIZE) {
+            throw new IOException("Trip journal is truncated");
+        }
+        ByteBuffer buffer = reader.map(fileLength);
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Unrecognised trip journal header");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported trip journal version " + version);
+        }
+
+        RecordReader in = new RecordReader(buffer);
+        int validLength = HEADER_SIZE;
+        bulkLoading = true;
+        try {
+            while (in.remaining() > 0) {
+                scanRecord(in);
+                validLength = in.position();
+            }
+        } catch (BufferUnderflowException | IllegalStateException torn) {
+            // Last append was interrupted; drop the partial record
+            Log.w(TAG, "Discarding torn trip record at offset " + validLength);
+        } finally {
+            bulkLoading = false;
+            rebuildIndexes();
+        }
+
+        if (validLength < fileLength) {
+            try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+                file.setLength(validLength);
+            }
+            reader.invalidate();
+        }
+        journalLength = validLength;
+    }
+
+    private void scanRecord(RecordReader in) {
+        int op = in.readByte();
+        int value = in.readVarInt();
+        if (op == OP_SEQUENCE) {
+            nextId = Math.max(nextId, value);
+            return;
+        }
+        if (op == OP_DELETE) {
+            if (removeSlot(value)) {
+                garbage++;
+            }
+            garbage++;
+            nextId = Math.max(nextId, value + 1);
+            return;
+        }
+
+        int payloadLength = in.readVarInt();
+        if (payloadLength > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        int payloadOffset = in.position();
+        // Only the index keys at the front of the payload are read here
+        codec.readKeys(in, keys, coordinates);
+        putSlot(value, payloadOffset, payloadLength, null, keys, coordinates);
+        in.skip(payloadLength - (in.position() - payloadOffset));
+    }
+
+    /**
+     * Write {@code trips} as a fresh journal and make it the live set
+     */
+    private void rewrite(List<Trip> trips) throws IOException {
+        installSnapshot(writeSnapshot(trips, nextId));
+    }
+
+    /**
+     * Install {@code snapshot}, then apply again the records buffered since
+     * {@code fromPending}. Flushes wait for the file lock the caller holds,
+     * so those are exactly the puts and deletes made while it was written;
+     * there are only as many as the user made meanwhile.
+     */
+    private void installKeepingRecords(Snapshot snapshot, int fromPending) throws IOException {
+        byte[] buffered = pending.toByteArray();
+        installSnapshot(snapshot);
+        RecordReader in = new RecordReader(buffered);
+        in.skip(fromPending);
+        while (in.remaining() > 0) {
+            int op = in.readByte();
+            int tripId = in.readVarInt();
+            if (op == OP_PUT) {
+                int length = in.readVarInt();
+                int end = in.position() + length;
+                Trip trip = codec.decode(in);
+                in.skip(end - in.position());
+                put(trip);
+            } else if (op == OP_DELETE) {
+                delete(tripId);
+            }
+            // A sequence record holds only the id read above
+        }
+    }
+
+    /**
+     * Where every live trip's record is, in slot order, to decode once the
+     * monitor is released; null if the journal cannot be mapped
+     */
+    private LiveCopy copyLive() {
+        ByteBuffer source;
+        try {
+            source = reader.map(journalLength);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to map trip journal", e);
+            return null;
+        }
+        int[] ids = new int[liveCount];
+        int[] offsets = new int[liveCount];
+        Trip[] trips = new Trip[liveCount];
+        int i = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotVersions[slot] == HOLE) {
+                continue;
+            }
+            ids[i] = slotIds[slot];
+            offsets[i] = slotOffsets[slot];
+            trips[i] = slotTrips[slot];
+            i++;
+        }
+        return new LiveCopy(ids, offsets, trips, getColumns(), source, nextId);
+    }
+
+    /**
+     * Fresh, uncached copies of the copied trips; null if any of them cannot
+     * be decoded
+     */
+    private List<Trip> decodeCopy(LiveCopy live) {
+        List<Trip> trips = new ArrayList<>(live.ids.length);
+        TripCodec copyCodec = new TripCodec(places);
+        for (int i = 0; i < live.ids.length; i++) {
+            try {
+                if (live.offsets[i] == UNWRITTEN) {
+                    // Only in memory so far
+                    trips.add(copyCodec.decode(copyCodec.encode(live.trips[i])));
+                } else {
+                    ByteBuffer view = live.source.duplicate();
+                    view.position(live.offsets[i]);
+                    trips.add(copyCodec.decode(new RecordReader(view)));
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to decode trip " + live.ids[i], e);
+                return null;
+            }
+        }
+        return trips;
+    }
+
+    /**
+     * The live trip set as it stood under the monitor
+     */
+    private static final class LiveCopy {
+        final int[] ids;
+        final int[] offsets;
+        // Trips held in memory; only read for those not yet written
+        final Trip[] trips;
+        final TripColumns columns;
+        final ByteBuffer source;
+        final int sequence;
+
+        LiveCopy(int[] ids, int[] offsets, Trip[] trips, TripColumns columns, ByteBuffer source,
+                 int sequence) {
+            this.ids = ids;
+            this.offsets = offsets;
+            this.trips = trips;
+            this.columns = columns;
+            this.source = source;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * A journal written to the rewrite file but not yet made live
+     */
+    private static final class Snapshot {
+        final List<Trip> trips;
+        final int[] offsets;
+        final int[] lengths;
+        final int sequence;
+
+        Snapshot(List<Trip> trips, int[] offsets, int[] lengths, int sequence) {
+            this.trips = trips;
+            this.offsets = offsets;
+            this.lengths = lengths;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Write {@code trips} to the rewrite file and sync it; touches no
+     * journal state, so it may run without the monitor
+     */
+    private Snapshot writeSnapshot(List<Trip> trips, int sequence) throws IOException {
+        for (Trip trip : trips) {
+            sequence = Math.max(sequence, trip.getId() + 1);
+        }
+        int[] offsets = new int[trips.size()];
+        int[] lengths = new int[trips.size()];
+        TripCodec snapshotCodec = new TripCodec(places);
+        RecordWriter snapshotWriter = new RecordWriter(256);
+        try (FileOutputStream fileOut = new FileOutputStream(rewriteFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            writeHeader(out, snapshotWriter, sequence);
+            for (int i = 0; i < trips.size(); i++) {
+                Trip trip = trips.get(i);
+                byte[] payload = snapshotCodec.encode(trip);
+                byte[] record = frame(snapshotWriter, trip.getId(), payload);
+                offsets[i] = out.size() + record.length - payload.length;
+                lengths[i] = payload.length;
+                out.write(record);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        // Encoding may have added places; they must be on disk before the
+        // snapshot becomes the journal
+        places.flush();
+        return new Snapshot(trips, offsets, lengths, sequence);
+    }
+
+    /**
+     * Make a written snapshot the live trip set and journal
+     */
+    private void installSnapshot(Snapshot snapshot) throws IOException {
+        closeOutput();
+        generation++;
+        resetSlots();
+        clearPending();
+        bulkLoading = true;
+        try {
+            for (int i = 0; i < snapshot.trips.size(); i++) {
+                Trip trip = snapshot.trips.get(i);
+                codec.keysOf(trip, keys, coordinates);
+                putSlot(trip.getId(), snapshot.offsets[i], snapshot.lengths[i], trip, keys, coordinates);
+            }
+        } finally {
+            bulkLoading = false;
+            rebuildIndexes();
+        }
+        replaceJournal(rewriteFile);
+        garbage = 0;
+        if (nextId > snapshot.sequence) {
+            // Ids handed out while the snapshot was written stay retired
+            pending.writeByte(OP_SEQUENCE);
+            pending.writeVarInt(nextId);
+        }
+    }
+
+    /**
+     * File header plus a sequence record so deleted ids stay retired
+     */
+    private static void writeHeader(DataOutputStream out, RecordWriter writer, int sequence)
+            throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writer.reset();
+        writer.writeByte(OP_SEQUENCE);
+        writer.writeVarInt(sequence);
+        writer.writeTo(out);
+    }
+
+    private static byte[] frame(RecordWriter writer, int tripId, byte[] payload) {
+        writer.reset();
+        writer.writeByte(OP_PUT);
+        writer.writeVarInt(tripId);
+        writer.writeVarInt(payload.length);
+        writer.writeBytes(payload);
+        return writer.toByteArray();
+    }
+
+    private void replaceJournal(File next) throws IOException {
+        if (!next.renameTo(journalFile)) {
+            throw new IOException("Failed to replace " + journalFile);
+        }
+        reader.invalidate();
+        journalLength = journalFile.length();
+        output = new FileOutputStream(journalFile, true);
+    }
+
+    /**
+     * Cut off a partly appended batch, so the next append does not land
+     * after a torn record
+     */
+    private void truncate(FileOutputStream out, long length) {
+        try {
+            out.getChannel().truncate(length);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to truncate trip journal", e);
+        }
+    }
+
+    /**
+     * Reopen the journal for appending if an earlier failure closed it
+     */
+    private boolean openOutput() {
+        if (output == null) {
+            try {
+                output = new FileOutputStream(journalFile, true);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to reopen trip journal", e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Set an unreadable journal aside and start a fresh one holding every
+     * trip that replayed before the failure. Throws if even the fresh
+     * journal cannot be written, rather than dropping every later edit.
+     */
+    private void recover() {
+        closeOutput();
+        if (journalLength == 0) {
+            // Replay stopped before it settled the length
+            journalLength = journalFile.length();
+        }
+        List<Trip> salvaged = new ArrayList<>(liveCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotVersions[slot] != HOLE) {
+                Trip trip = peek(slot);
+                if (trip != null) {
+                    salvaged.add(trip);
+                }
+            }
+        }
+
+        File corruptFile = new File(journalFile.getParentFile(), CORRUPT_FILE);
+        corruptFile.delete();
+        if (journalFile.exists() && !journalFile.renameTo(corruptFile)) {
+            Log.e(TAG, "Failed to set aside " + journalFile);
+        }
+        reader.invalidate();
+        try {
+            rewrite(salvaged);
+        } catch (IOException e) {
+            throw new IllegalStateException("Trip journal cannot be written", e);
+        }
+        Log.w(TAG, "Recovered " + salvaged.size() + " trips; unreadable journal kept as " + corruptFile);
+    }
+
+    private void closeOutput() {
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to close trip journal", e);
+            }
+            output = null;
+        }
+    }
+
+    // Compaction
+
+    private void maybeScheduleCompaction() {
+        if (compacting || garbage < COMPACTION_MIN_GARBAGE || garbage < liveCount) {
+            return;
+        }
+        compacting = true;
+        compactionExecutor.execute(this::compact);
+    }
+
+    /**
+     * Copy the live payloads byte-for-byte into a new file without holding
+     * the lock, then carry over whatever was appended meanwhile and swap.
+     */
+    private void compact() {
+        int[] ids;
+        int[] versions;
+        int[] offsets;
+        int[] lengths;
+        Trip[] trips;
+        int sequence;
+        long snapshotLength;
+        int snapshotGarbage;
+        int snapshotGeneration;
+        ByteBuffer source;
+        synchronized (this) {
+            ids = new int[liveCount];
+            versions = new int[liveCount];
+            offsets = new int[liveCount];
+            lengths = new int[liveCount];
+            trips = new Trip[liveCount];
+            int i = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (slotVersions[slot] == HOLE) {
+                    continue;
+                }
+                ids[i] = slotIds[slot];
+                versions[i] = slotVersions[slot];
+                offsets[i] = slotOffsets[slot];
+                lengths[i] = slotLengths[slot];
+                trips[i] = slotTrips[slot];
+                i++;
+            }
+            sequence = nextId;
+            snapshotLength = journalLength;
+            snapshotGarbage = garbage;
+            snapshotGeneration = generation;
+            try {
+                source = reader.map(journalLength);
+            } catch (IOException e) {
+                Log.e(TAG, "Trip journal compaction failed", e);
+                compacting = false;
+                return;
+            }
+        }
+
+        try {
+            int[] newOffsets = writeCompacted(ids, offsets, lengths, trips, sequence, source);
+            synchronized (fileLock) {
+                synchronized (this) {
+                    installCompacted(ids, versions, newOffsets, snapshotLength, snapshotGarbage,
+                            snapshotGeneration);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Trip journal compaction failed", e);
+            synchronized (this) {
+                compactFile.delete();
+                openOutput();
+            }
+        } finally {
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    /**
+     * Swap the compacted file in, carrying over whatever was appended since
+     * the snapshot; caller holds the file lock and the monitor
+     */
+    private void installCompacted(int[] ids, int[] versions, int[] newOffsets, long snapshotLength,
+                                  int snapshotGarbage, int snapshotGeneration) throws IOException {
+        if (generation != snapshotGeneration) {
+            // The journal was rewritten meanwhile; nothing left to reclaim
+            compactFile.delete();
+            return;
+        }
+        long compactedLength = compactFile.length();
+        copyTail(snapshotLength);
+
+        // Records appended after the snapshot move by the size difference
+        int shift = (int) (compactedLength - snapshotLength);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotVersions[slot] != HOLE && slotOffsets[slot] >= snapshotLength) {
+                slotOffsets[slot] += shift;
+            }
+        }
+        for (int i = 0; i < ids.length; i++) {
+            int slot = index.get(ids[i]);
+            if (slot >= 0 && slotVersions[slot] == versions[i]) {
+                slotOffsets[slot] = newOffsets[i];
+            }
+        }
+
+        closeOutput();
+        replaceJournal(compactFile);
+        garbage -= snapshotGarbage;
+    }
+
+    private int[] writeCompacted(int[] ids, int[] offsets, int[] lengths, Trip[] trips,
+                                 int sequence, ByteBuffer source) throws IOException {
+        int[] newOffsets = new int[ids.length];
+        RecordWriter header = new RecordWriter(16);
+        TripCodec snapshotCodec = new TripCodec(places);
+        byte[] payload = new byte[256];
+        try (FileOutputStream fileOut = new FileOutputStream(compactFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            writeHeader(out, header, sequence);
+            for (int i = 0; i < ids.length; i++) {
+                int length = lengths[i];
+                if (offsets[i] == UNWRITTEN) {
+                    // Not flushed yet; its record will also land in the tail
+                    payload = snapshotCodec.encode(trips[i]);
+                    length = payload.length;
+                } else {
+                    if (payload.length < length) {
+                        payload = new byte[length];
+                    }
+                    source.position(offsets[i]);
+                    source.get(payload, 0, length);
+                }
+
+                header.reset();
+                header.writeByte(OP_PUT);
+                header.writeVarInt(ids[i]);
+                header.writeVarInt(length);
+                header.writeTo(out);
+                newOffsets[i] = out.size();
+                out.write(payload, 0, length);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        return newOffsets;
+    }
+
+    private void copyTail(long fromOffset) throws IOException {
+        if (fromOffset >= journalLength) {
+            return;
+        }
+        try (RandomAccessFile source = new RandomAccessFile(journalFile, "r");
+             FileOutputStream target = new FileOutputStream(compactFile, true)) {
+            source.seek(fromOffset);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = source.read(buffer)) != -1) {
+                target.write(buffer, 0, read);
+            }
+            target.getFD().sync();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.kerala.traveltracker.data;
+
+/**
+ * Snapshot of a filtered, ordered list of trips, holding only their ids and
+ * versions. Trips are decoded a page at a time with
+ * {@link TripRepository#getTrips(TripListing, int, int)}, so a listing of the
+ * whole history costs two ints per trip. A trip's version changes whenever
+ * it is rewritten, so two listings can be compared without decoding either.
+ */
+public final class TripListing {
+
+    public static final TripListing EMPTY = new TripListing(new int[0], new int[0]);
+
+    private final int[] tripIds;
+    private final int[] versions;
+
+    TripListing(int[] tripIds, int[] versions) {
+        this.tripIds = tripIds;
+        this.versions = versions;
+    }
+
+    public int size() {
+        return tripIds.length;
+    }
+
+    public int getTripId(int position) {
+        return tripIds[position];
+    }
+
+    public int getVersion(int position) {
+        return versions[position];
+    }
+}
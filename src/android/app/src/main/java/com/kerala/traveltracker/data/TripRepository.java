@@ -0,0 +1,252 @@
+package com.kerala.traveltracker.data;
+
+import android.content.Context;
+
+import com.kerala.traveltracker.models.Trip;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Process-wide owner of the user's trips.
+ * All screens read the same in-memory trip set; mutations apply to memory
+ * immediately and are persisted to the {@link TripJournal} in batches on the
+ * {@link PersistenceExecutor}, so a burst of edits costs a single write.
+ * Bulk rewrites run there too and complete asynchronously, as does opening
+ * the journal when the repository is created during startup.
+ */
+public class TripRepository {
+
+    // How long a mutation may wait for others before its batch is written
+    private static final long FLUSH_DELAY_MS = 300;
+
+    private static TripRepository instance;
+
+    private final PersistenceExecutor writer;
+    // Opened on the writer thread as soon as the repository exists
+    private final Future<TripJournal> opening;
+
+    private boolean flushScheduled;
+
+    public static synchronized TripRepository getInstance(Context context, TripJournal.Seed seed) {
+        if (instance == null) {
+            instance = new TripRepository(context.getApplicationContext().getFilesDir(), seed);
+        }
+        return instance;
+    }
+
+    private TripRepository(File directory, TripJournal.Seed seed) {
+        this.writer = PersistenceExecutor.getInstance();
+        this.opening = writer.submit(() -> new TripJournal(directory, seed));
+    }
+
+    /**
+     * The open journal; only waits if it is read before the writer thread
+     * has finished replaying it. Every task queued on the writer runs after
+     * the open, so none of them ever waits here.
+     */
+    private TripJournal journal() {
+        try {
+            return opening.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while opening trips", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to open trips", e.getCause());
+        }
+    }
+
+    /**
+     * Wait until the journal has been opened and replayed
+     */
+    public void awaitOpen() {
+        journal();
+    }
+
+    // Reads
+
+    public List<Trip> getTrips() {
+        return journal().getTrips();
+    }
+
+    public List<Trip> getTrips(int start, int count) {
+        return journal().getTrips(start, count);
+    }
+
+    public List<Trip> getRecentTrips(int count) {
+        return journal().getRecentTrips(count);
+    }
+
+    public List<Trip> getTripsNewestFirst() {
+        return journal().getTripsNewestFirst();
+    }
+
+    public List<Trip> getTripsNewestFirst(Trip.TripStatus status) {
+        return journal().getTripsNewestFirst(status);
+    }
+
+    public List<Trip> getTripsNewestFirst(Trip.TransportMode mode) {
+        return journal().getTripsNewestFirst(mode);
+    }
+
+    public int count(Trip.TripStatus status) {
+        return journal().count(status);
+    }
+
+    /**
+     * Ids and versions of the trips with {@code status}, or all trips when it
+     * is null, newest first; decode them a page at a time with
+     * {@link #getTrips(TripListing, int, int)}
+     */
+    public TripListing listNewestFirst(Trip.TripStatus status) {
+        return journal().listNewestFirst(status);
+    }
+
+    /**
+     * Up to {@code limit} search matches, best first; call off the main thread
+     */
+    public TripListing listSearch(String query, Trip.TripStatus status, int limit) {
+        return journal().listSearch(query, status, limit);
+    }
+
+    /**
+     * Build the search index ahead of the first search; call off the main thread
+     */
+    public void prepareSearch() {
+        journal().prepareSearchIndex();
+    }
+
+    public List<Trip> getTrips(TripListing listing, int start, int count) {
+        return journal().getTrips(listing, start, count);
+    }
+
+    /**
+     * Trips that started within {@code radiusMeters} of the point, nearest first
+     */
+    public List<Trip> getTripsStartingNear(double lat, double lng, double radiusMeters) {
+        return journal().getTripsNear(TripJournal.Endpoint.ORIGIN, lat, lng, radiusMeters);
+    }
+
+    /**
+     * Trips that ended within {@code radiusMeters} of the point, nearest first
+     */
+    public List<Trip> getTripsEndingNear(double lat, double lng, double radiusMeters) {
+        return journal().getTripsNear(TripJournal.Endpoint.DESTINATION, lat, lng, radiusMeters);
+    }
+
+    public List<Trip> getTripsWithin(TripJournal.Endpoint endpoint, double minLat, double minLng,
+                                     double maxLat, double maxLng) {
+        return journal().getTripsWithin(endpoint, minLat, minLng, maxLat, maxLng);
+    }
+
+    public PlaceDictionary getPlaces() {
+        return journal().getPlaces();
+    }
+
+    public TripColumns getColumns() {
+        return journal().getColumns();
+    }
+
+    public TripInsights getInsights() {
+        return journal().getInsights();
+    }
+
+    public List<Trip> search(String query, int limit) {
+        return journal().search(query, limit);
+    }
+
+    public List<TripRoute> getPopularRoutes(int limit) {
+        return journal().getPopularRoutes(limit);
+    }
+
+    public Trip getTrip(int tripId) {
+        return journal().getTrip(tripId);
+    }
+
+    public int size() {
+        return journal().size();
+    }
+
+    /**
+     * Changes whenever a trip is added, edited or deleted
+     */
+    public int getChangeCount() {
+        return journal().getChangeCount();
+    }
+
+    // Mutations
+
+    /**
+     * Store a new trip under a freshly allocated id and return that id
+     */
+    public int addTrip(Trip trip) {
+        TripJournal tripJournal = journal();
+        synchronized (tripJournal) {
+            trip.setId(tripJournal.allocateId());
+            tripJournal.put(trip);
+        }
+        scheduleFlush();
+        return trip.getId();
+    }
+
+    public void updateTrip(Trip trip) {
+        TripJournal tripJournal = journal();
+        synchronized (tripJournal) {
+            if (!tripJournal.contains(trip.getId())) {
+                return;
+            }
+            tripJournal.put(trip);
+        }
+        scheduleFlush();
+    }
+
+    public void deleteTrip(int tripId) {
+        journal().delete(tripId);
+        scheduleFlush();
+    }
+
+    /**
+     * Replace the whole trip set on the writer thread; reads return the old
+     * set until the returned future completes
+     */
+    public Future<?> replaceAll(List<Trip> trips) {
+        List<Trip> snapshot = new ArrayList<>(trips);
+        return writer.submit(() -> journal().replaceAll(snapshot));
+    }
+
+    /**
+     * Re-estimate the carbon footprint of every trip from its mode and
+     * distance, on the writer thread
+     */
+    public Future<?> reestimateCarbon() {
+        return writer.submit(() -> journal().reestimateCarbon());
+    }
+
+    // Persistence
+
+    /**
+     * Write any buffered mutations now, e.g. when the app leaves the
+     * foreground; the future completes once they are on disk
+     */
+    public Future<?> flush() {
+        return writer.submit(this::flushPending);
+    }
+
+    private synchronized void scheduleFlush() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        writer.schedule(this::flushPending, FLUSH_DELAY_MS);
+    }
+
+    private void flushPending() {
+        synchronized (this) {
+            flushScheduled = false;
+        }
+        journal().flush();
+    }
+}
@@ -0,0 +1,122 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.DateUtils;
+import com.kerala.traveltracker.utils.UnitUtils;
+
+import java.util.Arrays;
+
+/**
+ * Running totals over the live trips, adjusted in O(1) as trips are added,
+ * updated and removed, so the insights screen never rescans the history.
+ * Every group is a bucket in the same parallel arrays: bucket 0 holds the
+ * overall totals, then one bucket per mode, one per status, then one per
+ * calendar month in the order months were first seen.
+ */
+class TripRollups {
+
+    private static final int MODE_BASE = 1;
+    private static final int STATUS_BASE = MODE_BASE + Trip.TransportMode.values().length;
+    private static final int MONTH_BASE = STATUS_BASE + Trip.TripStatus.values().length;
+
+    private int[] counts = new int[MONTH_BASE + 16];
+    private long[] meters = new long[MONTH_BASE + 16];
+    private long[] grams = new long[MONTH_BASE + 16];
+    private long[] minutes = new long[MONTH_BASE + 16];
+    private int[] bucketMonths = new int[MONTH_BASE + 16];
+    private int bucketCount = MONTH_BASE;
+    private final IntIntMap monthBuckets = new IntIntMap(16);
+
+    void add(int mode, int status, int epochDay, int durationMinutes, int distanceMeters, int carbonGrams) {
+        apply(mode, status, epochDay, durationMinutes, distanceMeters, carbonGrams, 1);
+    }
+
+    void remove(int mode, int status, int epochDay, int durationMinutes, int distanceMeters, int carbonGrams) {
+        apply(mode, status, epochDay, durationMinutes, distanceMeters, carbonGrams, -1);
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0, bucketCount, 0);
+        Arrays.fill(meters, 0, bucketCount, 0);
+        Arrays.fill(grams, 0, bucketCount, 0);
+        Arrays.fill(minutes, 0, bucketCount, 0);
+        bucketCount = MONTH_BASE;
+        monthBuckets.clear();
+    }
+
+    TripInsights snapshot() {
+        Trip.TransportMode[] modes = Trip.TransportMode.values();
+        TripInsights.Totals[] byMode = new TripInsights.Totals[modes.length];
+        for (int i = 0; i < modes.length; i++) {
+            byMode[i] = totals(MODE_BASE + i);
+        }
+        Trip.TripStatus[] statuses = Trip.TripStatus.values();
+        TripInsights.Totals[] byStatus = new TripInsights.Totals[statuses.length];
+        for (int i = 0; i < statuses.length; i++) {
+            byStatus[i] = totals(STATUS_BASE + i);
+        }
+
+        // Only months that still have trips, oldest first
+        int[] months = new int[bucketCount - MONTH_BASE];
+        int monthCount = 0;
+        for (int bucket = MONTH_BASE; bucket < bucketCount; bucket++) {
+            if (counts[bucket] > 0) {
+                months[monthCount++] = bucketMonths[bucket];
+            }
+        }
+        months = Arrays.copyOf(months, monthCount);
+        Arrays.sort(months);
+        TripInsights.Totals[] byMonth = new TripInsights.Totals[monthCount];
+        for (int i = 0; i < monthCount; i++) {
+            byMonth[i] = totals(monthBuckets.get(months[i]));
+        }
+
+        return new TripInsights(totals(0), byMode, byStatus, months, byMonth);
+    }
+
+    private void apply(int mode, int status, int epochDay, int durationMinutes,
+                       int distanceMeters, int carbonGrams, int sign) {
+        // Unknown distances and footprints count as zero
+        long tripMeters = distanceMeters != UnitUtils.UNKNOWN ? sign * (long) distanceMeters : 0;
+        long tripGrams = carbonGrams != UnitUtils.UNKNOWN ? sign * (long) carbonGrams : 0;
+        long tripMinutes = sign * (long) durationMinutes;
+
+        addTo(0, sign, tripMeters, tripGrams, tripMinutes);
+        addTo(MODE_BASE + mode, sign, tripMeters, tripGrams, tripMinutes);
+        addTo(STATUS_BASE + status, sign, tripMeters, tripGrams, tripMinutes);
+        int month = DateUtils.monthIndex(epochDay);
+        if (month != DateUtils.NO_DATE) {
+            addTo(monthBucket(month), sign, tripMeters, tripGrams, tripMinutes);
+        }
+    }
+
+    private void addTo(int bucket, int count, long tripMeters, long tripGrams, long tripMinutes) {
+        counts[bucket] += count;
+        meters[bucket] += tripMeters;
+        grams[bucket] += tripGrams;
+        minutes[bucket] += tripMinutes;
+    }
+
+    private int monthBucket(int month) {
+        int bucket = monthBuckets.get(month);
+        if (bucket >= 0) {
+            return bucket;
+        }
+        if (bucketCount == counts.length) {
+            int capacity = bucketCount * 2;
+            counts = Arrays.copyOf(counts, capacity);
+            meters = Arrays.copyOf(meters, capacity);
+            grams = Arrays.copyOf(grams, capacity);
+            minutes = Arrays.copyOf(minutes, capacity);
+            bucketMonths = Arrays.copyOf(bucketMonths, capacity);
+        }
+        bucket = bucketCount++;
+        bucketMonths[bucket] = month;
+        monthBuckets.put(month, bucket);
+        return bucket;
+    }
+
+    private TripInsights.Totals totals(int bucket) {
+        return new TripInsights.Totals(counts[bucket], meters[bucket], grams[bucket], minutes[bucket]);
+    }
+}
@@ -0,0 +1,40 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.Trip;
+
+/**
+ * One origin-to-destination route with its estimated trip count.
+ * Counts come from {@link RouteSketch} and may overestimate rarely
+ * travelled routes, but never underestimate one that is reported.
+ */
+public final class TripRoute {
+
+    private final String origin;
+    private final String destination;
+    private final int tripCount;
+    private final Trip.TransportMode mode;
+
+    TripRoute(String origin, String destination, int tripCount, Trip.TransportMode mode) {
+        this.origin = origin;
+        this.destination = destination;
+        this.tripCount = tripCount;
+        this.mode = mode;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public int getTripCount() {
+        return tripCount;
+    }
+
+    // Mode of the most recent trip counted on this route
+    public Trip.TransportMode getMode() {
+        return mode;
+    }
+}
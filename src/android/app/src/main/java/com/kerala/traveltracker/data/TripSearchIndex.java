@@ -0,0 +1,429 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.Trip;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Inverted index over the words of each trip's origin, destination and
+ * notes, with a prefix trie over the distinct words so a query can match
+ * while it is still being typed. Each word has a postings list of the trips
+ * that contain it and the fields it appears in; each trip remembers its own
+ * words, so updates and deletes only touch the postings of that trip.
+ * Words are never removed from the trie; their postings just become empty.
+ *
+ * Trips are numbered by dense, recycled rows, and postings hold rows rather
+ * than trip ids, so a query scores matches in plain arrays instead of maps.
+ */
+class TripSearchIndex {
+
+    // Field bits stored with each posting
+    static final int FIELD_ORIGIN = 1;
+    static final int FIELD_DESTINATION = 2;
+    static final int FIELD_NOTES = 4;
+
+    private static final int NONE = -1;
+
+    // Word text to id, and each word's postings
+    private final HashMap<String, Integer> words = new HashMap<>();
+    private int[][] postingRows = new int[64][];
+    private byte[][] postingFields = new byte[64][];
+    private int[] postingSizes = new int[64];
+    private int wordCount;
+
+    // Trie over the word texts; children are linked through nextSibling
+    private char[] nodeChars = new char[256];
+    private int[] nodeFirstChild = new int[256];
+    private int[] nodeNextSibling = new int[256];
+    private int[] nodeWords = new int[256];
+    private int nodeCount = 1;
+
+    // Trip id to row; each row holds the trip's id and word ids
+    private final IntIntMap tripRows = new IntIntMap(64);
+    private int[] rowTripIds = new int[64];
+    private int[][] rowWords = new int[64][];
+    private int rowCount;
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    // Per-row query state; a row takes part in a token's round while its
+    // stamp is current, so nothing has to be cleared between searches
+    private int[] rowStamps = new int[64];
+    private int[] rowTotals = new int[64];
+    private int[] rowBest = new int[64];
+    private int searchStamp;
+    private int[] candidates = new int[64];
+    private int candidateCount;
+
+    TripSearchIndex() {
+        nodeFirstChild[0] = NONE;
+        nodeNextSibling[0] = NONE;
+        nodeWords[0] = NONE;
+    }
+
+    void add(Trip trip) {
+        int tripId = trip.getId();
+        remove(tripId);
+
+        // Merge the fields of words that occur more than once in the trip
+        int[] tripWords = new int[8];
+        byte[] tripFields = new byte[8];
+        int found = 0;
+        String[] texts = {trip.getOrigin(), trip.getDestination(), trip.getNotes()};
+        int[] fields = {FIELD_ORIGIN, FIELD_DESTINATION, FIELD_NOTES};
+        for (int f = 0; f < texts.length; f++) {
+            for (String token : tokenize(texts[f])) {
+                int word = wordId(token);
+                int i = 0;
+                while (i < found && tripWords[i] != word) {
+                    i++;
+                }
+                if (i == found) {
+                    if (found == tripWords.length) {
+                        tripWords = Arrays.copyOf(tripWords, found * 2);
+                        tripFields = Arrays.copyOf(tripFields, found * 2);
+                    }
+                    tripWords[found++] = word;
+                }
+                tripFields[i] |= fields[f];
+            }
+        }
+
+        int row = freeCount > 0 ? freeRows[--freeCount] : newRow();
+        rowTripIds[row] = tripId;
+        rowWords[row] = Arrays.copyOf(tripWords, found);
+        tripRows.put(tripId, row);
+        for (int i = 0; i < found; i++) {
+            addPosting(tripWords[i], row, tripFields[i]);
+        }
+    }
+
+    void remove(int tripId) {
+        int row = tripRows.remove(tripId);
+        if (row < 0) {
+            return;
+        }
+        for (int word : rowWords[row]) {
+            removePosting(word, row);
+        }
+        rowWords[row] = null;
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    /**
+     * Ids of up to {@code limit} trips containing every word of the query,
+     * best match first. Query words match any trip word they are a prefix
+     * of, so results follow the query as it is typed; whole words score more.
+     * Origin and destination matches outrank matches in the notes, and ties
+     * go to the highest, most recently allocated, trip id.
+     */
+    int[] search(String query, int limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0 || limit <= 0) {
+            return new int[0];
+        }
+        if (rowStamps.length < rowCount) {
+            rowStamps = Arrays.copyOf(rowStamps, rowWords.length);
+            rowTotals = Arrays.copyOf(rowTotals, rowWords.length);
+            rowBest = Arrays.copyOf(rowBest, rowWords.length);
+        }
+
+        // Each token is a round; rows missing from a round drop out
+        for (int t = 0; t < tokens.length; t++) {
+            int node = findNode(tokens[t]);
+            int stamp = ++searchStamp;
+            candidateCount = 0;
+            if (node != NONE) {
+                collect(node, tokens[t].length(), t == 0, stamp);
+            }
+            if (candidateCount == 0) {
+                return new int[0];
+            }
+            for (int i = 0; i < candidateCount; i++) {
+                int row = candidates[i];
+                rowTotals[row] = (t == 0 ? 0 : rowTotals[row]) + rowBest[row];
+            }
+        }
+        return top(limit);
+    }
+
+    void clear() {
+        words.clear();
+        Arrays.fill(postingRows, 0, wordCount, null);
+        Arrays.fill(postingFields, 0, wordCount, null);
+        Arrays.fill(postingSizes, 0, wordCount, 0);
+        wordCount = 0;
+        nodeCount = 1;
+        nodeFirstChild[0] = NONE;
+        tripRows.clear();
+        Arrays.fill(rowWords, 0, rowCount, null);
+        rowCount = 0;
+        freeCount = 0;
+    }
+
+    int size() {
+        return tripRows.size();
+    }
+
+    /**
+     * Lower-cased runs of letters, digits and combining marks, so words in
+     * Malayalam, Hindi and Tamil keep their vowel signs
+     */
+    static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        String[] tokens = new String[4];
+        int found = 0;
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && isWordChar(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (found == tokens.length) {
+                    tokens = Arrays.copyOf(tokens, found * 2);
+                }
+                tokens[found++] = lower.substring(start, i);
+                start = -1;
+            }
+        }
+        return Arrays.copyOf(tokens, found);
+    }
+
+    private static boolean isWordChar(char c) {
+        if (Character.isLetterOrDigit(c)) {
+            return true;
+        }
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    // Query helpers
+
+    /**
+     * Record in {@code rowBest} the best score of every row under
+     * {@code node}; after the first round, only rows that matched the
+     * previous token take part
+     */
+    private void collect(int node, int tokenLength, boolean first, int stamp) {
+        int[] stack = new int[16];
+        int depth = 0;
+        stack[depth++] = node;
+        while (depth > 0) {
+            int current = stack[--depth];
+            int word = nodeWords[current];
+            if (word != NONE) {
+                boolean whole = current == node;
+                int placeScore = score(FIELD_ORIGIN, whole, tokenLength);
+                int notesScore = score(FIELD_NOTES, whole, tokenLength);
+                int bothScore = score(FIELD_ORIGIN | FIELD_NOTES, whole, tokenLength);
+                int[] rows = postingRows[word];
+                byte[] fields = postingFields[word];
+                for (int i = 0; i < postingSizes[word]; i++) {
+                    int row = rows[i];
+                    int score = (fields[i] & FIELD_NOTES) == 0 ? placeScore
+                            : fields[i] == FIELD_NOTES ? notesScore : bothScore;
+                    if (rowStamps[row] == stamp) {
+                        if (rowBest[row] < score) {
+                            rowBest[row] = score;
+                        }
+                    } else if (first || rowStamps[row] == stamp - 1) {
+                        rowStamps[row] = stamp;
+                        rowBest[row] = score;
+                        if (candidateCount == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                        }
+                        candidates[candidateCount++] = row;
+                    }
+                }
+            }
+            for (int child = nodeFirstChild[current]; child != NONE; child = nodeNextSibling[child]) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = child;
+            }
+        }
+    }
+
+    private static int score(int fields, boolean whole, int tokenLength) {
+        int score = 0;
+        if ((fields & (FIELD_ORIGIN | FIELD_DESTINATION)) != 0) {
+            score += 4;
+        }
+        if ((fields & FIELD_NOTES) != 0) {
+            score += 1;
+        }
+        // Whole words beat prefixes; longer prefixes are more specific
+        return score * (whole ? 3 : 2) + Math.min(tokenLength, 8);
+    }
+
+    /**
+     * Trip ids of the {@code limit} best candidates, kept in a min-heap so
+     * only those few are ever sorted
+     */
+    private int[] top(int limit) {
+        // Keys pack the score above the trip id
+        int size = Math.min(limit, candidateCount);
+        long[] heap = new long[size];
+        int filled = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int row = candidates[i];
+            long key = ((long) rowTotals[row] << 32) | rowTripIds[row];
+            if (filled < size) {
+                heap[filled] = key;
+                siftUp(heap, filled++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, size);
+            }
+        }
+
+        Arrays.sort(heap);
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = (int) heap[size - 1 - i];
+        }
+        return result;
+    }
+
+    private static void siftUp(long[] heap, int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (heap[parent] <= heap[position]) {
+                return;
+            }
+            long swap = heap[parent];
+            heap[parent] = heap[position];
+            heap[position] = swap;
+            position = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int position = 0;
+        while (true) {
+            int child = position * 2 + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[position] <= heap[child]) {
+                return;
+            }
+            long swap = heap[child];
+            heap[child] = heap[position];
+            heap[position] = swap;
+            position = child;
+        }
+    }
+
+    private int findNode(String token) {
+        int node = 0;
+        for (int i = 0; i < token.length() && node != NONE; i++) {
+            node = child(node, token.charAt(i));
+        }
+        return node;
+    }
+
+    private int child(int node, char c) {
+        for (int child = nodeFirstChild[node]; child != NONE; child = nodeNextSibling[child]) {
+            if (nodeChars[child] == c) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    // Index helpers
+
+    private int wordId(String token) {
+        Integer existing = words.get(token);
+        if (existing != null) {
+            return existing;
+        }
+        if (wordCount == postingSizes.length) {
+            int capacity = wordCount * 2;
+            postingRows = Arrays.copyOf(postingRows, capacity);
+            postingFields = Arrays.copyOf(postingFields, capacity);
+            postingSizes = Arrays.copyOf(postingSizes, capacity);
+        }
+        int word = wordCount++;
+        postingRows[word] = new int[4];
+        postingFields[word] = new byte[4];
+        words.put(token, word);
+
+        int node = 0;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            int next = child(node, c);
+            if (next == NONE) {
+                next = newNode(c);
+                nodeNextSibling[next] = nodeFirstChild[node];
+                nodeFirstChild[node] = next;
+            }
+            node = next;
+        }
+        nodeWords[node] = word;
+        return word;
+    }
+
+    private int newNode(char c) {
+        if (nodeCount == nodeChars.length) {
+            int capacity = nodeCount * 2;
+            nodeChars = Arrays.copyOf(nodeChars, capacity);
+            nodeFirstChild = Arrays.copyOf(nodeFirstChild, capacity);
+            nodeNextSibling = Arrays.copyOf(nodeNextSibling, capacity);
+            nodeWords = Arrays.copyOf(nodeWords, capacity);
+        }
+        int node = nodeCount++;
+        nodeChars[node] = c;
+        nodeFirstChild[node] = NONE;
+        nodeNextSibling[node] = NONE;
+        nodeWords[node] = NONE;
+        return node;
+    }
+
+    private int newRow() {
+        if (rowCount == rowWords.length) {
+            int capacity = rowCount * 2;
+            rowTripIds = Arrays.copyOf(rowTripIds, capacity);
+            rowWords = Arrays.copyOf(rowWords, capacity);
+        }
+        return rowCount++;
+    }
+
+    private void addPosting(int word, int row, byte fields) {
+        int size = postingSizes[word];
+        if (size == postingRows[word].length) {
+            postingRows[word] = Arrays.copyOf(postingRows[word], size * 2);
+            postingFields[word] = Arrays.copyOf(postingFields[word], size * 2);
+        }
+        postingRows[word][size] = row;
+        postingFields[word][size] = fields;
+        postingSizes[word] = size + 1;
+    }
+
+    private void removePosting(int word, int row) {
+        int[] rows = postingRows[word];
+        int last = postingSizes[word] - 1;
+        for (int i = last; i >= 0; i--) {
+            if (rows[i] == row) {
+                // Order within a postings list does not matter
+                rows[i] = rows[last];
+                postingFields[word][i] = postingFields[word][last];
+                postingSizes[word] = last;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.Trip;
+
+import java.util.Arrays;
+
+/**
+ * Date-ordered secondary indexes over the live trips: one for all trips,
+ * one per {@link Trip.TripStatus} and one per {@link Trip.TransportMode}.
+ * Each index is a sorted set of (epoch day, trip id) keys, so a filtered,
+ * newest-first listing is a walk over one index instead of a scan and sort,
+ * and repeated listings share one array until the index changes.
+ * Trips without a parseable date sort as the oldest.
+ */
+class TripSecondaryIndex {
+
+    private final SortedKeys byDate = new SortedKeys();
+    private final SortedKeys[] byStatus = newKeys(Trip.TripStatus.values().length);
+    private final SortedKeys[] byMode = newKeys(Trip.TransportMode.values().length);
+
+    void add(int tripId, int mode, int status, int epochDay) {
+        long key = key(epochDay, tripId);
+        byDate.add(key);
+        byStatus[status].add(key);
+        byMode[mode].add(key);
+    }
+
+    void remove(int tripId, int mode, int status, int epochDay) {
+        long key = key(epochDay, tripId);
+        byDate.remove(key);
+        byStatus[status].remove(key);
+        byMode[mode].remove(key);
+    }
+
+    // Bulk loading: clear, append every live trip unsorted, then sort once,
+    // which is far cheaper than inserting keys one by one during a replay
+
+    void clear() {
+        byDate.clear();
+        for (SortedKeys keys : byStatus) {
+            keys.clear();
+        }
+        for (SortedKeys keys : byMode) {
+            keys.clear();
+        }
+    }
+
+    void append(int tripId, int mode, int status, int epochDay) {
+        long key = key(epochDay, tripId);
+        byDate.append(key);
+        byStatus[status].append(key);
+        byMode[mode].append(key);
+    }
+
+    void sort() {
+        byDate.sort();
+        for (SortedKeys keys : byStatus) {
+            keys.sort();
+        }
+        for (SortedKeys keys : byMode) {
+            keys.sort();
+        }
+    }
+
+    /**
+     * Ids of all trips, newest date first; the array is shared until the
+     * next change, so callers must not modify it
+     */
+    int[] newestFirst() {
+        return byDate.idsDescending();
+    }
+
+    /**
+     * Ids of the trips with {@code status}, newest date first
+     */
+    int[] newestFirst(Trip.TripStatus status) {
+        return byStatus[status.ordinal()].idsDescending();
+    }
+
+    /**
+     * Ids of the trips taken by {@code mode}, newest date first
+     */
+    int[] newestFirst(Trip.TransportMode mode) {
+        return byMode[mode.ordinal()].idsDescending();
+    }
+
+    int count(Trip.TripStatus status) {
+        return byStatus[status.ordinal()].size;
+    }
+
+    int count(Trip.TransportMode mode) {
+        return byMode[mode.ordinal()].size;
+    }
+
+    private static long key(int epochDay, int tripId) {
+        return ((long) epochDay << 32) | (tripId & 0xFFFFFFFFL);
+    }
+
+    private static SortedKeys[] newKeys(int count) {
+        SortedKeys[] keys = new SortedKeys[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = new SortedKeys();
+        }
+        return keys;
+    }
+
+    /**
+     * Sorted set of distinct long keys, split into blocks of at most
+     * {@link #BLOCK_SIZE} keys. An insert or delete finds its block by
+     * binary search and only shifts keys within that block, plus the short
+     * array of blocks when one splits or empties. The newest-first ids are
+     * built on demand and shared until the next change.
+     */
+    private static class SortedKeys {
+
+        private static final int BLOCK_SIZE = 512;
+
+        private long[][] blocks = new long[4][];
+        private int[] blockSizes = new int[4];
+        private int blockCount;
+        private int size;
+        // Shared by every listing until the keys change; null when stale
+        private int[] descending;
+
+        void add(long key) {
+            if (blockCount == 0) {
+                insertBlock(0, new long[16]);
+            }
+            int b = blockFor(key);
+            int i = Arrays.binarySearch(blocks[b], 0, blockSizes[b], key);
+            if (i >= 0) {
+                return;
+            }
+            int insertAt = -(i + 1);
+            if (blockSizes[b] == BLOCK_SIZE) {
+                split(b);
+                if (insertAt > blockSizes[b]) {
+                    insertAt -= blockSizes[b];
+                    b++;
+                }
+            }
+            int n = blockSizes[b];
+            if (n == blocks[b].length) {
+                blocks[b] = Arrays.copyOf(blocks[b], Math.min(BLOCK_SIZE, n * 2));
+            }
+            long[] block = blocks[b];
+            System.arraycopy(block, insertAt, block, insertAt + 1, n - insertAt);
+            block[insertAt] = key;
+            blockSizes[b]++;
+            size++;
+            descending = null;
+        }
+
+        void remove(long key) {
+            if (blockCount == 0) {
+                return;
+            }
+            int b = blockFor(key);
+            int n = blockSizes[b];
+            int i = Arrays.binarySearch(blocks[b], 0, n, key);
+            if (i < 0) {
+                return;
+            }
+            System.arraycopy(blocks[b], i + 1, blocks[b], i, n - i - 1);
+            blockSizes[b]--;
+            size--;
+            descending = null;
+            if (blockSizes[b] == 0 && blockCount > 1) {
+                removeBlock(b);
+            }
+        }
+
+        void append(long key) {
+            int last = blockCount - 1;
+            if (last < 0 || blockSizes[last] == BLOCK_SIZE) {
+                insertBlock(blockCount, new long[BLOCK_SIZE]);
+                last++;
+            } else if (blockSizes[last] == blocks[last].length) {
+                blocks[last] = Arrays.copyOf(blocks[last], BLOCK_SIZE);
+            }
+            blocks[last][blockSizes[last]++] = key;
+            size++;
+            descending = null;
+        }
+
+        /**
+         * Sort keys added with {@link #append(long)} and refill the blocks
+         */
+        void sort() {
+            long[] all = new long[size];
+            int n = 0;
+            for (int b = 0; b < blockCount; b++) {
+                System.arraycopy(blocks[b], 0, all, n, blockSizes[b]);
+                n += blockSizes[b];
+            }
+            Arrays.sort(all);
+            clear();
+            for (int start = 0; start < all.length; start += BLOCK_SIZE) {
+                int length = Math.min(BLOCK_SIZE, all.length - start);
+                insertBlock(blockCount, Arrays.copyOfRange(all, start, start + length));
+                blockSizes[blockCount - 1] = length;
+            }
+            size = all.length;
+        }
+
+        void clear() {
+            Arrays.fill(blocks, 0, blockCount, null);
+            blockCount = 0;
+            size = 0;
+            descending = null;
+        }
+
+        /**
+         * Ids in descending key order; shared until the next change, so
+         * callers must not modify it
+         */
+        int[] idsDescending() {
+            if (descending == null) {
+                int[] ids = new int[size];
+                int i = 0;
+                for (int b = blockCount - 1; b >= 0; b--) {
+                    long[] block = blocks[b];
+                    for (int k = blockSizes[b] - 1; k >= 0; k--) {
+                        ids[i++] = (int) block[k];
+                    }
+                }
+                descending = ids;
+            }
+            return descending;
+        }
+
+        // The first block whose last key is not below key, else the last block
+        private int blockFor(long key) {
+            int low = 0;
+            int high = blockCount - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int n = blockSizes[mid];
+                if (n > 0 && blocks[mid][n - 1] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Move the upper half of a full block into a new block after it
+        private void split(int b) {
+            int half = blockSizes[b] / 2;
+            long[] upper = new long[BLOCK_SIZE];
+            System.arraycopy(blocks[b], half, upper, 0, blockSizes[b] - half);
+            insertBlock(b + 1, upper);
+            blockSizes[b + 1] = blockSizes[b] - half;
+            blockSizes[b] = half;
+        }
+
+        private void insertBlock(int b, long[] block) {
+            if (blockCount == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blockCount * 2);
+                blockSizes = Arrays.copyOf(blockSizes, blockCount * 2);
+            }
+            System.arraycopy(blocks, b, blocks, b + 1, blockCount - b);
+            System.arraycopy(blockSizes, b, blockSizes, b + 1, blockCount - b);
+            blocks[b] = block;
+            blockSizes[b] = 0;
+            blockCount++;
+        }
+
+        private void removeBlock(int b) {
+            System.arraycopy(blocks, b + 1, blocks, b, blockCount - b - 1);
+            System.arraycopy(blockSizes, b + 1, blockSizes, b, blockCount - b - 1);
+            blockCount--;
+            blocks[blockCount] = null;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.Trip;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only memory-mapped view of the trip journal.
+ * Records are decoded straight from the mapping on demand, so listing a
+ * handful of trips only touches the pages that hold them.
+ */
+class TripSegmentReader {
+
+    private final File file;
+    private final TripCodec codec;
+    private MappedByteBuffer mapped;
+
+    TripSegmentReader(File file, PlaceDictionary places) {
+        this.file = file;
+        this.codec = new TripCodec(places);
+    }
+
+    /**
+     * Get a private view of the first {@code length} bytes of the file,
+     * remapping when the file has grown past the current mapping
+     */
+    ByteBuffer map(long length) throws IOException {
+        if (mapped == null || mapped.capacity() < length) {
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                 FileChannel channel = randomAccessFile.getChannel()) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            }
+        }
+        ByteBuffer view = mapped.duplicate();
+        view.limit((int) length);
+        return view;
+    }
+
+    /**
+     * Decode the trip payload starting at {@code offset}
+     */
+    Trip decodeAt(int offset, long fileLength) throws IOException {
+        ByteBuffer view = map(fileLength);
+        view.position(offset);
+        return codec.decode(new RecordReader(view));
+    }
+
+    /**
+     * Drop the current mapping after the file was truncated or replaced
+     */
+    void invalidate() {
+        mapped = null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.User;
+
+/**
+ * Versioned binary record format for {@link User}.
+ * Layout (version 1): version byte, authenticated flag, varint createdAt and
+ * lastLoginAt, then length-prefixed UTF-8 strings.
+ */
+public final class UserCodec {
+
+    private static final int VERSION_1 = 1;
+    private static final int CURRENT_VERSION = VERSION_1;
+
+    private UserCodec() {
+    }
+
+    public static byte[] encode(User user) {
+        RecordWriter out = new RecordWriter(96);
+        out.writeByte(CURRENT_VERSION);
+        out.writeByte(user.isAuthenticated() ? 1 : 0);
+        out.writeVarLong(user.getCreatedAt());
+        out.writeVarLong(user.getLastLoginAt());
+        out.writeString(user.getName());
+        out.writeString(user.getEmail());
+        out.writeString(user.getAvatar());
+        out.writeString(user.getCity());
+        out.writeString(user.getPhone());
+        return out.toByteArray();
+    }
+
+    public static User decode(byte[] bytes) {
+        RecordReader in = new RecordReader(bytes);
+        int version = in.readByte();
+        if (version != VERSION_1) {
+            throw new IllegalStateException("Unsupported user record version " + version);
+        }
+
+        User user = new User();
+        user.setAuthenticated(in.readByte() != 0);
+        user.setCreatedAt(in.readVarLong());
+        user.setLastLoginAt(in.readVarLong());
+        user.setName(in.readString());
+        user.setEmail(in.readString());
+        user.setAvatar(in.readString());
+        user.setCity(in.readString());
+        user.setPhone(in.readString());
+        return user;
+    }
+}
@@ -0,0 +1,136 @@
+package com.kerala.traveltracker.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.kerala.traveltracker.models.User;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.Future;
+
+/**
+ * Process-wide owner of the signed-in user's record file.
+ * Saves are encoded on the caller's thread, which snapshots the mutable
+ * {@link User}, and written on the {@link PersistenceExecutor}. Saves made
+ * while a write is queued replace its record, so only the latest is written.
+ * Reads see a queued record before it reaches the disk.
+ */
+public class UserStore {
+
+    private static final String TAG = "UserStore";
+    private static final String RECORD_FILE = "user.record";
+
+    private static UserStore instance;
+
+    private final File recordFile;
+    private final PersistenceExecutor writer;
+
+    // Latest record not yet on disk, null to delete the file; guarded by this
+    private byte[] latestRecord;
+    private boolean unwritten;
+    // Bumped by every save and delete so a finished write knows if it is still the latest
+    private int version;
+    private Future<?> queuedWrite;
+
+    public static synchronized UserStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new UserStore(new File(context.getApplicationContext().getFilesDir(), RECORD_FILE));
+        }
+        return instance;
+    }
+
+    UserStore(File recordFile) {
+        this.recordFile = recordFile;
+        this.writer = PersistenceExecutor.getInstance();
+    }
+
+    /**
+     * The saved user, or null if there is none
+     */
+    public User load() {
+        synchronized (this) {
+            if (unwritten) {
+                return latestRecord != null ? UserCodec.decode(latestRecord) : null;
+            }
+        }
+        if (!recordFile.exists()) {
+            return null;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(recordFile, "r")) {
+            byte[] record = new byte[(int) file.length()];
+            file.readFully(record);
+            return UserCodec.decode(record);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Failed to read user", e);
+            return null;
+        }
+    }
+
+    /**
+     * Save {@code user}; the future completes once it is on disk
+     */
+    public Future<?> save(User user) {
+        return enqueue(UserCodec.encode(user));
+    }
+
+    /**
+     * Delete the saved user after any queued save
+     */
+    public Future<?> delete() {
+        return enqueue(null);
+    }
+
+    // Persistence
+
+    private synchronized Future<?> enqueue(byte[] record) {
+        latestRecord = record;
+        unwritten = true;
+        version++;
+        if (queuedWrite == null) {
+            queuedWrite = writer.submit(this::writeLatest);
+        }
+        return queuedWrite;
+    }
+
+    private void writeLatest() {
+        byte[] record;
+        int writtenVersion;
+        synchronized (this) {
+            // Later saves queue a new write
+            queuedWrite = null;
+            record = latestRecord;
+            writtenVersion = version;
+        }
+        if (record == null) {
+            recordFile.delete();
+        } else if (!write(record)) {
+            // Leave it unwritten so reads keep seeing it
+            return;
+        }
+        synchronized (this) {
+            if (version == writtenVersion) {
+                unwritten = false;
+                latestRecord = null;
+            }
+        }
+    }
+
+    private boolean write(byte[] record) {
+        File tempFile = new File(recordFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            out.write(record);
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to save user", e);
+            return false;
+        }
+        if (!tempFile.renameTo(recordFile)) {
+            Log.e(TAG, "Failed to replace " + recordFile);
+            return false;
+        }
+        return true;
+    }
+}
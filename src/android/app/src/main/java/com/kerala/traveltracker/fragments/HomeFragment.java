@@ -17,19 +17,23 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.kerala.traveltracker.R;
+import com.kerala.traveltracker.StartupOrchestrator;
 import com.kerala.traveltracker.adapters.RecentTripsAdapter;
 import com.kerala.traveltracker.adapters.PopularRoutesAdapter;
+import com.kerala.traveltracker.data.TripRoute;
 import com.kerala.traveltracker.models.Trip;
 import com.kerala.traveltracker.models.User;
+import com.kerala.traveltracker.utils.BackgroundExecutor;
 import com.kerala.traveltracker.utils.LanguageManager;
 import com.kerala.traveltracker.utils.ThemeManager;
 import com.kerala.traveltracker.utils.PreferenceManager.PreferenceHelper;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
 
 /**
  * Home fragment - Main dashboard for Kerala Travel Tracker
@@ -42,6 +46,8 @@ public class HomeFragment extends Fragment {
         void onRouteClicked(String origin, String destination);
     }
     
+    private static final int POPULAR_ROUTE_COUNT = 4;
+    
     private OnHomeInteractionListener listener;
     private LanguageManager languageManager;
     private ThemeManager themeManager;
@@ -65,9 +71,15 @@ public class HomeFragment extends Fragment {
     // Data
     private User currentUser;
     private List<Trip> recentTrips;
+    private List<PopularRoute> popularRoutes;
+    // Trip store change count when the trip data was last loaded
+    private int loadedChangeCount;
     private RecentTripsAdapter recentTripsAdapter;
     private PopularRoutesAdapter popularRoutesAdapter;
     
+    // Recent trip rows are formatted here, off the main thread
+    private final Executor renderExecutor = BackgroundExecutor.getInstance();
+    
     public HomeFragment() {
         // Required empty public constructor
     }
@@ -79,9 +91,10 @@ public class HomeFragment extends Fragment {
             listener = (OnHomeInteractionListener) context;
         }
         
-        languageManager = new LanguageManager(context);
-        themeManager = new ThemeManager(context);
-        preferenceHelper = new PreferenceHelper(context);
+        // The activity's shared helper, so the managers read settings it has cached
+        preferenceHelper = StartupOrchestrator.start(context).getPreferenceHelper();
+        languageManager = new LanguageManager(context, preferenceHelper);
+        themeManager = new ThemeManager(context, preferenceHelper);
     }
     
     @Override
@@ -116,28 +129,42 @@ public class HomeFragment extends Fragment {
         emptyStateTextView = view.findViewById(R.id.empty_state_text_view);
     }
     
-    private void loadData() {
+    /**
+     * Load the user, and the trip data if the trip store changed since the
+     * last load; returns whether the trip data was reloaded
+     */
+    private boolean loadData() {
         currentUser = preferenceHelper.getUser();
-        List<Trip> allTrips = preferenceHelper.getTrips();
         
-        // Get recent trips (last 3)
-        recentTrips = new ArrayList<>();
-        int count = Math.min(3, allTrips.size());
-        for (int i = allTrips.size() - count; i < allTrips.size(); i++) {
-            recentTrips.add(allTrips.get(i));
+        int changeCount = preferenceHelper.getTripChangeCount();
+        if (recentTrips != null && changeCount == loadedChangeCount) {
+            return false;
+        }
+        loadedChangeCount = changeCount;
+        
+        // Get recent trips (last 3), decoding only those records; a fresh
+        // list each time so the adapter can diff it against the last one
+        recentTrips = preferenceHelper.getRecentTrips(3);
+        
+        // Popular routes come from the journal's route sketch, not a history scan
+        if (popularRoutes == null) {
+            popularRoutes = new ArrayList<>();
         }
+        popularRoutes.clear();
+        popularRoutes.addAll(getPopularRoutes());
+        return true;
     }
     
     private void setupRecyclerViews() {
         // Recent trips
-        recentTripsAdapter = new RecentTripsAdapter(recentTrips, trip -> {
+        recentTripsAdapter = new RecentTripsAdapter(requireContext(), renderExecutor, languageManager, trip -> {
             // Handle trip click
         });
         recentTripsRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         recentTripsRecyclerView.setAdapter(recentTripsAdapter);
+        recentTripsAdapter.submitTrips(recentTrips);
         
         // Popular routes
-        List<PopularRoute> popularRoutes = getPopularRoutes();
         popularRoutesAdapter = new PopularRoutesAdapter(popularRoutes, route -> {
             if (listener != null) {
                 listener.onRouteClicked(route.getOrigin(), route.getDestination());
@@ -205,35 +232,7 @@ public class HomeFragment extends Fragment {
     }
     
     private String getTimeBasedGreeting() {
-        int hour = new Date().getHours();
-        String baseGreeting;
-        
-        if (hour < 12) {
-            baseGreeting = "Good Morning";
-        } else if (hour < 17) {
-            baseGreeting = "Good Afternoon";
-        } else {
-            baseGreeting = "Good Evening";
-        }
-        
-        // Add language-specific greeting
-        LanguageManager.Language currentLanguage = languageManager.getCurrentLanguage();
-        switch (currentLanguage) {
-            case MALAYALAM:
-                if (hour < 12) return "സുപ്രഭാതം";
-                else if (hour < 17) return "ശുഭ ഉച്ചയ്ക്ക്";
-                else return "സുഭ സായാഹ്നം";
-            case HINDI:
-                if (hour < 12) return "सुप्रभात";
-                else if (hour < 17) return "नमस्ते";
-                else return "शुभ संध्या";
-            case TAMIL:
-                if (hour < 12) return "காலை வணக்கம்";
-                else if (hour < 17) return "மதிய வணக்கம்";
-                else return "மாலை வணக்கம்";
-            default:
-                return baseGreeting;
-        }
+        return languageManager.getTimeGreeting(Calendar.getInstance().get(Calendar.HOUR_OF_DAY));
     }
     
     private void updateWeatherUI() {
@@ -260,6 +259,16 @@ public class HomeFragment extends Fragment {
     
     private List<PopularRoute> getPopularRoutes() {
         List<PopularRoute> routes = new ArrayList<>();
+        for (TripRoute route : preferenceHelper.getPopularRoutes(POPULAR_ROUTE_COUNT)) {
+            int count = route.getTripCount();
+            routes.add(new PopularRoute(route.getOrigin(), route.getDestination(),
+                    route.getMode().getEmoji(), languageManager.getTripCount(count)));
+        }
+        if (!routes.isEmpty()) {
+            return routes;
+        }
+        
+        // No history yet, suggest some well-known routes
         routes.add(new PopularRoute("Kochi", "Alappuzha", "🚤", "Backwater Cruise"));
         routes.add(new PopularRoute("Munnar", "Thekkady", "🚌", "Hill Station Tour"));
         routes.add(new PopularRoute("Trivandrum", "Kovalam", "🛺", "Beach Getaway"));
@@ -270,10 +279,18 @@ public class HomeFragment extends Fragment {
     @Override
     public void onResume() {
         super.onResume();
-        loadData();
+        boolean tripsChanged = loadData();
         updateUI();
+        if (!tripsChanged) {
+            // Shown again after another tab; nothing to rebind
+            return;
+        }
         if (recentTripsAdapter != null) {
-            recentTripsAdapter.notifyDataSetChanged();
+            // Formatted and diffed off the main thread; only changed rows rebind
+            recentTripsAdapter.submitTrips(recentTrips);
+        }
+        if (popularRoutesAdapter != null) {
+            popularRoutesAdapter.notifyDataSetChanged();
         }
     }
     
@@ -6,7 +6,6 @@ import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.AutoCompleteTextView;
 import android.widget.Button;
 import android.widget.EditText;
@@ -17,6 +16,7 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.kerala.traveltracker.R;
+import com.kerala.traveltracker.adapters.PlaceSuggestionAdapter;
 import com.kerala.traveltracker.utils.LanguageManager;
 import com.kerala.traveltracker.utils.ThemeManager;
 
@@ -48,14 +48,6 @@ public class SignUpFragment extends Fragment {
     private Button signUpButton;
     private TextView signInTextView;
     
-    // Kerala cities
-    private String[] keralaCities = {
-        "Thiruvananthapuram", "Kochi", "Kozhikode", "Kollam", "Thrissur",
-        "Alappuzha", "Kottayam", "Palakkad", "Malappuram", "Kannur",
-        "Kasaragod", "Idukki", "Pathanamthitta", "Wayanad", "Munnar",
-        "Thekkady", "Varkala", "Kovalam", "Kumarakom", "Bekal"
-    };
-    
     public SignUpFragment() {
         // Required empty public constructor
     }
@@ -119,8 +111,9 @@ public class SignUpFragment extends Fragment {
     }
     
     private void setupCityAutoComplete() {
-        ArrayAdapter<String> adapter = new ArrayAdapter<>(getContext(), 
-            android.R.layout.simple_dropdown_item_1line, keralaCities);
+        // Kerala places from the gazetteer, matched in any supported language
+        PlaceSuggestionAdapter adapter = new PlaceSuggestionAdapter(requireContext(),
+            languageManager.getCurrentLanguage());
         cityAutoCompleteTextView.setAdapter(adapter);
         cityAutoCompleteTextView.setThreshold(1);
     }
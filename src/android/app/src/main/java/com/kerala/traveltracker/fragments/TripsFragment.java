@@ -3,14 +3,20 @@ package com.kerala.traveltracker.fragments;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.EditText;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
@@ -18,15 +24,18 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.tabs.TabLayout;
 import com.kerala.traveltracker.R;
+import com.kerala.traveltracker.adapters.PagedTripList;
+import com.kerala.traveltracker.adapters.TripDiffCallback;
 import com.kerala.traveltracker.adapters.TripsAdapter;
+import com.kerala.traveltracker.data.TripListing;
 import com.kerala.traveltracker.dialogs.AddTripDialog;
 import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.BackgroundExecutor;
 import com.kerala.traveltracker.utils.LanguageManager;
-import com.kerala.traveltracker.utils.ThemeManager;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Trips fragment - Manage and view all trips
@@ -38,14 +47,43 @@ public class TripsFragment extends Fragment implements AddTripDialog.OnTripAdded
         void onTripUpdated(Trip trip);
         void onTripDeleted(int tripId);
         List<Trip> getTrips();
+        
+        /**
+         * Ids of the trips with the given status, or all trips when it is null,
+         * newest first; called off the main thread
+         */
+        TripListing listTrips(@Nullable Trip.TripStatus status);
+        
+        /**
+         * Ids of the trips whose origin, destination or notes match the query,
+         * narrowed to the status unless it is null, best match first; called
+         * off the main thread
+         */
+        TripListing searchTrips(String query, @Nullable Trip.TripStatus status);
+        
+        /**
+         * Build the search index ahead of the first search; called off the main thread
+         */
+        void prepareSearch();
+        
+        /**
+         * Decode one page of a listing, null for trips deleted since it was
+         * taken; called off the main thread
+         */
+        List<Trip> loadTrips(TripListing listing, int start, int count);
+        
+        /**
+         * Changes whenever a trip is added, edited or deleted
+         */
+        int getTripChangeCount();
     }
     
     private OnTripsInteractionListener listener;
     private LanguageManager languageManager;
-    private ThemeManager themeManager;
     
     // UI Components
     private TabLayout tabLayout;
+    private EditText searchEditText;
     private SwipeRefreshLayout swipeRefreshLayout;
     private RecyclerView tripsRecyclerView;
     private FloatingActionButton addTripFab;
@@ -53,10 +91,18 @@ public class TripsFragment extends Fragment implements AddTripDialog.OnTripAdded
     private View emptyStateLayout;
     
     // Data
-    private List<Trip> allTrips = new ArrayList<>();
-    private List<Trip> filteredTrips = new ArrayList<>();
+    private PagedTripList filteredTrips;
     private TripsAdapter tripsAdapter;
-    private String currentFilter = "all"; // all, completed, ongoing, planned
+    private Trip.TripStatus currentStatus; // null shows all trips
+    private String currentQuery = "";
+    // Trip store change count when the shown listing was taken
+    private int shownChangeCount;
+    
+    // Listings, list diffs and trip pages are computed here, off the main thread
+    private final Executor backgroundExecutor = BackgroundExecutor.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Bumped on the main thread, read by queued listings to skip superseded ones
+    private volatile int diffGeneration;
     
     public TripsFragment() {
         // Required empty public constructor
@@ -68,9 +114,31 @@ public class TripsFragment extends Fragment implements AddTripDialog.OnTripAdded
         if (context instanceof OnTripsInteractionListener) {
             listener = (OnTripsInteractionListener) context;
         }
+        if (filteredTrips == null) {
+            OnTripsInteractionListener source = listener;
+            filteredTrips = new PagedTripList((listing, start, count) -> source != null
+                    ? source.loadTrips(listing, start, count)
+                    : Collections.<Trip>nCopies(count, null), backgroundExecutor,
+                    new PagedTripList.Callback() {
+                        @Override
+                        public void onTripsLoaded(int start, int count) {
+                            // Rebind the rows shown as placeholders
+                            if (tripsAdapter != null) {
+                                tripsAdapter.notifyItemRangeChanged(start, count);
+                            }
+                        }
+                        
+                        @Override
+                        public void onListingStale() {
+                            // Drop the rows of trips deleted elsewhere
+                            if (getView() != null) {
+                                loadTrips();
+                            }
+                        }
+                    });
+        }
         
         languageManager = new LanguageManager(context);
-        themeManager = new ThemeManager(context);
     }
     
     @Override
@@ -86,12 +154,17 @@ public class TripsFragment extends Fragment implements AddTripDialog.OnTripAdded
         setupTabLayout();
         setupRecyclerView();
         setupClickListeners();
+        // Queued ahead of any search, so the first keystroke finds the index ready
+        OnTripsInteractionListener source = listener;
+        if (source != null) {
+            backgroundExecutor.execute(source::prepareSearch);
+        }
         loadTrips();
-        updateUI();
     }
     
     private void initializeViews(View view) {
         tabLayout = view.findViewById(R.id.tab_layout);
+        searchEditText = view.findViewById(R.id.search_edit_text);
         swipeRefreshLayout = view.findViewById(R.id.swipe_refresh_layout);
         tripsRecyclerView = view.findViewById(R.id.trips_recycler_view);
         addTripFab = view.findViewById(R.id.add_trip_fab);
@@ -104,22 +177,27 @@ public class TripsFragment extends Fragment implements AddTripDialog.OnTripAdded
         tabLayout.addTab(tabLayout.newTab().setText("Completed"));
         tabLayout.addTab(tabLayout.newTab().setText("Ongoing"));
         tabLayout.addTab(tabLayout.newTab().setText("Planned"));
+        // The view is rebuilt after a theme change; keep showing the same filter
+        TabLayout.Tab shown = tabLayout.getTabAt(tabPositionOf(currentStatus));
+        if (shown != null) {
+            shown.select();
+        }
         
         tabLayout.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
             @Override
             public void onTabSelected(TabLayout.Tab tab) {
                 switch (tab.getPosition()) {
                     case 0:
-                        currentFilter = "all";
+                        currentStatus = null;
                         break;
                     case 1:
-                        currentFilter = "completed";
+                        currentStatus = Trip.TripStatus.COMPLETED;
                         break;
                     case 2:
-                        currentFilter = "ongoing";
+                        currentStatus = Trip.TripStatus.ONGOING;
                         break;
                     case 3:
-                        currentFilter = "planned";
+                        currentStatus = Trip.TripStatus.PLANNED;
                         break;
                 }
                 filterTrips();
@@ -133,8 +211,22 @@ public class TripsFragment extends Fragment implements AddTripDialog.OnTripAdded
         });
     }
     
+    private static int tabPositionOf(@Nullable Trip.TripStatus status) {
+        if (status == null) {
+            return 0;
+        }
+        switch (status) {
+            case COMPLETED:
+                return 1;
+            case ONGOING:
+                return 2;
+            default:
+                return 3;
+        }
+    }
+    
     private void setupRecyclerView() {
-        tripsAdapter = new TripsAdapter(filteredTrips, new TripsAdapter.OnTripActionListener() {
+        TripsAdapter.OnTripActionListener actions = new TripsAdapter.OnTripActionListener() {
             @Override
             public void onTripClick(Trip trip) {
                 // Handle trip click - maybe show details
@@ -149,7 +241,8 @@ public class TripsFragment extends Fragment implements AddTripDialog.OnTripAdded
             public void onDeleteTrip(Trip trip) {
                 showDeleteConfirmationDialog(trip);
             }
-        });
+        };
+        tripsAdapter = new TripsAdapter(requireContext(), backgroundExecutor, languageManager, filteredTrips, actions);
         
         tripsRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         tripsRecyclerView.setAdapter(tripsAdapter);
@@ -158,6 +251,21 @@ public class TripsFragment extends Fragment implements AddTripDialog.OnTripAdded
     private void setupClickListeners() {
         addTripFab.setOnClickListener(v -> showAddTripDialog());
         
+        searchEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+            
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+            
+            @Override
+            public void afterTextChanged(Editable s) {
+                // The search index answers each keystroke off the main thread
+                currentQuery = s.toString().trim();
+                filterTrips();
+            }
+        });
+        
         swipeRefreshLayout.setOnRefreshListener(() -> {
             loadTrips();
             swipeRefreshLayout.setRefreshing(false);
@@ -165,45 +273,48 @@ public class TripsFragment extends Fragment implements AddTripDialog.OnTripAdded
     }
     
     private void loadTrips() {
-        if (listener != null) {
-            allTrips = listener.getTrips();
-            filterTrips();
-        }
+        filterTrips();
     }
     
     private void filterTrips() {
-        filteredTrips.clear();
-        
-        for (Trip trip : allTrips) {
-            switch (currentFilter) {
-                case "all":
-                    filteredTrips.add(trip);
-                    break;
-                case "completed":
-                    if (trip.getStatus() == Trip.TripStatus.COMPLETED) {
-                        filteredTrips.add(trip);
-                    }
-                    break;
-                case "ongoing":
-                    if (trip.getStatus() == Trip.TripStatus.ONGOING) {
-                        filteredTrips.add(trip);
-                    }
-                    break;
-                case "planned":
-                    if (trip.getStatus() == Trip.TripStatus.PLANNED) {
-                        filteredTrips.add(trip);
-                    }
-                    break;
-            }
-        }
-        
-        // Sort by date (newest first)
-        Collections.sort(filteredTrips, (t1, t2) -> t2.getDate().compareTo(t1.getDate()));
-        
-        updateEmptyState();
-        if (tripsAdapter != null) {
-            tripsAdapter.notifyDataSetChanged();
+        OnTripsInteractionListener source = listener;
+        if (source == null) {
+            return;
         }
+        shownChangeCount = source.getTripChangeCount();
+        String query = currentQuery;
+        Trip.TripStatus status = currentStatus;
+        TripListing shown = filteredTrips.getListing();
+        int generation = ++diffGeneration;
+        backgroundExecutor.execute(() -> {
+            if (generation != diffGeneration) {
+                // A later keystroke or tab already queued its own listing
+                return;
+            }
+            // Only ids and versions are read here; trips are decoded a page at a time as rows bind
+            TripListing listing = query.isEmpty()
+                    ? source.listTrips(status)
+                    : source.searchTrips(query, status);
+            showTrips(shown, listing, generation);
+        });
+    }
+    
+    /**
+     * Diff the new listing against the one on screen, then apply it on the
+     * main thread so only inserted, moved, removed or changed rows are
+     * touched; runs on the background executor
+     */
+    private void showTrips(TripListing shown, TripListing listing, int generation) {
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(TripDiffCallback.between(shown, listing));
+        mainHandler.post(() -> {
+            if (generation != diffGeneration || tripsAdapter == null || getView() == null) {
+                // Superseded by a newer list, or the view is gone
+                return;
+            }
+            filteredTrips.submit(listing);
+            diff.dispatchUpdatesTo(tripsAdapter);
+            updateEmptyState();
+        });
     }
     
     private void updateEmptyState() {
@@ -212,19 +323,22 @@ public class TripsFragment extends Fragment implements AddTripDialog.OnTripAdded
             tripsRecyclerView.setVisibility(View.GONE);
             
             String emptyMessage;
-            switch (currentFilter) {
-                case "completed":
-                    emptyMessage = "No completed trips yet";
-                    break;
-                case "ongoing":
-                    emptyMessage = "No ongoing trips";
-                    break;
-                case "planned":
-                    emptyMessage = "No planned trips";
-                    break;
-                default:
-                    emptyMessage = getString(R.string.no_trips_yet);
-                    break;
+            if (!currentQuery.isEmpty()) {
+                emptyMessage = "No trips match \"" + currentQuery + "\"";
+            } else if (currentStatus == null) {
+                emptyMessage = getString(R.string.no_trips_yet);
+            } else {
+                switch (currentStatus) {
+                    case COMPLETED:
+                        emptyMessage = "No completed trips yet";
+                        break;
+                    case ONGOING:
+                        emptyMessage = "No ongoing trips";
+                        break;
+                    default:
+                        emptyMessage = "No planned trips";
+                        break;
+                }
             }
             emptyStateTextView.setText(emptyMessage);
         } else {
@@ -269,15 +383,6 @@ public class TripsFragment extends Fragment implements AddTripDialog.OnTripAdded
                 .show();
     }
     
-    private void updateUI() {
-        // Apply theme colors
-        if (themeManager.isDarkMode()) {
-            // Apply dark theme
-        } else {
-            // Apply light theme
-        }
-    }
-    
     @Override
     public void onTripAdded(Trip trip) {
         if (listener != null) {
@@ -289,8 +394,19 @@ public class TripsFragment extends Fragment implements AddTripDialog.OnTripAdded
     @Override
     public void onResume() {
         super.onResume();
-        loadTrips();
-        updateUI();
+        // Shown again after another tab: keep the list, scroll position and
+        // adapter as they were unless a trip changed in the meantime
+        if (listener != null && listener.getTripChangeCount() != shownChangeCount) {
+            loadTrips();
+        }
+    }
+    
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        // Listings still queued on the shared executor are skipped
+        diffGeneration++;
+        mainHandler.removeCallbacksAndMessages(null);
     }
     
     @Override
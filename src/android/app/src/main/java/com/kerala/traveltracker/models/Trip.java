@@ -3,6 +3,9 @@ package com.kerala.traveltracker.models;
 import android.os.Parcel;
 import android.os.Parcelable;
 
+import com.kerala.traveltracker.utils.DateUtils;
+import com.kerala.traveltracker.utils.UnitUtils;
+
 /**
  * Trip model class representing a travel trip in Kerala
  */
@@ -48,8 +51,16 @@ public class Trip implements Parcelable {
     private int id;
     private String origin;
     private String destination;
-    private String date;
+    private int epochDay = DateUtils.NO_DATE; // days since 1 Jan 1970
+    private String date; // only kept for text that is not a parseable date
+    // Display text of epochDay, formatted on first use; never serialised.
+    // A racy cache like String.hashCode: an immutable String is safe to
+    // publish without a lock, and two threads at worst both format it
+    private transient String formattedDate;
     private TransportMode mode;
+    private int distanceMeters = UnitUtils.UNKNOWN;
+    private int carbonGrams = UnitUtils.UNKNOWN; // grams of CO₂
+    // Only kept for text that is not a parseable distance or footprint
     private String distance;
     private String carbonFootprint;
     private TripStatus status;
@@ -72,8 +83,11 @@ public class Trip implements Parcelable {
         id = in.readInt();
         origin = in.readString();
         destination = in.readString();
+        epochDay = in.readInt();
         date = in.readString();
         mode = TransportMode.valueOf(in.readString());
+        distanceMeters = in.readInt();
+        carbonGrams = in.readInt();
         distance = in.readString();
         carbonFootprint = in.readString();
         status = TripStatus.valueOf(in.readString());
@@ -111,12 +125,39 @@ public class Trip implements Parcelable {
         this.destination = destination;
     }
 
+    /**
+     * Date for display; formatted from the epoch day once and then cached
+     */
     public String getDate() {
-        return date;
+        if (epochDay == DateUtils.NO_DATE) {
+            return date;
+        }
+        String formatted = formattedDate;
+        if (formatted == null) {
+            formatted = DateUtils.formatEpochDay(epochDay);
+            formattedDate = formatted;
+        }
+        return formatted;
     }
 
+    /**
+     * Set the date from display text such as "15 Dec 2024"
+     */
     public void setDate(String date) {
-        this.date = date;
+        int day = DateUtils.parseEpochDay(date);
+        this.epochDay = day;
+        this.date = day != DateUtils.NO_DATE ? null : date;
+        this.formattedDate = null;
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public void setEpochDay(int epochDay) {
+        this.epochDay = epochDay;
+        this.date = null;
+        this.formattedDate = null;
     }
 
     public TransportMode getMode() {
@@ -127,20 +168,54 @@ public class Trip implements Parcelable {
         this.mode = mode;
     }
 
+    /**
+     * Distance for display, e.g. "53 km"
+     */
     public String getDistance() {
-        return distance;
+        return distanceMeters != UnitUtils.UNKNOWN ? UnitUtils.formatDistance(distanceMeters) : distance;
     }
 
+    /**
+     * Set the distance from display text such as "53 km"
+     */
     public void setDistance(String distance) {
-        this.distance = distance;
+        int meters = UnitUtils.parseMeters(distance);
+        this.distanceMeters = meters;
+        this.distance = meters != UnitUtils.UNKNOWN ? null : distance;
+    }
+
+    public int getDistanceMeters() {
+        return distanceMeters;
     }
 
+    public void setDistanceMeters(int distanceMeters) {
+        this.distanceMeters = distanceMeters;
+        this.distance = null;
+    }
+
+    /**
+     * Carbon footprint for display, e.g. "4.2 kg"
+     */
     public String getCarbonFootprint() {
-        return carbonFootprint;
+        return carbonGrams != UnitUtils.UNKNOWN ? UnitUtils.formatCarbon(carbonGrams) : carbonFootprint;
     }
 
+    /**
+     * Set the carbon footprint from display text such as "4.2 kg"
+     */
     public void setCarbonFootprint(String carbonFootprint) {
-        this.carbonFootprint = carbonFootprint;
+        int grams = UnitUtils.parseGrams(carbonFootprint);
+        this.carbonGrams = grams;
+        this.carbonFootprint = grams != UnitUtils.UNKNOWN ? null : carbonFootprint;
+    }
+
+    public int getCarbonGrams() {
+        return carbonGrams;
+    }
+
+    public void setCarbonGrams(int carbonGrams) {
+        this.carbonGrams = carbonGrams;
+        this.carbonFootprint = null;
     }
 
     public TripStatus getStatus() {
@@ -230,20 +305,14 @@ public class Trip implements Parcelable {
         }
     }
 
+    // Carbon footprint in kg, or 0 when unknown
     public double getCarbonFootprintValue() {
-        try {
-            return Double.parseDouble(carbonFootprint.replaceAll("[^0-9.]", ""));
-        } catch (NumberFormatException e) {
-            return 0.0;
-        }
+        return carbonGrams != UnitUtils.UNKNOWN ? carbonGrams / 1000.0 : 0.0;
     }
 
+    // Distance in km, or 0 when unknown
     public double getDistanceValue() {
-        try {
-            return Double.parseDouble(distance.replaceAll("[^0-9.]", ""));
-        } catch (NumberFormatException e) {
-            return 0.0;
-        }
+        return distanceMeters != UnitUtils.UNKNOWN ? distanceMeters / 1000.0 : 0.0;
     }
 
     // Parcelable implementation
@@ -269,8 +338,11 @@ public class Trip implements Parcelable {
         dest.writeInt(id);
         dest.writeString(origin);
         dest.writeString(destination);
+        dest.writeInt(epochDay);
         dest.writeString(date);
         dest.writeString(mode.name());
+        dest.writeInt(distanceMeters);
+        dest.writeInt(carbonGrams);
         dest.writeString(distance);
         dest.writeString(carbonFootprint);
         dest.writeString(status.name());
@@ -289,10 +361,10 @@ public class Trip implements Parcelable {
                 "id=" + id +
                 ", origin='" + origin + '\'' +
                 ", destination='" + destination + '\'' +
-                ", date='" + date + '\'' +
+                ", date='" + getDate() + '\'' +
                 ", mode=" + mode +
-                ", distance='" + distance + '\'' +
-                ", carbonFootprint='" + carbonFootprint + '\'' +
+                ", distance='" + getDistance() + '\'' +
+                ", carbonFootprint='" + getCarbonFootprint() + '\'' +
                 ", status=" + status +
                 '}';
     }
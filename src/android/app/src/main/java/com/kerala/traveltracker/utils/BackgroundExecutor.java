@@ -0,0 +1,42 @@
+package com.kerala.traveltracker.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The one worker thread screens use for work kept off the main thread
+ * Listings, list diffs, trip pages and row formatting from every screen
+ * run here one at a time, in the order they were queued, below the main
+ * thread's priority so they yield to drawing. The thread lives as long as
+ * the process; screens drop results that arrive after their views are gone
+ * instead of shutting it down.
+ */
+public final class BackgroundExecutor implements Executor {
+
+    private static BackgroundExecutor instance;
+
+    private final ExecutorService worker;
+
+    public static synchronized BackgroundExecutor getInstance() {
+        if (instance == null) {
+            instance = new BackgroundExecutor();
+        }
+        return instance;
+    }
+
+    private BackgroundExecutor() {
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "background-worker");
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    @Override
+    public void execute(@NonNull Runnable task) {
+        worker.execute(task);
+    }
+}
@@ -0,0 +1,102 @@
+package com.kerala.traveltracker.utils;
+
+import com.kerala.traveltracker.models.Trip;
+
+/**
+ * Carbon footprint engine for Kerala Travel Tracker
+ * Estimates grams of CO₂ from the transport mode and the trip distance, or
+ * from the great-circle distance between the trip's coordinates when no
+ * distance was entered
+ */
+public final class CarbonCalculator {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    // Grams of CO₂ per passenger-km, indexed by TransportMode ordinal:
+    // BOAT, AUTO, BUS, TRAIN, CAR, BIKE, WALK
+    private static final double[] GRAMS_PER_KM = {
+            80, 110, 82, 41, 171, 103, 0
+    };
+
+    // Typical ratio of travelled distance to great-circle distance per mode
+    private static final double[] DETOUR_FACTORS = {
+            1.2, 1.3, 1.3, 1.2, 1.3, 1.3, 1.3
+    };
+
+    private CarbonCalculator() {
+    }
+
+    public static double gramsPerKm(Trip.TransportMode mode) {
+        return GRAMS_PER_KM[mode.ordinal()];
+    }
+
+    /**
+     * Estimate grams of CO₂ for a trip, preferring its entered distance
+     */
+    public static int estimateGrams(Trip trip) {
+        Trip.TransportMode mode = trip.getMode() != null ? trip.getMode() : Trip.TransportMode.CAR;
+        return estimateGrams(mode.ordinal(), trip.getDistanceValue(),
+                trip.getOriginLat(), trip.getOriginLng(),
+                trip.getDestinationLat(), trip.getDestinationLng());
+    }
+
+    /**
+     * Estimate grams of CO₂ for {@code count} trips in one pass.
+     * {@code distancesKm} holds 0 where no distance is known, and
+     * {@code coordinates} holds four values per trip (origin lat/lng, then
+     * destination lat/lng); results go to {@code gramsOut}, with
+     * {@link UnitUtils#UNKNOWN} where neither is available
+     */
+    public static void estimateGrams(byte[] modes, double[] distancesKm, double[] coordinates,
+                                     int count, int[] gramsOut) {
+        for (int i = 0, c = 0; i < count; i++, c += 4) {
+            gramsOut[i] = estimateGrams(modes[i], distancesKm[i],
+                    coordinates[c], coordinates[c + 1], coordinates[c + 2], coordinates[c + 3]);
+        }
+    }
+
+    /**
+     * Great-circle (haversine) distance between two points in metres
+     */
+    public static double greatCircleMeters(double lat1, double lng1, double lat2, double lng2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinDeltaPhi = Math.sin((phi2 - phi1) / 2);
+        double sinDeltaLambda = Math.sin(Math.toRadians(lng2 - lng1) / 2);
+        double h = sinDeltaPhi * sinDeltaPhi
+                + Math.cos(phi1) * Math.cos(phi2) * sinDeltaLambda * sinDeltaLambda;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    /**
+     * Estimated travelled distance in metres from coordinates alone, or
+     * {@link UnitUtils#UNKNOWN} when the coordinates are not set
+     */
+    public static int estimateMeters(Trip.TransportMode mode, double originLat, double originLng,
+                                     double destinationLat, double destinationLng) {
+        if (!hasCoordinates(originLat, originLng, destinationLat, destinationLng)) {
+            return UnitUtils.UNKNOWN;
+        }
+        return (int) Math.round(greatCircleMeters(originLat, originLng, destinationLat, destinationLng)
+                * DETOUR_FACTORS[mode.ordinal()]);
+    }
+
+    private static int estimateGrams(int mode, double distanceKm, double originLat, double originLng,
+                                     double destinationLat, double destinationLng) {
+        double km = distanceKm;
+        if (km <= 0) {
+            if (!hasCoordinates(originLat, originLng, destinationLat, destinationLng)) {
+                return UnitUtils.UNKNOWN;
+            }
+            km = greatCircleMeters(originLat, originLng, destinationLat, destinationLng)
+                    * DETOUR_FACTORS[mode] / 1000;
+        }
+        return (int) Math.round(km * GRAMS_PER_KM[mode]);
+    }
+
+    // Unset coordinates are left at 0, 0 by the trip model
+    private static boolean hasCoordinates(double originLat, double originLng,
+                                          double destinationLat, double destinationLng) {
+        return (originLat != 0 || originLng != 0) && (destinationLat != 0 || destinationLng != 0);
+    }
+}
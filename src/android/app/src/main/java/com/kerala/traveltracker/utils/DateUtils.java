@@ -0,0 +1,89 @@
+package com.kerala.traveltracker.utils;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Date helpers for Kerala Travel Tracker
+ * Trip dates are stored as epoch days (days since 1 Jan 1970, UTC) and only
+ * turned into text like "15 Dec 2024" when they are shown
+ */
+public final class DateUtils {
+
+    // Epoch day of a date that is missing or could not be parsed
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final String DATE_PATTERN = "d MMM yyyy";
+
+    // SimpleDateFormat is not thread-safe, so each thread gets its own
+    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat format = new SimpleDateFormat(DATE_PATTERN, Locale.ENGLISH);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            format.setLenient(false);
+            return format;
+        }
+    };
+
+    private DateUtils() {
+    }
+
+    /**
+     * Parse text like "15 Dec 2024" to an epoch day, or {@link #NO_DATE}
+     */
+    public static int parseEpochDay(String date) {
+        if (date == null) {
+            return NO_DATE;
+        }
+        try {
+            Date parsed = DATE_FORMAT.get().parse(date.trim());
+            return (int) Math.floorDiv(parsed.getTime(), MILLIS_PER_DAY);
+        } catch (ParseException e) {
+            return NO_DATE;
+        }
+    }
+
+    /**
+     * Format an epoch day for display, e.g. "15 Dec 2024"
+     */
+    public static String formatEpochDay(int epochDay) {
+        if (epochDay == NO_DATE) {
+            return null;
+        }
+        return DATE_FORMAT.get().format(new Date(epochDay * MILLIS_PER_DAY));
+    }
+
+    /**
+     * Calendar month of an epoch day as {@code year * 12 + (month - 1)}, so
+     * consecutive months have consecutive indexes; {@link #NO_DATE} for none
+     */
+    public static int monthIndex(int epochDay) {
+        if (epochDay == NO_DATE) {
+            return NO_DATE;
+        }
+        // Civil-from-days conversion, avoiding a Calendar allocation per call
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + (month - 1);
+    }
+
+    /**
+     * Today's epoch day in the device's time zone
+     */
+    public static int today() {
+        long now = System.currentTimeMillis();
+        long offset = TimeZone.getDefault().getOffset(now);
+        return (int) Math.floorDiv(now + offset, MILLIS_PER_DAY);
+    }
+}
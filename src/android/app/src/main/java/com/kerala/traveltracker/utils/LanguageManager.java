@@ -2,9 +2,8 @@ package com.kerala.traveltracker.utils;
 
 import android.content.Context;
 import android.content.res.Configuration;
-import android.content.res.Resources;
-import android.os.Build;
 
+import com.kerala.traveltracker.models.Trip;
 import com.kerala.traveltracker.utils.PreferenceManager.PreferenceHelper;
 
 import java.util.Locale;
@@ -45,30 +44,65 @@ public class LanguageManager {
         }
     }
     
-    private final Context context;
+    // Shared by every LanguageManager in the process: the setting is read
+    // once, and the labels are rebuilt only when the language changes
+    private static volatile Language cachedLanguage;
+    private static volatile LocalizationTable table;
+    
     private final PreferenceHelper preferenceHelper;
     
     public LanguageManager(Context context) {
-        this.context = context;
-        this.preferenceHelper = new PreferenceHelper(context);
+        this(context, new PreferenceHelper(context));
+    }
+    
+    public LanguageManager(Context context, PreferenceHelper preferenceHelper) {
+        this.preferenceHelper = preferenceHelper;
+    }
+    
+    /**
+     * Forget the cached setting after the preferences were cleared
+     */
+    public static void invalidateCache() {
+        cachedLanguage = null;
     }
     
     /**
      * Get current app language
      */
     public Language getCurrentLanguage() {
-        String languageCode = preferenceHelper.getLanguage();
-        return Language.fromCode(languageCode);
+        Language language = cachedLanguage;
+        if (language == null) {
+            language = Language.fromCode(preferenceHelper.getLanguage());
+            cachedLanguage = language;
+        }
+        return language;
     }
     
     /**
      * Set app language
      */
     public void setLanguage(Language language) {
-        preferenceHelper.setLanguage(language.getCode());
+        if (language != getCurrentLanguage()) {
+            preferenceHelper.setLanguage(language.getCode());
+            cachedLanguage = language;
+        }
         applyLanguage();
     }
     
+    /**
+     * Labels for the current language; the same instance is returned until
+     * the language changes
+     */
+    public LocalizationTable getLocalizationTable() {
+        Language language = getCurrentLanguage();
+        LocalizationTable current = table;
+        if (current == null || current.getLanguage() != language) {
+            current = new LocalizationTable(language);
+            table = current;
+        }
+        return current;
+    }
+    
     /**
      * Apply the current language setting to the app
      */
@@ -78,26 +112,31 @@ public class LanguageManager {
     }
     
     /**
-     * Set locale for the application
+     * Set the default locale; activities take the language from
+     * {@link #wrap(Context)} when they are created, and are recreated to
+     * change it
      */
     private void setLocale(String languageCode) {
-        Locale locale = new Locale(languageCode);
-        Locale.setDefault(locale);
-        
-        Resources resources = context.getResources();
-        Configuration configuration = resources.getConfiguration();
-        
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-            configuration.setLocale(locale);
-        } else {
-            configuration.locale = locale;
-        }
-        
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            context.createConfigurationContext(configuration);
-        } else {
-            resources.updateConfiguration(configuration, resources.getDisplayMetrics());
+        Locale.setDefault(new Locale(languageCode));
+    }
+    
+    /**
+     * {@code base} with the app language applied, for an activity's
+     * attachBaseContext. This is a configuration context, so a running
+     * activity keeps its language until it is recreated. Only the language
+     * setting is read, since this runs before the activity is created.
+     */
+    public static Context wrap(Context base) {
+        Language language = cachedLanguage;
+        if (language == null) {
+            language = Language.fromCode(PreferenceHelper.readLanguage(base));
+            cachedLanguage = language;
         }
+        Locale locale = new Locale(language.getCode());
+        Locale.setDefault(locale);
+        Configuration configuration = new Configuration(base.getResources().getConfiguration());
+        configuration.setLocale(locale);
+        return base.createConfigurationContext(configuration);
     }
     
     /**
@@ -157,132 +196,62 @@ public class LanguageManager {
      * Get greeting message in current language
      */
     public String getGreeting() {
-        Language currentLanguage = getCurrentLanguage();
-        switch (currentLanguage) {
-            case MALAYALAM:
-                return "നമസ്കാരം!";
-            case HINDI:
-                return "नमस्ते!";
-            case TAMIL:
-                return "வணக்கம்!";
-            case ENGLISH:
-            default:
-                return "Hello!";
-        }
+        return getLocalizationTable().getGreeting(LocalizationTable.Greeting.HELLO);
     }
     
     /**
      * Get Kerala-specific greeting
      */
     public String getKeralaGreeting() {
-        Language currentLanguage = getCurrentLanguage();
-        switch (currentLanguage) {
-            case MALAYALAM:
-                return "ദൈവത്തിന്റെ സ്വന്തം നാട്ടിൽ സ്വാഗതം";
-            case HINDI:
-                return "भगवान के अपने देश में आपका स्वागत है";
-            case TAMIL:
-                return "கடவுளின் சொந்த நாட்டிற்கு வரவேற்கிறோம்";
-            case ENGLISH:
-            default:
-                return "Welcome to God's Own Country";
-        }
+        return getLocalizationTable().getGreeting(LocalizationTable.Greeting.WELCOME);
+    }
+    
+    /**
+     * Get greeting for the time of day in current language
+     */
+    public String getTimeGreeting(int hour) {
+        return getLocalizationTable().getTimeGreeting(hour);
     }
     
     /**
      * Get transport mode name in current language
      */
+    public String getTransportModeName(Trip.TransportMode mode) {
+        return getLocalizationTable().getTransportModeName(mode);
+    }
+    
+    /**
+     * Get transport mode name in current language from its id; unknown
+     * ids are returned as they are
+     */
     public String getTransportModeName(String mode) {
-        Language currentLanguage = getCurrentLanguage();
-        
-        if (currentLanguage == Language.MALAYALAM) {
-            switch (mode.toLowerCase()) {
-                case "boat": return "ബോട്ട്";
-                case "auto": return "ഓട്ടോ";
-                case "bus": return "ബസ്";
-                case "train": return "ട്രെയിൻ";
-                case "car": return "കാർ";
-                case "bike": return "ബൈക്ക്";
-                case "walk": return "നടത്തം";
+        String id = mode.toLowerCase(Locale.ROOT);
+        for (Trip.TransportMode transportMode : Trip.TransportMode.values()) {
+            if (transportMode.getId().equals(id)) {
+                return getTransportModeName(transportMode);
             }
-        } else if (currentLanguage == Language.HINDI) {
-            switch (mode.toLowerCase()) {
-                case "boat": return "नाव";
-                case "auto": return "ऑटो";
-                case "bus": return "बस";
-                case "train": return "ट्रेन";
-                case "car": return "कार";
-                case "bike": return "बाइक";
-                case "walk": return "पैदल";
-            }
-        } else if (currentLanguage == Language.TAMIL) {
-            switch (mode.toLowerCase()) {
-                case "boat": return "படகு";
-                case "auto": return "ஆட்டோ";
-                case "bus": return "பேருந்து";
-                case "train": return "ரயில்";
-                case "car": return "கார்";
-                case "bike": return "பைக்";
-                case "walk": return "நடக்க";
-            }
-        }
-        
-        // Default English names
-        switch (mode.toLowerCase()) {
-            case "boat": return "Boat";
-            case "auto": return "Auto-rickshaw";
-            case "bus": return "Bus";
-            case "train": return "Train";
-            case "car": return "Car";
-            case "bike": return "Bike";
-            case "walk": return "Walk";
-            default: return mode;
         }
+        return mode;
+    }
+    
+    /**
+     * Get a trip count such as "3 trips" in current language
+     */
+    public String getTripCount(int count) {
+        return getLocalizationTable().getTripCount(count);
+    }
+    
+    /**
+     * Get trip status name in current language
+     */
+    public String getStatusName(Trip.TripStatus status) {
+        return getLocalizationTable().getStatusName(status);
     }
     
     /**
      * Get popular Kerala destinations in current language
      */
     public String[] getPopularDestinations() {
-        Language currentLanguage = getCurrentLanguage();
-        
-        if (currentLanguage == Language.MALAYALAM) {
-            return new String[]{
-                "ആലപ്പുഴ ബാക്ക്വാട്ടർ",
-                "മുന്നാർ കുന്നുകൾ",
-                "കൊച്ചി ഹെറിറ്റേജ്",
-                "വയനാട് വന്യജീവി",
-                "കോവളം ബീച്ച്",
-                "തെക്കടി വനം"
-            };
-        } else if (currentLanguage == Language.HINDI) {
-            return new String[]{
-                "अलाप्पुझा बैकवाटर",
-                "मुन्नार पहाड़ियां",
-                "कोची विरासत",
-                "वायनाड वन्यजीव",
-                "कोवलम बीच",
-                "थेक्कडी जंगल"
-            };
-        } else if (currentLanguage == Language.TAMIL) {
-            return new String[]{
-                "அலப்புழா பின்நீர்",
-                "முன்னார் மலைகள்",
-                "கொச்சி பாரம்பரியம்",
-                "வயநாடு வனவிலங்கு",
-                "கோவளம் கடற்கரை",
-                "தேக்காடி காடு"
-            };
-        }
-        
-        // Default English
-        return new String[]{
-            "Alappuzha Backwaters",
-            "Munnar Hills", 
-            "Kochi Heritage",
-            "Wayanad Wildlife",
-            "Kovalam Beach",
-            "Thekkady Forest"
-        };
+        return getLocalizationTable().getPopularDestinations();
     }
-}
\ No newline at end of file
+}
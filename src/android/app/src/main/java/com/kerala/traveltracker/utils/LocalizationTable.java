@@ -0,0 +1,164 @@
+package com.kerala.traveltracker.utils;
+
+import com.kerala.traveltracker.models.Trip;
+
+import java.util.EnumMap;
+
+/**
+ * Localized labels for one language
+ * Built once when the language changes and never modified after that, so a
+ * label is a map lookup on any thread. Each language is a row of data
+ * below; a label a language leaves out falls back to English.
+ */
+public final class LocalizationTable {
+
+    public enum Greeting {
+        HELLO, WELCOME, MORNING, AFTERNOON, EVENING
+    }
+
+    // Greetings by time of day start at these hours
+    private static final int AFTERNOON_HOUR = 12;
+    private static final int EVENING_HOUR = 17;
+
+    // Labels in the declaration order of their enum
+    private static final EnumMap<LanguageManager.Language, String[]> MODE_NAMES =
+            new EnumMap<>(LanguageManager.Language.class);
+    private static final EnumMap<LanguageManager.Language, String[]> STATUS_NAMES =
+            new EnumMap<>(LanguageManager.Language.class);
+    private static final EnumMap<LanguageManager.Language, String[]> GREETINGS =
+            new EnumMap<>(LanguageManager.Language.class);
+    private static final EnumMap<LanguageManager.Language, String[]> DESTINATIONS =
+            new EnumMap<>(LanguageManager.Language.class);
+    private static final EnumMap<LanguageManager.Language, String[]> TRIP_COUNTS =
+            new EnumMap<>(LanguageManager.Language.class);
+
+    static {
+        // Trip.TransportMode: boat, auto, bus, train, car, bike, walk
+        MODE_NAMES.put(LanguageManager.Language.ENGLISH, new String[]{
+                "Boat", "Auto-rickshaw", "Bus", "Train", "Car", "Bike", "Walk"});
+        MODE_NAMES.put(LanguageManager.Language.MALAYALAM, new String[]{
+                "ബോട്ട്", "ഓട്ടോ", "ബസ്", "ട്രെയിൻ", "കാർ", "ബൈക്ക്", "നടത്തം"});
+        MODE_NAMES.put(LanguageManager.Language.HINDI, new String[]{
+                "नाव", "ऑटो", "बस", "ट्रेन", "कार", "बाइक", "पैदल"});
+        MODE_NAMES.put(LanguageManager.Language.TAMIL, new String[]{
+                "படகு", "ஆட்டோ", "பேருந்து", "ரயில்", "கார்", "பைக்", "நடக்க"});
+
+        // Trip.TripStatus: completed, ongoing, planned
+        STATUS_NAMES.put(LanguageManager.Language.ENGLISH, new String[]{
+                "Completed", "Ongoing", "Planned"});
+        STATUS_NAMES.put(LanguageManager.Language.MALAYALAM, new String[]{
+                "പൂർത്തിയായി", "നടക്കുന്നു", "ആസൂത്രണം ചെയ്തു"});
+        STATUS_NAMES.put(LanguageManager.Language.HINDI, new String[]{
+                "पूर्ण", "जारी", "नियोजित"});
+        STATUS_NAMES.put(LanguageManager.Language.TAMIL, new String[]{
+                "முடிந்தது", "நடைபெறுகிறது", "திட்டமிடப்பட்டது"});
+
+        // Greeting: hello, welcome, morning, afternoon, evening
+        GREETINGS.put(LanguageManager.Language.ENGLISH, new String[]{
+                "Hello!", "Welcome to God's Own Country",
+                "Good Morning", "Good Afternoon", "Good Evening"});
+        GREETINGS.put(LanguageManager.Language.MALAYALAM, new String[]{
+                "നമസ്കാരം!", "ദൈവത്തിന്റെ സ്വന്തം നാട്ടിൽ സ്വാഗതം",
+                "സുപ്രഭാതം", "ശുഭ ഉച്ചയ്ക്ക്", "സുഭ സായാഹ്നം"});
+        GREETINGS.put(LanguageManager.Language.HINDI, new String[]{
+                "नमस्ते!", "भगवान के अपने देश में आपका स्वागत है",
+                "सुप्रभात", "नमस्ते", "शुभ संध्या"});
+        GREETINGS.put(LanguageManager.Language.TAMIL, new String[]{
+                "வணக்கம்!", "கடவுளின் சொந்த நாட்டிற்கு வரவேற்கிறோம்",
+                "காலை வணக்கம்", "மதிய வணக்கம்", "மாலை வணக்கம்"});
+
+        DESTINATIONS.put(LanguageManager.Language.ENGLISH, new String[]{
+                "Alappuzha Backwaters", "Munnar Hills", "Kochi Heritage",
+                "Wayanad Wildlife", "Kovalam Beach", "Thekkady Forest"});
+        DESTINATIONS.put(LanguageManager.Language.MALAYALAM, new String[]{
+                "ആലപ്പുഴ ബാക്ക്വാട്ടർ", "മുന്നാർ കുന്നുകൾ", "കൊച്ചി ഹെറിറ്റേജ്",
+                "വയനാട് വന്യജീവി", "കോവളം ബീച്ച്", "തെക്കടി വനം"});
+        DESTINATIONS.put(LanguageManager.Language.HINDI, new String[]{
+                "अलाप्पुझा बैकवाटर", "मुन्नार पहाड़ियां", "कोची विरासत",
+                "वायनाड वन्यजीव", "कोवलम बीच", "थेक्कडी जंगल"});
+        DESTINATIONS.put(LanguageManager.Language.TAMIL, new String[]{
+                "அலப்புழா பின்நீர்", "முன்னார் மலைகள்", "கொச்சி பாரம்பரியம்",
+                "வயநாடு வனவிலங்கு", "கோவளம் கடற்கரை", "தேக்காடி காடு"});
+
+        // Trip count: one, other
+        TRIP_COUNTS.put(LanguageManager.Language.ENGLISH, new String[]{"trip", "trips"});
+        TRIP_COUNTS.put(LanguageManager.Language.MALAYALAM, new String[]{"യാത്ര", "യാത്രകൾ"});
+        TRIP_COUNTS.put(LanguageManager.Language.HINDI, new String[]{"यात्रा", "यात्राएँ"});
+        TRIP_COUNTS.put(LanguageManager.Language.TAMIL, new String[]{"பயணம்", "பயணங்கள்"});
+    }
+
+    private final LanguageManager.Language language;
+    private final EnumMap<Trip.TransportMode, String> modeNames;
+    private final EnumMap<Trip.TripStatus, String> statusNames;
+    private final EnumMap<Greeting, String> greetings;
+    private final String[] destinations;
+    private final String[] tripCounts;
+
+    LocalizationTable(LanguageManager.Language language) {
+        this.language = language;
+        this.modeNames = table(Trip.TransportMode.class, MODE_NAMES, language);
+        this.statusNames = table(Trip.TripStatus.class, STATUS_NAMES, language);
+        this.greetings = table(Greeting.class, GREETINGS, language);
+        String[] localDestinations = DESTINATIONS.get(language);
+        this.destinations = localDestinations != null
+                ? localDestinations : DESTINATIONS.get(LanguageManager.Language.ENGLISH);
+        String[] localTripCounts = TRIP_COUNTS.get(language);
+        this.tripCounts = localTripCounts != null
+                ? localTripCounts : TRIP_COUNTS.get(LanguageManager.Language.ENGLISH);
+    }
+
+    public LanguageManager.Language getLanguage() {
+        return language;
+    }
+
+    public String getTransportModeName(Trip.TransportMode mode) {
+        return modeNames.get(mode);
+    }
+
+    public String getStatusName(Trip.TripStatus status) {
+        return statusNames.get(status);
+    }
+
+    public String getGreeting(Greeting greeting) {
+        return greetings.get(greeting);
+    }
+
+    /**
+     * Greeting for an hour of the day, 0 to 23
+     */
+    public String getTimeGreeting(int hour) {
+        if (hour < AFTERNOON_HOUR) {
+            return greetings.get(Greeting.MORNING);
+        } else if (hour < EVENING_HOUR) {
+            return greetings.get(Greeting.AFTERNOON);
+        }
+        return greetings.get(Greeting.EVENING);
+    }
+
+    /**
+     * Count with its noun, e.g. "1 trip" or "3 trips"
+     */
+    public String getTripCount(int count) {
+        return count + " " + tripCounts[count == 1 ? 0 : 1];
+    }
+
+    public String[] getPopularDestinations() {
+        return destinations.clone();
+    }
+
+    // Table building
+
+    private static <K extends Enum<K>> EnumMap<K, String> table(
+            Class<K> keyType, EnumMap<LanguageManager.Language, String[]> data,
+            LanguageManager.Language language) {
+        String[] local = data.get(language);
+        String[] english = data.get(LanguageManager.Language.ENGLISH);
+        EnumMap<K, String> table = new EnumMap<>(keyType);
+        for (K key : keyType.getEnumConstants()) {
+            int index = key.ordinal();
+            String label = local != null && index < local.length ? local[index] : null;
+            table.put(key, label != null ? label : english[index]);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,347 @@
+package com.kerala.traveltracker.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.kerala.traveltracker.R;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Place-name autocomplete index for Kerala Travel Tracker
+ * Every place in the gazetteer (res/raw/kerala_places.txt) is indexed under
+ * its English name, other English spellings, and its Malayalam, Hindi and
+ * Tamil names. Keys are folded so spelling variants meet: diacritics and
+ * doubled letters are dropped, common romanisation digraphs are reduced
+ * (Kozhikode and Kozikode, Thekkady and Tekady), and Malayalam chillu
+ * letters and Hindi nasal conjuncts are normalised. A query is a binary
+ * search for its folded prefix in one sorted key array, so lookups stay
+ * fast against a full gazetteer. The index is immutable once loaded and
+ * safe to query from any thread.
+ */
+public final class PlaceNameIndex {
+
+    private static final String TAG = "PlaceNameIndex";
+
+    // Match tiers, best first
+    private static final int TIER_NAME = 0;
+    private static final int TIER_VARIANT = 1;
+    private static final int TIER_LATER_WORD = 2;
+    private static final int TIER_COUNT = 3;
+
+    private static PlaceNameIndex instance;
+
+    /**
+     * One gazetteer entry
+     */
+    public static final class Place {
+        private final String name;
+        private final String[] localNames;
+
+        Place(String name, String[] localNames) {
+            this.name = name;
+            this.localNames = localNames;
+        }
+
+        // English name, used when storing the place
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Name in the given language, falling back to the English name
+         */
+        public String getLocalName(LanguageManager.Language language) {
+            String local = localNames[language.ordinal()];
+            return local != null ? local : name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final Place[] places;
+    // Sorted folded keys, each with the place and tier it came from
+    private final String[] keys;
+    private final int[] keyPlaces;
+    private final byte[] keyTiers;
+
+    private PlaceNameIndex(Place[] places, String[] keys, int[] keyPlaces, byte[] keyTiers) {
+        this.places = places;
+        this.keys = keys;
+        this.keyPlaces = keyPlaces;
+        this.keyTiers = keyTiers;
+    }
+
+    /**
+     * Shared index, loading the gazetteer on first use; call off the main thread
+     */
+    public static synchronized PlaceNameIndex getInstance(Context context) {
+        if (instance == null) {
+            try (InputStream in = context.getApplicationContext().getResources()
+                    .openRawResource(R.raw.kerala_places)) {
+                instance = load(in);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to load place gazetteer", e);
+                instance = new PlaceNameIndex(new Place[0], new String[0], new int[0], new byte[0]);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Build an index from gazetteer lines of the form
+     * {@code English|variant,variant|Malayalam|Hindi|Tamil}
+     */
+    static PlaceNameIndex load(InputStream in) throws IOException {
+        List<Place> places = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<int[]> entries = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        LanguageManager.Language[] languages = LanguageManager.Language.values();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\|", -1);
+            int place = places.size();
+            String[] localNames = new String[languages.length];
+            localNames[LanguageManager.Language.ENGLISH.ordinal()] = fields[0];
+            localNames[LanguageManager.Language.MALAYALAM.ordinal()] = field(fields, 2);
+            localNames[LanguageManager.Language.HINDI.ordinal()] = field(fields, 3);
+            localNames[LanguageManager.Language.TAMIL.ordinal()] = field(fields, 4);
+            places.add(new Place(fields[0], localNames));
+
+            addKeys(keys, entries, fields[0], place, TIER_NAME);
+            String variants = field(fields, 1);
+            if (variants != null) {
+                for (String variant : variants.split(",")) {
+                    addKeys(keys, entries, variant, place, TIER_VARIANT);
+                }
+            }
+            for (int i = 2; i < fields.length; i++) {
+                addKeys(keys, entries, field(fields, i), place, TIER_VARIANT);
+            }
+        }
+
+        // Sort by key, best tier first among equal keys
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byKey = keys.get(a).compareTo(keys.get(b));
+            return byKey != 0 ? byKey : Integer.compare(entries.get(a)[1], entries.get(b)[1]);
+        });
+        String[] sortedKeys = new String[order.length];
+        int[] keyPlaces = new int[order.length];
+        byte[] keyTiers = new byte[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys.get(order[i]);
+            keyPlaces[i] = entries.get(order[i])[0];
+            keyTiers[i] = (byte) entries.get(order[i])[1];
+        }
+        return new PlaceNameIndex(places.toArray(new Place[0]), sortedKeys, keyPlaces, keyTiers);
+    }
+
+    /**
+     * Up to {@code limit} places with a name starting with the query, in any
+     * supported script; English name matches first, then gazetteer order
+     */
+    public List<Place> suggest(CharSequence query, int limit) {
+        List<Place> result = new ArrayList<>();
+        if (query == null || limit <= 0) {
+            return result;
+        }
+        String text = query.toString();
+        String folded = fold(text);
+        if (folded.isEmpty()) {
+            return result;
+        }
+
+        // Best tier reached by each place
+        byte[] best = new byte[places.length];
+        Arrays.fill(best, (byte) TIER_COUNT);
+        collect(folded, best);
+        // A trailing c, e or o may be the start of ch, ee or oo
+        String alternative = fold(text + alternativeEnding(text));
+        if (!alternative.equals(folded)) {
+            collect(alternative, best);
+        }
+
+        for (int tier = 0; tier < TIER_COUNT && result.size() < limit; tier++) {
+            for (int place = 0; place < places.length && result.size() < limit; place++) {
+                if (best[place] == tier) {
+                    result.add(places[place]);
+                }
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return places.length;
+    }
+
+    /**
+     * Lower-cased letters, digits and vowel signs of {@code text} with
+     * romanisation variants, chillu letters and nasal conjuncts normalised
+     */
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        StringBuilder letters = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if ((c >= '\u0300' && c <= '\u036F') || c == '\u200C' || c == '\u200D' || c == NUKTA) {
+                // Latin diacritics, zero-width joiners, Devanagari nukta
+                continue;
+            }
+            if (c >= FIRST_CHILLU && c < FIRST_CHILLU + CHILLU_BASES.length) {
+                // Atomic chillu letters are the consonant with a virama
+                letters.append(CHILLU_BASES[c - FIRST_CHILLU]).append(MALAYALAM_VIRAMA);
+                continue;
+            }
+            if (isDevanagariNasal(c) && i + 2 < decomposed.length() && decomposed.charAt(i + 1) == DEVANAGARI_VIRAMA
+                    && isDevanagariConsonant(decomposed.charAt(i + 2))) {
+                // Half nasal before a consonant is written as an anusvara
+                letters.append(ANUSVARA);
+                i++;
+                continue;
+            }
+            if (Character.isLetterOrDigit(c) || isMark(c)) {
+                letters.append(c);
+            }
+        }
+
+        StringBuilder folded = new StringBuilder(letters.length());
+        for (int i = 0; i < letters.length(); i++) {
+            char c = letters.charAt(i);
+            char next = i + 1 < letters.length() ? letters.charAt(i + 1) : 0;
+            if (next == 'h' && "bcdgjkpstz".indexOf(c) >= 0) {
+                // th, dh, zh, ch... keep only the first letter
+                i++;
+            } else if (c == 'c' || c == 'q') {
+                c = 'k';
+            } else if (c == 'w') {
+                c = 'v';
+            } else if (c == 'e' && next == 'e') {
+                c = 'i';
+                i++;
+            } else if (c == 'o' && next == 'o') {
+                c = 'u';
+                i++;
+            }
+            // Doubled letters are spelled either way
+            if (folded.length() == 0 || folded.charAt(folded.length() - 1) != c || c > 'z') {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    // Lookup helpers
+
+    private void collect(String prefix, byte[] best) {
+        for (int i = lowerBound(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+            int place = keyPlaces[i];
+            if (keyTiers[i] < best[place]) {
+                best[place] = keyTiers[i];
+            }
+        }
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String alternativeEnding(String text) {
+        if (text.isEmpty()) {
+            return "";
+        }
+        switch (Character.toLowerCase(text.charAt(text.length() - 1))) {
+            case 'c':
+                return "h";
+            case 'e':
+                return "e";
+            case 'o':
+                return "o";
+            default:
+                return "";
+        }
+    }
+
+    // Loading helpers
+
+    /**
+     * Index the whole name, and every later word of it at a lower tier so
+     * "Kochi" also finds "Fort Kochi"
+     */
+    private static void addKeys(List<String> keys, List<int[]> entries, String name, int place, int tier) {
+        if (name == null) {
+            return;
+        }
+        String[] words = name.trim().split("\\s+");
+        for (int w = 0; w < words.length; w++) {
+            StringBuilder rest = new StringBuilder();
+            for (int i = w; i < words.length; i++) {
+                rest.append(words[i]);
+            }
+            String key = fold(rest.toString());
+            if (!key.isEmpty()) {
+                keys.add(key);
+                entries.add(new int[]{place, w == 0 ? tier : TIER_LATER_WORD});
+            }
+        }
+    }
+
+    private static String field(String[] fields, int index) {
+        return index < fields.length && !fields[index].trim().isEmpty() ? fields[index].trim() : null;
+    }
+
+    // Script helpers
+
+    // Malayalam chillu letters U+0D7A..U+0D7E and their base consonants
+    private static final char FIRST_CHILLU = '\u0D7A';
+    private static final char[] CHILLU_BASES = {'ണ', 'ന', 'ര', 'ല', 'ള'};
+    private static final char MALAYALAM_VIRAMA = '\u0D4D';
+
+    private static final char DEVANAGARI_VIRAMA = '\u094D';
+    private static final char NUKTA = '\u093C';
+    private static final char ANUSVARA = '\u0902';
+
+    private static boolean isDevanagariNasal(char c) {
+        return c == 'ङ' || c == 'ञ' || c == 'ण' || c == 'न' || c == 'म';
+    }
+
+    private static boolean isDevanagariConsonant(char c) {
+        return c >= 'क' && c <= 'ह';
+    }
+
+    private static boolean isMark(char c) {
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+}
@@ -7,15 +7,25 @@ import androidx.preference.PreferenceManager;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
+import com.kerala.traveltracker.data.TripJournal;
+import com.kerala.traveltracker.data.TripRepository;
+import com.kerala.traveltracker.data.TripRoute;
+import com.kerala.traveltracker.data.UserStore;
 import com.kerala.traveltracker.models.User;
 import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.CarbonCalculator;
+import com.kerala.traveltracker.utils.LanguageManager;
+import com.kerala.traveltracker.utils.ThemeManager;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * Helper class for managing shared preferences in Kerala Travel Tracker
+ * User and trip writes return at once and reach the disk in order on the
+ * persistence writer thread; their futures complete once they are durable.
  */
 public class PreferenceHelper {
     
@@ -32,10 +42,27 @@ public class PreferenceHelper {
     
     private final SharedPreferences sharedPreferences;
     private final Gson gson;
+    private final TripRepository tripRepository;
+    private final UserStore userStore;
     
     public PreferenceHelper(Context context) {
         this.sharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
         this.gson = new Gson();
+        this.userStore = UserStore.getInstance(context);
+        this.tripRepository = TripRepository.getInstance(context, new TripJournal.Seed() {
+            @Override
+            public List<Trip> load() {
+                return loadLegacyTrips();
+            }
+            
+            @Override
+            public void onSeeded() {
+                // The journal has taken over from the legacy blob
+                sharedPreferences.edit()
+                        .remove(PREF_TRIPS_DATA)
+                        .apply();
+            }
+        });
     }
     
     // User Authentication
@@ -50,66 +77,109 @@ public class PreferenceHelper {
     }
     
     // User Data
-    public void saveUser(User user) {
-        String userJson = gson.toJson(user);
-        sharedPreferences.edit()
-                .putString(PREF_USER_DATA, userJson)
-                .apply();
+    public Future<?> saveUser(User user) {
+        return userStore.save(user);
     }
     
     public User getUser() {
+        User user = userStore.load();
+        if (user != null) {
+            return user;
+        }
+        
+        // Migrate a user saved as JSON by older versions
         String userJson = sharedPreferences.getString(PREF_USER_DATA, null);
         if (userJson != null) {
-            return gson.fromJson(userJson, User.class);
+            user = gson.fromJson(userJson, User.class);
+            if (user != null) {
+                saveUser(user);
+            }
+            sharedPreferences.edit()
+                    .remove(PREF_USER_DATA)
+                    .apply();
+            return user;
         }
         return null;
     }
     
-    public void clearUser() {
+    public Future<?> clearUser() {
         sharedPreferences.edit()
                 .remove(PREF_USER_DATA)
                 .putBoolean(PREF_USER_AUTHENTICATED, false)
                 .apply();
+        return userStore.delete();
     }
     
     // Trips Data
-    public void saveTrips(List<Trip> trips) {
-        String tripsJson = gson.toJson(trips);
-        sharedPreferences.edit()
-                .putString(PREF_TRIPS_DATA, tripsJson)
-                .apply();
+    public TripRepository getTripRepository() {
+        return tripRepository;
+    }
+    
+    public Future<?> saveTrips(List<Trip> trips) {
+        return tripRepository.replaceAll(trips);
     }
     
     public List<Trip> getTrips() {
-        String tripsJson = sharedPreferences.getString(PREF_TRIPS_DATA, null);
-        if (tripsJson != null) {
-            Type listType = new TypeToken<ArrayList<Trip>>() {}.getType();
-            return gson.fromJson(tripsJson, listType);
-        }
-        return getDefaultTrips();
+        return tripRepository.getTrips();
+    }
+    
+    public List<Trip> getTrips(int start, int count) {
+        return tripRepository.getTrips(start, count);
+    }
+    
+    public List<Trip> getRecentTrips(int count) {
+        return tripRepository.getRecentTrips(count);
+    }
+    
+    public List<TripRoute> getPopularRoutes(int count) {
+        return tripRepository.getPopularRoutes(count);
+    }
+    
+    public int getTripCount() {
+        return tripRepository.size();
+    }
+    
+    /**
+     * Changes whenever a trip is added, edited or deleted
+     */
+    public int getTripChangeCount() {
+        return tripRepository.getChangeCount();
     }
     
     public void addTrip(Trip trip) {
-        List<Trip> trips = getTrips();
-        trips.add(trip);
-        saveTrips(trips);
+        tripRepository.addTrip(trip);
     }
     
     public void updateTrip(Trip updatedTrip) {
-        List<Trip> trips = getTrips();
-        for (int i = 0; i < trips.size(); i++) {
-            if (trips.get(i).getId() == updatedTrip.getId()) {
-                trips.set(i, updatedTrip);
-                break;
-            }
-        }
-        saveTrips(trips);
+        tripRepository.updateTrip(updatedTrip);
     }
     
     public void deleteTrip(int tripId) {
-        List<Trip> trips = getTrips();
-        trips.removeIf(trip -> trip.getId() == tripId);
-        saveTrips(trips);
+        tripRepository.deleteTrip(tripId);
+    }
+    
+    /**
+     * Seed the trip journal from the old whole-list JSON blob, if any
+     */
+    private List<Trip> loadLegacyTrips() {
+        String tripsJson = sharedPreferences.getString(PREF_TRIPS_DATA, null);
+        if (tripsJson == null) {
+            return getDefaultTrips();
+        }
+        
+        Type listType = new TypeToken<ArrayList<Trip>>() {}.getType();
+        List<Trip> trips = gson.fromJson(tripsJson, listType);
+        if (trips == null) {
+            return new ArrayList<>();
+        }
+        for (Trip trip : trips) {
+            // Gson fills in only the text fields; parse them once here so
+            // the trip's getters never have to
+            trip.setDate(trip.getDate());
+            trip.setDistance(trip.getDistance());
+            trip.setCarbonFootprint(trip.getCarbonFootprint());
+        }
+        return trips;
     }
     
     private List<Trip> getDefaultTrips() {
@@ -122,7 +192,11 @@ public class PreferenceHelper {
         trip1.setDate("15 Dec 2024");
         trip1.setMode(Trip.TransportMode.BOAT);
         trip1.setDistance("53 km");
-        trip1.setCarbonFootprint("4.2 kg");
+        trip1.setOriginLat(9.9312);
+        trip1.setOriginLng(76.2673);
+        trip1.setDestinationLat(9.4981);
+        trip1.setDestinationLng(76.3388);
+        trip1.setCarbonGrams(CarbonCalculator.estimateGrams(trip1));
         trip1.setStatus(Trip.TripStatus.COMPLETED);
         defaultTrips.add(trip1);
         
@@ -133,7 +207,11 @@ public class PreferenceHelper {
         trip2.setDate("12 Dec 2024");
         trip2.setMode(Trip.TransportMode.AUTO);
         trip2.setDistance("16 km");
-        trip2.setCarbonFootprint("1.9 kg");
+        trip2.setOriginLat(8.5241);
+        trip2.setOriginLng(76.9366);
+        trip2.setDestinationLat(8.4004);
+        trip2.setDestinationLng(76.9787);
+        trip2.setCarbonGrams(CarbonCalculator.estimateGrams(trip2));
         trip2.setStatus(Trip.TripStatus.COMPLETED);
         defaultTrips.add(trip2);
         
@@ -144,7 +222,11 @@ public class PreferenceHelper {
         trip3.setDate("10 Dec 2024");
         trip3.setMode(Trip.TransportMode.BUS);
         trip3.setDistance("94 km");
-        trip3.setCarbonFootprint("7.5 kg");
+        trip3.setOriginLat(10.0889);
+        trip3.setOriginLng(77.0595);
+        trip3.setDestinationLat(9.6031);
+        trip3.setDestinationLng(77.1615);
+        trip3.setCarbonGrams(CarbonCalculator.estimateGrams(trip3));
         trip3.setStatus(Trip.TripStatus.COMPLETED);
         defaultTrips.add(trip3);
         
@@ -155,7 +237,11 @@ public class PreferenceHelper {
         trip4.setDate("8 Dec 2024");
         trip4.setMode(Trip.TransportMode.CAR);
         trip4.setDistance("76 km");
-        trip4.setCarbonFootprint("13.7 kg");
+        trip4.setOriginLat(11.2588);
+        trip4.setOriginLng(75.7804);
+        trip4.setDestinationLat(11.6103);
+        trip4.setDestinationLng(76.0828);
+        trip4.setCarbonGrams(CarbonCalculator.estimateGrams(trip4));
         trip4.setStatus(Trip.TripStatus.COMPLETED);
         defaultTrips.add(trip4);
         
@@ -167,6 +253,14 @@ public class PreferenceHelper {
         return sharedPreferences.getString(PREF_LANGUAGE, "en");
     }
     
+    /**
+     * The language setting alone, without opening the user and trip stores
+     * a helper holds
+     */
+    public static String readLanguage(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context).getString(PREF_LANGUAGE, "en");
+    }
+    
     public void setLanguage(String language) {
         sharedPreferences.edit()
                 .putString(PREF_LANGUAGE, language)
@@ -238,6 +332,10 @@ public class PreferenceHelper {
     // Clear all data
     public void clearAllData() {
         sharedPreferences.edit().clear().apply();
+        ThemeManager.invalidateCache();
+        LanguageManager.invalidateCache();
+        userStore.delete();
+        tripRepository.replaceAll(getDefaultTrips());
     }
     
     // Export user data (for GDPR compliance)
@@ -247,7 +345,10 @@ public class PreferenceHelper {
         
         UserDataExport export = new UserDataExport();
         export.user = user;
-        export.trips = trips;
+        export.trips = new ArrayList<>(trips.size());
+        for (Trip trip : trips) {
+            export.trips.add(new TripExport(trip));
+        }
         export.settings = new UserSettings();
         export.settings.language = getLanguage();
         export.settings.theme = getTheme();
@@ -261,11 +362,51 @@ public class PreferenceHelper {
     // Helper classes for data export
     public static class UserDataExport {
         public User user;
-        public List<Trip> trips;
+        public List<TripExport> trips;
         public UserSettings settings;
         public long exportedAt;
     }
     
+    /**
+     * A trip as exports have always carried it, with the date, distance and
+     * footprint as display text rather than Trip's numeric fields
+     */
+    public static class TripExport {
+        public int id;
+        public String origin;
+        public String destination;
+        public String date;
+        public Trip.TransportMode mode;
+        public String distance;
+        public String carbonFootprint;
+        public Trip.TripStatus status;
+        public long createdAt;
+        public double originLat;
+        public double originLng;
+        public double destinationLat;
+        public double destinationLng;
+        public String notes;
+        public int duration;
+        
+        TripExport(Trip trip) {
+            id = trip.getId();
+            origin = trip.getOrigin();
+            destination = trip.getDestination();
+            date = trip.getDate();
+            mode = trip.getMode();
+            distance = trip.getDistance();
+            carbonFootprint = trip.getCarbonFootprint();
+            status = trip.getStatus();
+            createdAt = trip.getCreatedAt();
+            originLat = trip.getOriginLat();
+            originLng = trip.getOriginLng();
+            destinationLat = trip.getDestinationLat();
+            destinationLng = trip.getDestinationLng();
+            notes = trip.getNotes();
+            duration = trip.getDuration();
+        }
+    }
+    
     public static class UserSettings {
         public String language;
         public String theme;
@@ -3,6 +3,7 @@ package com.kerala.traveltracker.utils;
 import android.app.Activity;
 import android.content.Context;
 import android.content.res.Configuration;
+import android.content.res.Resources;
 import android.os.Build;
 
 import androidx.appcompat.app.AppCompatDelegate;
@@ -41,27 +42,54 @@ public class ThemeManager {
         }
     }
     
+    // Shared by every ThemeManager in the process, so resuming a screen
+    // does no preference I/O: settings are read once and written only
+    // when they change, and colours are resolved once per night mode
+    private static volatile Theme cachedTheme;
+    private static volatile Boolean storedDarkMode;
+    private static volatile ThemePalette palette;
+    
     private final Context context;
     private final PreferenceHelper preferenceHelper;
     
     public ThemeManager(Context context) {
+        this(context, new PreferenceHelper(context));
+    }
+    
+    public ThemeManager(Context context, PreferenceHelper preferenceHelper) {
         this.context = context;
-        this.preferenceHelper = new PreferenceHelper(context);
+        this.preferenceHelper = preferenceHelper;
+    }
+    
+    /**
+     * Forget the cached settings after the preferences were cleared
+     */
+    public static void invalidateCache() {
+        cachedTheme = null;
+        storedDarkMode = null;
+        palette = null;
     }
     
     /**
      * Get current theme setting
      */
     public Theme getCurrentTheme() {
-        String themeValue = preferenceHelper.getTheme();
-        return Theme.fromValue(themeValue);
+        Theme theme = cachedTheme;
+        if (theme == null) {
+            theme = Theme.fromValue(preferenceHelper.getTheme());
+            cachedTheme = theme;
+        }
+        return theme;
     }
     
     /**
      * Set theme preference
      */
     public void setTheme(Theme theme) {
-        preferenceHelper.setTheme(theme.getValue());
+        if (theme != getCurrentTheme()) {
+            preferenceHelper.setTheme(theme.getValue());
+            cachedTheme = theme;
+        }
         applyTheme();
     }
     
@@ -74,28 +102,31 @@ public class ThemeManager {
     }
     
     /**
-     * Apply specific theme
+     * Apply specific theme; the night mode and the stored dark mode flag
+     * are only touched when they change
      */
     public void applyTheme(Theme theme) {
+        int nightMode;
         switch (theme) {
             case LIGHT:
-                AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
-                preferenceHelper.setDarkMode(false);
+                nightMode = AppCompatDelegate.MODE_NIGHT_NO;
                 break;
             case DARK:
-                AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
-                preferenceHelper.setDarkMode(true);
+                nightMode = AppCompatDelegate.MODE_NIGHT_YES;
                 break;
             case SYSTEM:
             default:
                 if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                    AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM);
+                    nightMode = AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM;
                 } else {
-                    AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_AUTO_BATTERY);
+                    nightMode = AppCompatDelegate.MODE_NIGHT_AUTO_BATTERY;
                 }
-                preferenceHelper.setDarkMode(isSystemDarkMode());
                 break;
         }
+        if (AppCompatDelegate.getDefaultNightMode() != nightMode) {
+            AppCompatDelegate.setDefaultNightMode(nightMode);
+        }
+        storeDarkMode(isDarkMode(theme, systemNightMode()));
     }
     
     /**
@@ -103,37 +134,71 @@ public class ThemeManager {
      */
     public void applyTheme(Activity activity) {
         applyTheme();
-        
-        if (isDarkMode()) {
-            activity.setTheme(R.style.AppTheme_Dark);
-        } else {
-            activity.setTheme(R.style.AppTheme);
+        activity.setTheme(getThemeStyle());
+    }
+    
+    /**
+     * Night mode and resolved colours for the current theme; rebuilt only
+     * when the theme or the system night mode changes
+     */
+    public ThemePalette getPalette() {
+        Theme theme = getCurrentTheme();
+        int systemNightMode = systemNightMode();
+        ThemePalette current = palette;
+        if (current == null || current.getTheme() != theme || current.getSystemNightMode() != systemNightMode) {
+            current = new ThemePalette(context, theme, systemNightMode, isDarkMode(theme, systemNightMode));
+            palette = current;
         }
+        return current;
+    }
+    
+    /**
+     * Style resource for the current light or dark mode
+     */
+    public int getThemeStyle() {
+        return getPalette().getThemeStyle();
     }
     
     /**
      * Check if current mode is dark
      */
     public boolean isDarkMode() {
-        Theme currentTheme = getCurrentTheme();
-        
-        switch (currentTheme) {
+        return getPalette().isDarkMode();
+    }
+    
+    /**
+     * Check if system is in dark mode
+     */
+    public boolean isSystemDarkMode() {
+        return systemNightMode() == Configuration.UI_MODE_NIGHT_YES;
+    }
+    
+    private static boolean isDarkMode(Theme theme, int systemNightMode) {
+        switch (theme) {
             case LIGHT:
                 return false;
             case DARK:
                 return true;
             case SYSTEM:
             default:
-                return isSystemDarkMode();
+                return systemNightMode == Configuration.UI_MODE_NIGHT_YES;
         }
     }
     
-    /**
-     * Check if system is in dark mode
-     */
-    public boolean isSystemDarkMode() {
-        int nightModeFlags = context.getResources().getConfiguration().uiMode & Configuration.UI_MODE_NIGHT_MASK;
-        return nightModeFlags == Configuration.UI_MODE_NIGHT_YES;
+    // The system's own night mode; an activity's configuration reflects the app's choice instead
+    private static int systemNightMode() {
+        return Resources.getSystem().getConfiguration().uiMode & Configuration.UI_MODE_NIGHT_MASK;
+    }
+    
+    private void storeDarkMode(boolean darkMode) {
+        Boolean stored = storedDarkMode;
+        if (stored == null) {
+            stored = preferenceHelper.isDarkMode();
+        }
+        if (stored != darkMode) {
+            preferenceHelper.setDarkMode(darkMode);
+        }
+        storedDarkMode = darkMode;
     }
     
     /**
@@ -206,55 +271,35 @@ public class ThemeManager {
      * Get status bar color based on current theme
      */
     public int getStatusBarColor() {
-        if (isDarkMode()) {
-            return context.getResources().getColor(R.color.kerala_dark);
-        } else {
-            return context.getResources().getColor(R.color.kerala_green);
-        }
+        return getPalette().getStatusBarColor();
     }
     
     /**
      * Get navigation bar color based on current theme
      */
     public int getNavigationBarColor() {
-        if (isDarkMode()) {
-            return context.getResources().getColor(R.color.kerala_dark);
-        } else {
-            return context.getResources().getColor(R.color.kerala_green);
-        }
+        return getPalette().getNavigationBarColor();
     }
     
     /**
      * Get primary color based on current theme
      */
     public int getPrimaryColor() {
-        if (isDarkMode()) {
-            return context.getResources().getColor(R.color.kerala_green);
-        } else {
-            return context.getResources().getColor(R.color.kerala_green);
-        }
+        return getPalette().getPrimaryColor();
     }
     
     /**
      * Get background color based on current theme
      */
     public int getBackgroundColor() {
-        if (isDarkMode()) {
-            return context.getResources().getColor(R.color.kerala_dark);
-        } else {
-            return context.getResources().getColor(R.color.white);
-        }
+        return getPalette().getBackgroundColor();
     }
     
     /**
      * Get text color based on current theme
      */
     public int getTextColor() {
-        if (isDarkMode()) {
-            return context.getResources().getColor(R.color.white);
-        } else {
-            return context.getResources().getColor(R.color.kerala_dark);
-        }
+        return getPalette().getTextColor();
     }
     
     /**
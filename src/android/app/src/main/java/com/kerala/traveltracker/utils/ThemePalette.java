@@ -0,0 +1,77 @@
+package com.kerala.traveltracker.utils;
+
+import android.content.Context;
+
+import androidx.core.content.ContextCompat;
+
+import com.kerala.traveltracker.R;
+
+/**
+ * Resolved colours for one theme setting and system night mode
+ * Immutable; built by {@link ThemeManager} when the theme or the system
+ * night mode changes and shared by every screen until then.
+ */
+public final class ThemePalette {
+
+    private final ThemeManager.Theme theme;
+    private final int systemNightMode;
+    private final boolean darkMode;
+    private final int themeStyle;
+    private final int statusBarColor;
+    private final int navigationBarColor;
+    private final int primaryColor;
+    private final int backgroundColor;
+    private final int textColor;
+
+    ThemePalette(Context context, ThemeManager.Theme theme, int systemNightMode, boolean darkMode) {
+        this.theme = theme;
+        this.systemNightMode = systemNightMode;
+        this.darkMode = darkMode;
+        this.themeStyle = darkMode ? R.style.AppTheme_Dark : R.style.AppTheme;
+        int dark = ContextCompat.getColor(context, R.color.kerala_dark);
+        int green = ContextCompat.getColor(context, R.color.kerala_green);
+        int white = ContextCompat.getColor(context, R.color.white);
+        this.statusBarColor = darkMode ? dark : green;
+        this.navigationBarColor = darkMode ? dark : green;
+        this.primaryColor = green;
+        this.backgroundColor = darkMode ? dark : white;
+        this.textColor = darkMode ? white : dark;
+    }
+
+    public ThemeManager.Theme getTheme() {
+        return theme;
+    }
+
+    // Configuration.UI_MODE_NIGHT_* bits of the system when this was built
+    int getSystemNightMode() {
+        return systemNightMode;
+    }
+
+    public boolean isDarkMode() {
+        return darkMode;
+    }
+
+    public int getThemeStyle() {
+        return themeStyle;
+    }
+
+    public int getStatusBarColor() {
+        return statusBarColor;
+    }
+
+    public int getNavigationBarColor() {
+        return navigationBarColor;
+    }
+
+    public int getPrimaryColor() {
+        return primaryColor;
+    }
+
+    public int getBackgroundColor() {
+        return backgroundColor;
+    }
+
+    public int getTextColor() {
+        return textColor;
+    }
+}
@@ -0,0 +1,137 @@
+package com.kerala.traveltracker.utils;
+
+import java.util.Locale;
+
+/**
+ * Unit helpers for Kerala Travel Tracker
+ * Distances are stored in metres and carbon footprints in grams of CO₂;
+ * text like "53 km" or "4.2 kg" is only parsed when old data is migrated
+ * and only produced when a value is shown
+ */
+public final class UnitUtils {
+
+    // Value of a distance or footprint that is missing or could not be parsed
+    public static final int UNKNOWN = -1;
+
+    private UnitUtils() {
+    }
+
+    /**
+     * Parse text like "53 km" or "850 m" to metres; a bare number is in km,
+     * and any other unit, such as "mi", is {@link #UNKNOWN}
+     */
+    public static int parseMeters(String text) {
+        return parse(text, "km", "m");
+    }
+
+    /**
+     * Parse text like "4.2 kg" or "300 g" to grams; a bare number is in kg,
+     * and any other unit, such as "lb", is {@link #UNKNOWN}
+     */
+    public static int parseGrams(String text) {
+        return parse(text, "kg", "g");
+    }
+
+    public static String formatDistance(int meters) {
+        if (meters == UNKNOWN) {
+            return null;
+        }
+        return formatScaled(meters, "km", "m");
+    }
+
+    public static String formatCarbon(int grams) {
+        if (grams == UNKNOWN) {
+            return null;
+        }
+        return formatScaled(grams, "kg", "g");
+    }
+
+    /**
+     * Parse a number followed by an optional unit into thousandths of the
+     * large unit, without regex or substrings. The unit is the run of
+     * letters after the number and must be exactly one of the two units.
+     */
+    private static int parse(String text, String largeUnit, String smallUnit) {
+        if (text == null) {
+            return UNKNOWN;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length && text.charAt(i) == ' ') {
+            i++;
+        }
+
+        long whole = 0;
+        long fraction = 0;
+        long fractionScale = 1;
+        boolean digits = false;
+        boolean inFraction = false;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (inFraction) {
+                    if (fractionScale < 1_000_000) {
+                        fraction = fraction * 10 + (c - '0');
+                        fractionScale *= 10;
+                    }
+                } else {
+                    whole = whole * 10 + (c - '0');
+                    if (whole > Integer.MAX_VALUE) {
+                        return UNKNOWN;
+                    }
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else if (c != ',') {
+                break;
+            }
+        }
+        if (!digits) {
+            return UNKNOWN;
+        }
+
+        while (i < length && text.charAt(i) == ' ') {
+            i++;
+        }
+        int unitEnd = i;
+        while (unitEnd < length && isAsciiLetter(text.charAt(unitEnd))) {
+            unitEnd++;
+        }
+        int unitLength = unitEnd - i;
+        int scale;
+        if (unitLength == 0 || isUnit(text, i, unitLength, largeUnit)) {
+            scale = 1000;
+        } else if (isUnit(text, i, unitLength, smallUnit)) {
+            scale = 1;
+        } else {
+            return UNKNOWN;
+        }
+
+        long value = whole * scale + Math.round((double) fraction * scale / fractionScale);
+        return value <= Integer.MAX_VALUE ? (int) value : UNKNOWN;
+    }
+
+    private static boolean isUnit(String text, int start, int length, String unit) {
+        return length == unit.length() && text.regionMatches(true, start, unit, 0, length);
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Format thousandths as a whole or one-decimal value, e.g. "53 km" or
+     * "4.2 kg", falling back to the small unit below one, e.g. "850 m"
+     */
+    private static String formatScaled(int thousandths, String unit, String smallUnit) {
+        if (thousandths < 1000) {
+            return thousandths + " " + smallUnit;
+        }
+        long tenths = Math.round(thousandths / 100.0);
+        if (tenths % 10 == 0) {
+            return (tenths / 10) + " " + unit;
+        }
+        return String.format(Locale.ENGLISH, "%d.%d %s", tenths / 10, tenths % 10, unit);
+    }
+}
@@ -0,0 +1,194 @@
+package com.kerala.traveltracker.adapters;
+
+import com.kerala.traveltracker.data.TripListing;
+import com.kerala.traveltracker.data.TripListings;
+import com.kerala.traveltracker.models.Trip;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class PagedTripListTest {
+
+    private static final int PAGE_SIZE = PagedTripList.PAGE_SIZE;
+
+    // Trips the loader decodes, by id; a missing id was deleted
+    private final Map<Integer, Trip> stored = new HashMap<>();
+    // Page loads waiting for the worker thread
+    private final List<Runnable> worker = new ArrayList<>();
+    private final List<int[]> loadedRanges = new ArrayList<>();
+    private int decodeCount;
+    private int staleCount;
+    private PagedTripList list;
+
+    @Before
+    public void setUp() {
+        list = new PagedTripList((listing, start, count) -> {
+            List<Trip> trips = new ArrayList<>();
+            for (int position = start; position < start + count; position++) {
+                Trip trip = stored.get(listing.getTripId(position));
+                decodeCount += trip != null ? 1 : 0;
+                trips.add(trip);
+            }
+            return trips;
+        }, worker::add, Runnable::run, new PagedTripList.Callback() {
+            @Override
+            public void onTripsLoaded(int start, int count) {
+                loadedRanges.add(new int[]{start, count});
+            }
+
+            @Override
+            public void onListingStale() {
+                staleCount++;
+            }
+        });
+    }
+
+    @Test
+    public void readsPlaceholdersUntilThePageIsDecoded() {
+        TripListing listing = store(1, 120);
+        list.submit(listing);
+
+        assertEquals(120, list.size());
+        assertNull(list.get(0));
+        assertEquals(41, list.getTripId(40));
+        // The page read and the one after it
+        assertEquals(2, worker.size());
+
+        runWorker();
+        assertEquals(2, loadedRanges.size());
+        assertEquals(0, loadedRanges.get(0)[0]);
+        assertEquals(PAGE_SIZE, loadedRanges.get(0)[1]);
+        assertEquals(1, list.get(0).getId());
+        assertEquals(PAGE_SIZE + 1, list.get(PAGE_SIZE).getId());
+    }
+
+    @Test
+    public void releasesPagesFarFromTheOneRead() {
+        list.submit(store(1, 10 * PAGE_SIZE));
+        list.get(0);
+        runWorker();
+        assertNotNull(list.get(0));
+
+        list.get(8 * PAGE_SIZE);
+        runWorker();
+
+        assertNull(list.get(0));
+    }
+
+    @Test
+    public void submitCarriesOverUnchangedTrips() {
+        list.submit(store(1, 3));
+        list.get(0);
+        runWorker();
+        Trip unchanged = list.get(0);
+
+        // Trip 4 added in front, so the others move down a position
+        stored.put(4, trip(4));
+        list.submit(TripListings.of(new int[]{4, 1, 2, 3}, new int[]{1, 1, 1, 1}));
+
+        assertSame(unchanged, list.get(1));
+        assertNull(list.get(0));
+        runWorker();
+        assertEquals(4, list.get(0).getId());
+        assertSame(unchanged, list.get(1));
+    }
+
+    @Test
+    public void submitDecodesOnlyPagesWithEditedTrips() {
+        TripListing listing = store(1, 2 * PAGE_SIZE);
+        list.submit(listing);
+        list.get(0);
+        runWorker();
+        Trip unchanged = list.get(0);
+        int decoded = decodeCount;
+
+        // The trip at position 59 was edited
+        int[] ids = new int[listing.size()];
+        int[] versions = new int[listing.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = listing.getTripId(i);
+            versions[i] = i == 59 ? 2 : 1;
+        }
+        list.submit(TripListings.of(ids, versions));
+
+        assertSame(unchanged, list.get(0));
+        assertNull(list.get(59));
+        assertEquals(1, worker.size());
+        runWorker();
+        assertEquals(60, list.get(59).getId());
+        assertEquals(decoded + PAGE_SIZE, decodeCount);
+    }
+
+    @Test
+    public void reportsDeletedTripsOnce() {
+        TripListing listing = store(1, 5);
+        stored.remove(3);
+        stored.remove(4);
+        list.submit(listing);
+        list.get(0);
+        runWorker();
+
+        assertNull(list.get(2));
+        assertNull(list.get(3));
+        assertEquals(5, list.get(4).getId());
+        assertEquals(1, staleCount);
+        // Deleted trips are not loaded again
+        assertEquals(0, worker.size());
+    }
+
+    @Test
+    public void dropsPagesOfAnOlderListing() {
+        list.submit(store(1, 5));
+        list.get(0);
+        list.submit(store(6, 5));
+        runWorker();
+
+        assertEquals(0, loadedRanges.size());
+        assertNull(list.get(0));
+        runWorker();
+        assertEquals(6, list.get(0).getId());
+    }
+
+    // Helpers
+
+    /**
+     * Store trips with ids {@code first} onwards at version 1, and list them
+     * in that order
+     */
+    private TripListing store(int first, int count) {
+        int[] ids = new int[count];
+        int[] versions = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = first + i;
+            versions[i] = 1;
+            stored.put(ids[i], trip(ids[i]));
+        }
+        return TripListings.of(ids, versions);
+    }
+
+    private void runWorker() {
+        List<Runnable> queued = new ArrayList<>(worker);
+        worker.clear();
+        for (Runnable load : queued) {
+            load.run();
+        }
+    }
+
+    private static Trip trip(int id) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setOrigin("Kochi");
+        trip.setDestination("Munnar");
+        return trip;
+    }
+}
@@ -0,0 +1,109 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.utils.CarbonCalculator;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GeoGridTest {
+
+    @Test
+    public void boxFindsOnlyThePointsInside() {
+        GeoGrid grid = new GeoGrid();
+        grid.add(1, 9.93, 76.26);    // Kochi
+        grid.add(2, 9.49, 76.33);    // Alappuzha
+        grid.add(3, 8.52, 76.93);    // Thiruvananthapuram
+        grid.add(4, 0, 0);           // unset, never indexed
+
+        assertEquals(3, grid.size());
+        assertArrayEquals(new int[]{1, 2}, sorted(grid.queryBox(9.4, 76.2, 10.0, 76.4)));
+        assertArrayEquals(new int[0], grid.queryBox(-1, -1, 1, 1));
+    }
+
+    @Test
+    public void radiusListsNearestFirst() {
+        GeoGrid grid = new GeoGrid();
+        grid.add(1, 9.93, 76.26);
+        grid.add(2, 9.49, 76.33);
+        grid.add(3, 8.52, 76.93);
+        grid.add(4, 9.95, 76.27);
+
+        // Alappuzha is about 49 km from Kochi, Thiruvananthapuram about 170 km
+        assertArrayEquals(new int[]{1, 4, 2}, grid.queryRadius(9.93, 76.26, 60_000));
+        assertArrayEquals(new int[]{1, 4}, grid.queryRadius(9.93, 76.26, 5_000));
+    }
+
+    @Test
+    public void removeDropsOnlyThatTrip() {
+        GeoGrid grid = new GeoGrid();
+        grid.add(1, 9.93, 76.26);
+        grid.add(2, 9.93, 76.26);
+        grid.add(3, 9.931, 76.261);
+        grid.remove(2, 9.93, 76.26);
+        // Removing an unknown trip or cell is a no-op
+        grid.remove(9, 9.93, 76.26);
+        grid.remove(9, 50, 50);
+
+        assertEquals(2, grid.size());
+        assertArrayEquals(new int[]{1, 3}, sorted(grid.queryBox(9.9, 76.2, 10, 76.3)));
+    }
+
+    @Test
+    public void clearEmptiesTheGrid() {
+        GeoGrid grid = new GeoGrid();
+        grid.add(1, 9.93, 76.26);
+        grid.clear();
+        grid.add(2, 8.52, 76.93);
+
+        assertEquals(1, grid.size());
+        assertArrayEquals(new int[]{2}, grid.queryBox(-90, -180, 90, 180));
+    }
+
+    @Test
+    public void matchesABruteForceScan() {
+        Random random = new Random(5);
+        int count = 5000;
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        GeoGrid grid = new GeoGrid();
+        for (int id = 0; id < count; id++) {
+            // Spread over Kerala and beyond, across many cells
+            lats[id] = 8 + random.nextDouble() * 5;
+            lngs[id] = 74 + random.nextDouble() * 5;
+            grid.add(id, lats[id], lngs[id]);
+        }
+
+        for (int query = 0; query < 50; query++) {
+            double lat = 8 + random.nextDouble() * 5;
+            double lng = 74 + random.nextDouble() * 5;
+            double radius = 1000 + random.nextDouble() * 50_000;
+            int[] expected = new int[count];
+            int found = 0;
+            for (int id = 0; id < count; id++) {
+                if (CarbonCalculator.greatCircleMeters(lat, lng, lats[id], lngs[id]) <= radius) {
+                    expected[found++] = id;
+                }
+            }
+            int[] actual = grid.queryRadius(lat, lng, radius);
+            assertArrayEquals(Arrays.copyOf(expected, found), sorted(actual));
+            for (int i = 1; i < actual.length; i++) {
+                double previous = CarbonCalculator.greatCircleMeters(lat, lng, lats[actual[i - 1]], lngs[actual[i - 1]]);
+                double next = CarbonCalculator.greatCircleMeters(lat, lng, lats[actual[i]], lngs[actual[i]]);
+                // Ordered by whole metres
+                assertTrue(Math.round(previous) <= Math.round(next));
+            }
+        }
+    }
+
+    private static int[] sorted(int[] ids) {
+        int[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
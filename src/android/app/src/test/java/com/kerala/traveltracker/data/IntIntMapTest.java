@@ -0,0 +1,106 @@
+package com.kerala.traveltracker.data;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntIntMapTest {
+
+    @Test
+    public void putGetAndOverwrite() {
+        IntIntMap map = new IntIntMap();
+        map.put(7, 70);
+        map.put(-3, 0);
+        map.put(7, 71);
+
+        assertEquals(71, map.get(7));
+        assertEquals(0, map.get(-3));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void missingKeysReadAsMinusOne() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 10);
+
+        assertEquals(-1, map.get(2));
+        assertEquals(-1, map.remove(2));
+        assertFalse(map.containsKey(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeValues() {
+        new IntIntMap().put(1, -1);
+    }
+
+    @Test
+    public void growsPastItsExpectedSize() {
+        IntIntMap map = new IntIntMap(4);
+        for (int key = 0; key < 10_000; key++) {
+            map.put(key, key * 2);
+        }
+        for (int key = 0; key < 10_000; key++) {
+            assertEquals(key * 2, map.get(key));
+        }
+        assertEquals(10_000, map.size());
+    }
+
+    @Test
+    public void removeKeepsTheRestOfAProbeRunReachable() {
+        // Fill the table to its load limit so probe runs are long and wrap
+        IntIntMap map = new IntIntMap(32);
+        for (int key = 0; key < 32; key++) {
+            map.put(key * 64, key);
+        }
+        for (int key = 0; key < 32; key += 2) {
+            assertEquals(key, map.remove(key * 64));
+        }
+        for (int key = 0; key < 32; key++) {
+            assertEquals(key % 2 == 0 ? -1 : key, map.get(key * 64));
+        }
+        assertEquals(16, map.size());
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomChurn() {
+        Random random = new Random(42);
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(512) - 256;
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed != null ? removed : -1, map.remove(key));
+            } else {
+                int value = random.nextInt(1000);
+                expected.put(key, value);
+                map.put(key, value);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -256; key < 256; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value != null ? value : -1, map.get(key));
+            assertEquals(value != null, map.containsKey(key));
+        }
+    }
+
+    @Test
+    public void clearEmptiesTheMap() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.put(2, 2);
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(1));
+        map.put(1, 5);
+        assertTrue(map.containsKey(1));
+    }
+}
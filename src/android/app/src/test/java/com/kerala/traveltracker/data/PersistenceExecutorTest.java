@@ -0,0 +1,104 @@
+package com.kerala.traveltracker.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PersistenceExecutorTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private final PersistenceExecutor writer = PersistenceExecutor.getInstance();
+
+    @Test
+    public void runsWritesInSubmissionOrder() throws Exception {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        Future<?> last = null;
+        for (int i = 0; i < 200; i++) {
+            int write = i;
+            last = writer.submit(() -> order.add(write));
+        }
+        last.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals(200, order.size());
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void futuresCompleteWithTheWriteResult() throws Exception {
+        assertEquals("written", writer.submit(() -> "written").get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        Future<Object> failed = writer.submit(() -> {
+            throw new IllegalStateException("disk full");
+        });
+        try {
+            failed.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            fail("Failed write completed normally");
+        } catch (ExecutionException e) {
+            assertEquals("disk full", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void knowsItsOwnThread() throws Exception {
+        assertFalse(writer.isWriterThread());
+        assertTrue(writer.submit(writer::isWriterThread).get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void scheduledWriteRunsAfterLaterSubmits() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Future<?> delayed = writer.schedule(() -> order.add("delayed"), 100);
+        writer.submit(() -> order.add("immediate")).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        delayed.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals(2, order.size());
+        assertEquals("immediate", order.get(0));
+        assertEquals("delayed", order.get(1));
+    }
+
+    @Test
+    public void failedWritesFreeTheirSlots() throws Exception {
+        Future<?> last = null;
+        // More than the queue holds; a leaked slot would block the caller
+        for (int i = 0; i < 3 * PersistenceExecutor.CAPACITY; i++) {
+            last = writer.submit(() -> {
+                throw new IllegalStateException("disk full");
+            });
+        }
+        try {
+            last.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            fail("Failed write completed normally");
+        } catch (ExecutionException expected) {
+            // Every write failed, and the caller was never blocked for good
+        }
+        writer.submit(() -> { }).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void writesQueuedByAWriteSkipTheBound() throws Exception {
+        // The writer must not block on a queue only it can drain
+        Future<Integer> queued = writer.submit(() -> {
+            int count = 2 * PersistenceExecutor.CAPACITY;
+            for (int i = 0; i < count; i++) {
+                writer.submit(() -> { });
+            }
+            return count;
+        });
+
+        assertEquals(2 * PersistenceExecutor.CAPACITY, (int) queued.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        writer.submit(() -> { }).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+}
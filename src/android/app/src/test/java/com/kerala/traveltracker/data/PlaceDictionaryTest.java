@@ -0,0 +1,85 @@
+package com.kerala.traveltracker.data;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class PlaceDictionaryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void internsEachNameOnce() {
+        PlaceDictionary places = new PlaceDictionary(folder.getRoot());
+        int kochi = places.intern("Kochi");
+        int munnar = places.intern("Munnar");
+
+        assertEquals(kochi, places.intern(new String("Kochi")));
+        assertNotEquals(kochi, munnar);
+        assertEquals(PlaceDictionary.NO_PLACE, places.intern(null));
+        assertEquals(2, places.size());
+        assertNull(places.getName(PlaceDictionary.NO_PLACE));
+        assertNull(places.getName(99));
+    }
+
+    @Test
+    public void keepsTheFirstKnownCoordinates() {
+        PlaceDictionary places = new PlaceDictionary(folder.getRoot());
+        int kochi = places.intern("Kochi");
+        places.intern("Kochi", 9.93, 76.26);
+        places.intern("Kochi", 1, 1);
+
+        assertEquals(9.93, places.getLat(kochi), 0);
+        assertEquals(76.26, places.getLng(kochi), 0);
+    }
+
+    @Test
+    public void flushedPlacesSurviveReopening() throws IOException {
+        PlaceDictionary places = new PlaceDictionary(folder.getRoot());
+        int kochi = places.intern("Kochi", 9.93, 76.26);
+        int munnar = places.intern("Munnar");
+        places.flush();
+        // Added after the flush, so never written
+        places.intern("Kovalam");
+
+        PlaceDictionary reopened = new PlaceDictionary(folder.getRoot());
+        assertEquals(2, reopened.size());
+        assertEquals("Kochi", reopened.getName(kochi));
+        assertEquals("Munnar", reopened.getName(munnar));
+        assertEquals(9.93, reopened.getLat(kochi), 0);
+        // Names resolve to one shared instance
+        assertSame(reopened.getName(kochi), reopened.getName(reopened.intern("Kochi")));
+    }
+
+    @Test
+    public void discardsTornFinalRecord() throws IOException {
+        PlaceDictionary places = new PlaceDictionary(folder.getRoot());
+        places.intern("Kochi");
+        places.flush();
+        File file = new File(folder.getRoot(), "places.dict");
+        long validLength = file.length();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            // A place record whose name was cut short
+            out.write(new byte[]{1, 10, 'M', 'u'});
+        }
+
+        PlaceDictionary reopened = new PlaceDictionary(folder.getRoot());
+        assertEquals(1, reopened.size());
+        assertEquals(validLength, file.length());
+
+        // Appends after the repair land on a clean record boundary
+        int munnar = reopened.intern("Munnar");
+        reopened.flush();
+        assertEquals("Munnar", new PlaceDictionary(folder.getRoot()).getName(munnar));
+    }
+}
@@ -0,0 +1,96 @@
+package com.kerala.traveltracker.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RouteSketchTest {
+
+    private static final byte BUS = 2;
+    private static final byte TRAIN = 3;
+
+    @Test
+    public void countsExactlyBelowCapacity() {
+        RouteSketch sketch = new RouteSketch();
+        addTrips(sketch, 1, 2, 3, BUS);
+        addTrips(sketch, 2, 1, 1, BUS);
+        addTrips(sketch, 3, 4, 2, BUS);
+        sketch.add(1, 2, TRAIN);
+
+        // (origin, destination, count, latest mode) quadruples
+        assertArrayEquals(new int[]{1, 2, 4, TRAIN, 3, 4, 2, BUS}, sketch.top(2));
+        assertEquals(3, sketch.size());
+    }
+
+    @Test
+    public void ignoresTripsWithoutBothPlaces() {
+        RouteSketch sketch = new RouteSketch();
+        sketch.add(PlaceDictionary.NO_PLACE, 2, BUS);
+        sketch.add(1, PlaceDictionary.NO_PLACE, BUS);
+        sketch.remove(PlaceDictionary.NO_PLACE, 2);
+
+        assertEquals(0, sketch.size());
+    }
+
+    @Test
+    public void dropsRoutesWhoseCountReachesZero() {
+        RouteSketch sketch = new RouteSketch();
+        addTrips(sketch, 1, 2, 2, BUS);
+        addTrips(sketch, 5, 6, 1, BUS);
+        sketch.remove(1, 2);
+        sketch.remove(1, 2);
+        // Never counted, so nothing to take away
+        sketch.remove(7, 8);
+
+        assertArrayEquals(new int[]{5, 6, 1, BUS}, sketch.top(10));
+    }
+
+    @Test
+    public void keepsFrequentRoutesWhenCountersAreEvicted() {
+        RouteSketch sketch = new RouteSketch();
+        int place = 100;
+        for (int i = 0; i < 2000; i++) {
+            sketch.add(place, place + 1, BUS);
+            place += 2;
+            if (i % 10 == 0) {
+                sketch.add(1, 2, TRAIN);
+            }
+        }
+
+        assertEquals(RouteSketch.CAPACITY, sketch.size());
+        int[] top = sketch.top(1);
+        assertEquals(1, top[0]);
+        assertEquals(2, top[1]);
+        // Counts may overestimate by the evicted counter, never underestimate
+        assertTrue(top[2] >= 200);
+    }
+
+    @Test
+    public void stillFindsRoutesAfterManyRemovals() {
+        RouteSketch sketch = new RouteSketch();
+        for (int origin = 1; origin <= RouteSketch.CAPACITY; origin++) {
+            addTrips(sketch, origin, 1000, origin, BUS);
+        }
+        for (int origin = 1; origin <= RouteSketch.CAPACITY; origin += 2) {
+            for (int i = 0; i < origin; i++) {
+                sketch.remove(origin, 1000);
+            }
+        }
+
+        assertEquals(RouteSketch.CAPACITY / 2, sketch.size());
+        int[] top = sketch.top(RouteSketch.CAPACITY);
+        for (int i = 0; i < sketch.size(); i++) {
+            int origin = RouteSketch.CAPACITY - i * 2;
+            assertEquals(origin, top[i * 4]);
+            assertEquals(origin, top[i * 4 + 2]);
+        }
+    }
+
+    private static void addTrips(RouteSketch sketch, int origin, int destination, int count, byte mode) {
+        for (int i = 0; i < count; i++) {
+            sketch.add(origin, destination, mode);
+        }
+    }
+}
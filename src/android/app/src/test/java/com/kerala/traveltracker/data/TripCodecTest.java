@@ -0,0 +1,146 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.DateUtils;
+import com.kerala.traveltracker.utils.UnitUtils;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.BufferUnderflowException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TripCodecTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TripCodec codec;
+
+    @Before
+    public void setUp() {
+        codec = new TripCodec(new PlaceDictionary(folder.getRoot()));
+    }
+
+    @Test
+    public void roundTripsEveryField() {
+        Trip trip = new Trip();
+        trip.setId(7);
+        trip.setOrigin("Kochi");
+        trip.setDestination("Munnar");
+        trip.setDate("15 Dec 2024");
+        trip.setMode(Trip.TransportMode.BUS);
+        trip.setStatus(Trip.TripStatus.COMPLETED);
+        trip.setDistance("130.5 km");
+        trip.setCarbonFootprint("9.1 kg");
+        trip.setCreatedAt(1_700_000_000_000L);
+        trip.setOriginLat(9.93);
+        trip.setOriginLng(76.26);
+        trip.setDestinationLat(10.09);
+        trip.setDestinationLng(77.06);
+        trip.setDuration(240);
+        trip.setNotes("Tea gardens");
+
+        Trip decoded = codec.decode(codec.encode(trip));
+        assertEquals(7, decoded.getId());
+        assertEquals("Kochi", decoded.getOrigin());
+        assertEquals("Munnar", decoded.getDestination());
+        assertEquals("15 Dec 2024", decoded.getDate());
+        assertEquals(Trip.TransportMode.BUS, decoded.getMode());
+        assertEquals(Trip.TripStatus.COMPLETED, decoded.getStatus());
+        assertEquals(130_500, decoded.getDistanceMeters());
+        assertEquals(9100, decoded.getCarbonGrams());
+        assertEquals(1_700_000_000_000L, decoded.getCreatedAt());
+        assertEquals(9.93, decoded.getOriginLat(), 0);
+        assertEquals(76.26, decoded.getOriginLng(), 0);
+        assertEquals(10.09, decoded.getDestinationLat(), 0);
+        assertEquals(77.06, decoded.getDestinationLng(), 0);
+        assertEquals(240, decoded.getDuration());
+        assertEquals("Tea gardens", decoded.getNotes());
+    }
+
+    @Test
+    public void keepsTextThatDoesNotParse() {
+        Trip trip = new Trip();
+        trip.setDate("sometime soon");
+        trip.setDistance("far");
+        trip.setCarbonFootprint("unknown");
+
+        Trip decoded = codec.decode(codec.encode(trip));
+        assertEquals(DateUtils.NO_DATE, decoded.getEpochDay());
+        assertEquals("sometime soon", decoded.getDate());
+        assertEquals(UnitUtils.UNKNOWN, decoded.getDistanceMeters());
+        assertEquals("far", decoded.getDistance());
+        assertEquals(UnitUtils.UNKNOWN, decoded.getCarbonGrams());
+        assertEquals("unknown", decoded.getCarbonFootprint());
+    }
+
+    @Test
+    public void keepsMissingFields() {
+        Trip trip = new Trip();
+        trip.setMode(null);
+        trip.setStatus(null);
+
+        Trip decoded = codec.decode(codec.encode(trip));
+        assertNull(decoded.getOrigin());
+        assertNull(decoded.getDestination());
+        assertNull(decoded.getDate());
+        assertNull(decoded.getNotes());
+        // Missing enums decode to the same defaults keysOf uses
+        assertEquals(Trip.TransportMode.CAR, decoded.getMode());
+        assertEquals(Trip.TripStatus.PLANNED, decoded.getStatus());
+    }
+
+    @Test
+    public void readKeysMatchesKeysOf() {
+        Trip trip = new Trip();
+        trip.setOrigin("Kochi");
+        trip.setDestination("Munnar");
+        trip.setDate("31 Dec 1999");
+        trip.setMode(Trip.TransportMode.TRAIN);
+        trip.setDistance("53 km");
+        trip.setOriginLat(9.93);
+        trip.setDestinationLng(77.06);
+        int[] expectedKeys = new int[TripCodec.KEY_COUNT];
+        double[] expectedCoordinates = new double[TripCodec.COORDINATE_COUNT];
+        codec.keysOf(trip, expectedKeys, expectedCoordinates);
+
+        int[] keys = new int[TripCodec.KEY_COUNT];
+        double[] coordinates = new double[TripCodec.COORDINATE_COUNT];
+        codec.readKeys(new RecordReader(codec.encode(trip)), keys, coordinates);
+        assertArrayEquals(expectedKeys, keys);
+        assertArrayEquals(expectedCoordinates, coordinates, 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsUnknownVersion() {
+        byte[] record = codec.encode(new Trip());
+        record[0] = 9;
+        codec.decode(record);
+    }
+
+    @Test(expected = BufferUnderflowException.class)
+    public void truncatedRecordUnderflows() {
+        byte[] record = codec.encode(new Trip());
+        codec.decode(Arrays.copyOf(record, record.length - 1));
+    }
+
+    @Test(expected = BufferUnderflowException.class)
+    public void stringLengthPastTheEndUnderflows() {
+        RecordWriter writer = new RecordWriter();
+        writer.writeVarInt(1000);
+        writer.writeBytes(new byte[]{'K', 'o', 'c', 'h', 'i'});
+        new RecordReader(writer.toByteArray()).readString();
+    }
+
+    @Test(expected = BufferUnderflowException.class)
+    public void skipPastTheEndUnderflows() {
+        new RecordReader(new byte[4]).skip(5);
+    }
+}
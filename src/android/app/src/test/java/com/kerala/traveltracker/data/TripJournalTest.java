@@ -0,0 +1,291 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.Trip;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TripJournalTest {
+
+    // Mirrors of the journal's private record opcodes
+    private static final int OP_PUT = 1;
+    private static final int OP_DELETE = 2;
+
+    private static final long COMPACTION_TIMEOUT_MS = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private File journalFile;
+
+    @Before
+    public void setUp() {
+        directory = folder.getRoot();
+        journalFile = new File(directory, "trips.journal");
+    }
+
+    // Replay
+
+    @Test
+    public void seedsAnEmptyDirectoryOnce() {
+        List<Trip> seeded = Arrays.asList(trip(1, "Munnar"), trip(2, "Thekkady"));
+        int[] seededCalls = new int[1];
+        TripJournal journal = new TripJournal(directory, new TripJournal.Seed() {
+            @Override
+            public List<Trip> load() {
+                return seeded;
+            }
+
+            @Override
+            public void onSeeded() {
+                seededCalls[0]++;
+            }
+        });
+
+        assertEquals(1, seededCalls[0]);
+        assertTrips(seeded, journal.getTrips());
+        assertTrips(seeded, reopen().getTrips());
+    }
+
+    @Test
+    public void replaysPutsUpdatesAndDeletes() {
+        TripJournal journal = new TripJournal(directory, seed(new ArrayList<>()));
+        List<Trip> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Trip trip = trip(journal.allocateId(), "Place " + i);
+            journal.put(trip);
+            expected.add(trip);
+        }
+        journal.flush();
+        Trip updated = trip(expected.get(3).getId(), "Kovalam");
+        updated.setNotes("Moved to the coast");
+        journal.put(updated);
+        expected.set(3, updated);
+        int deletedId = expected.get(5).getId();
+        journal.delete(deletedId);
+        journal.delete(expected.get(6).getId());
+        journal.flush();
+        expected.remove(6);
+        expected.remove(5);
+
+        TripJournal reopened = reopen();
+        assertTrips(expected, reopened.getTrips());
+        assertNull(reopened.getTrip(deletedId));
+        assertFalse(reopened.contains(deletedId));
+        assertTrips(expected.subList(4, 7), reopened.getTrips(4, 3));
+    }
+
+    @Test
+    public void neverReusesDeletedIds() {
+        TripJournal journal = new TripJournal(directory, seed(new ArrayList<>()));
+        int id = journal.allocateId();
+        journal.put(trip(id, "Munnar"));
+        journal.delete(id);
+        journal.flush();
+
+        assertTrue(reopen().allocateId() > id);
+    }
+
+    @Test
+    public void discardsTornFinalRecord() throws IOException {
+        TripJournal journal = new TripJournal(directory, seed(new ArrayList<>()));
+        Trip trip = trip(journal.allocateId(), "Munnar");
+        journal.put(trip);
+        journal.flush();
+        long validLength = journalFile.length();
+
+        // A put whose payload was cut short by a crash
+        RecordWriter torn = new RecordWriter();
+        torn.writeByte(OP_PUT).writeVarInt(50).writeVarInt(40).writeBytes(new byte[]{1, 1});
+        append(torn.toByteArray());
+
+        TripJournal reopened = reopen();
+        assertTrips(Arrays.asList(trip), reopened.getTrips());
+        assertEquals(validLength, journalFile.length());
+
+        // Appends after the repair land on a clean record boundary
+        Trip next = trip(reopened.allocateId(), "Kochi");
+        reopened.put(next);
+        reopened.flush();
+        assertTrips(Arrays.asList(trip, next), reopen().getTrips());
+    }
+
+    @Test
+    public void discardsTornVarInt() throws IOException {
+        TripJournal journal = new TripJournal(directory, seed(new ArrayList<>()));
+        Trip trip = trip(journal.allocateId(), "Munnar");
+        journal.put(trip);
+        journal.flush();
+        long validLength = journalFile.length();
+
+        append(new byte[]{OP_DELETE, (byte) 0x80});
+
+        assertTrips(Arrays.asList(trip), reopen().getTrips());
+        assertEquals(validLength, journalFile.length());
+    }
+
+    @Test
+    public void setsAsideUnreadableJournal() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(journalFile)) {
+            out.write("definitely not a trip journal".getBytes(StandardCharsets.UTF_8));
+        }
+
+        TripJournal journal = reopen();
+        assertEquals(0, journal.size());
+        assertTrue(new File(directory, "trips.journal.corrupt").exists());
+
+        Trip trip = trip(journal.allocateId(), "Munnar");
+        journal.put(trip);
+        journal.flush();
+        assertTrips(Arrays.asList(trip), reopen().getTrips());
+    }
+
+    // Rewrites
+
+    @Test
+    public void replaceAllSwapsTheWholeSet() {
+        TripJournal journal = new TripJournal(directory, seed(new ArrayList<>(Arrays.asList(
+                trip(1, "Munnar"), trip(2, "Thekkady")))));
+        int retired = journal.allocateId();
+        journal.put(trip(retired, "Kovalam"));
+        List<Trip> replacement = Arrays.asList(trip(2, "Varkala"), trip(1, "Alappuzha"));
+
+        journal.replaceAll(replacement);
+
+        assertTrips(replacement, journal.getTrips());
+        TripJournal reopened = reopen();
+        assertTrips(replacement, reopened.getTrips());
+        assertTrue(reopened.allocateId() > retired);
+    }
+
+    @Test
+    public void reestimateCarbonRewritesEveryFootprint() {
+        Trip flushed = trip(1, "Munnar");
+        flushed.setMode(Trip.TransportMode.BUS);
+        flushed.setDistance("100 km");
+        flushed.setCarbonFootprint("1 kg");
+        TripJournal journal = new TripJournal(directory, seed(new ArrayList<>(Arrays.asList(flushed))));
+        // Still only in memory when the estimate runs
+        Trip buffered = trip(journal.allocateId(), "Kovalam");
+        buffered.setMode(Trip.TransportMode.TRAIN);
+        buffered.setDistance("100 km");
+        journal.put(buffered);
+
+        journal.reestimateCarbon();
+
+        assertEquals(8200, journal.getTrip(1).getCarbonGrams());
+        assertEquals(4100, journal.getTrip(buffered.getId()).getCarbonGrams());
+        assertEquals(8200, reopen().getTrip(1).getCarbonGrams());
+    }
+
+    // Compaction
+
+    @Test
+    public void compactsDeadRecords() throws Exception {
+        List<Trip> live = new ArrayList<>();
+        for (int id = 1; id <= 10; id++) {
+            live.add(trip(id, "Munnar"));
+        }
+        TripJournal journal = new TripJournal(directory, seed(live));
+        int[] churned = new int[300];
+        for (int i = 0; i < churned.length; i++) {
+            churned[i] = journal.allocateId();
+            journal.put(trip(churned[i], "Kovalam"));
+        }
+        journal.flush();
+        // Only this flush leaves enough dead records to schedule a compaction
+        for (int id : churned) {
+            journal.delete(id);
+        }
+        journal.flush();
+        long uncompacted = journalFile.length();
+
+        long deadline = System.currentTimeMillis() + COMPACTION_TIMEOUT_MS;
+        while (journalFile.length() >= uncompacted) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Journal was not compacted");
+            }
+            Thread.sleep(10);
+        }
+
+        // Writes after the swap append to the compacted file
+        Trip added = trip(journal.allocateId(), "Kochi");
+        journal.put(added);
+        journal.flush();
+        live.add(added);
+        assertTrips(live, journal.getTrips());
+
+        TripJournal reopened = reopen();
+        assertTrips(live, reopened.getTrips());
+        assertTrue(reopened.allocateId() > added.getId());
+    }
+
+    // Helpers
+
+    private static Trip trip(int id, String destination) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setOrigin("Kochi");
+        trip.setDestination(destination);
+        trip.setDate("1 Jan 2025");
+        return trip;
+    }
+
+    private TripJournal reopen() {
+        return new TripJournal(directory, new TripJournal.Seed() {
+            @Override
+            public List<Trip> load() {
+                throw new AssertionError("Existing journal was seeded");
+            }
+
+            @Override
+            public void onSeeded() {
+            }
+        });
+    }
+
+    private static TripJournal.Seed seed(List<Trip> trips) {
+        return new TripJournal.Seed() {
+            @Override
+            public List<Trip> load() {
+                return trips;
+            }
+
+            @Override
+            public void onSeeded() {
+            }
+        };
+    }
+
+    private static void assertTrips(List<Trip> expected, List<Trip> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getDestination(), actual.get(i).getDestination());
+            assertEquals(expected.get(i).getNotes(), actual.get(i).getNotes());
+        }
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.kerala.traveltracker.data;
+
+/**
+ * Builds listings for tests outside the data package
+ */
+public final class TripListings {
+
+    private TripListings() {
+    }
+
+    public static TripListing of(int[] tripIds, int[] versions) {
+        return new TripListing(tripIds, versions);
+    }
+}
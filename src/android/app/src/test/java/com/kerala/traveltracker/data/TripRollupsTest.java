@@ -0,0 +1,141 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.DateUtils;
+import com.kerala.traveltracker.utils.UnitUtils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TripRollupsTest {
+
+    private static final int BUS = Trip.TransportMode.BUS.ordinal();
+    private static final int BOAT = Trip.TransportMode.BOAT.ordinal();
+    private static final int COMPLETED = Trip.TripStatus.COMPLETED.ordinal();
+    private static final int PLANNED = Trip.TripStatus.PLANNED.ordinal();
+
+    private static final int DEC_2024 = DateUtils.parseEpochDay("15 Dec 2024");
+    private static final int JAN_2025 = DateUtils.parseEpochDay("1 Jan 2025");
+
+    @Test
+    public void totalsEveryGroup() {
+        TripRollups rollups = new TripRollups();
+        rollups.add(BUS, COMPLETED, DEC_2024, 90, 53_000, 4200);
+        rollups.add(BOAT, PLANNED, JAN_2025, 30, 16_000, 0);
+        rollups.add(BUS, PLANNED, JAN_2025, 45, 10_000, 800);
+
+        TripInsights insights = rollups.snapshot();
+        assertTotals(3, 79_000, 5000, 165, insights.getOverall());
+        assertTotals(2, 63_000, 5000, 135, insights.getForMode(Trip.TransportMode.BUS));
+        assertTotals(1, 16_000, 0, 30, insights.getForMode(Trip.TransportMode.BOAT));
+        assertTotals(0, 0, 0, 0, insights.getForMode(Trip.TransportMode.WALK));
+        assertTotals(2, 26_000, 800, 75, insights.getForStatus(Trip.TripStatus.PLANNED));
+        assertArrayEquals(new int[]{DateUtils.monthIndex(DEC_2024), DateUtils.monthIndex(JAN_2025)},
+                insights.getMonths());
+        assertTotals(2, 26_000, 800, 75, insights.getForMonth(DateUtils.monthIndex(JAN_2025)));
+    }
+
+    @Test
+    public void unknownValuesAndDatesCountOnlyTheTrip() {
+        TripRollups rollups = new TripRollups();
+        rollups.add(BUS, COMPLETED, DateUtils.NO_DATE, 0, UnitUtils.UNKNOWN, UnitUtils.UNKNOWN);
+
+        TripInsights insights = rollups.snapshot();
+        assertTotals(1, 0, 0, 0, insights.getOverall());
+        assertEquals(0, insights.getMonths().length);
+    }
+
+    @Test
+    public void removingATripUndoesItsAdd() {
+        TripRollups rollups = new TripRollups();
+        rollups.add(BUS, COMPLETED, DEC_2024, 90, 53_000, 4200);
+        rollups.add(BOAT, PLANNED, JAN_2025, 30, 16_000, 0);
+        rollups.remove(BOAT, PLANNED, JAN_2025, 30, 16_000, 0);
+
+        TripInsights insights = rollups.snapshot();
+        assertTotals(1, 53_000, 4200, 90, insights.getOverall());
+        assertTotals(0, 0, 0, 0, insights.getForMode(Trip.TransportMode.BOAT));
+        // Months left without trips are dropped
+        assertArrayEquals(new int[]{DateUtils.monthIndex(DEC_2024)}, insights.getMonths());
+    }
+
+    @Test
+    public void monthsGrowPastTheInitialCapacityInOrder() {
+        TripRollups rollups = new TripRollups();
+        // Add newest first so first-seen order differs from calendar order
+        for (int month = 39; month >= 0; month--) {
+            rollups.add(BUS, COMPLETED, month * 31, 10, 1000, 100);
+        }
+
+        int[] months = rollups.snapshot().getMonths();
+        assertEquals(40, months.length);
+        for (int i = 1; i < months.length; i++) {
+            assertEquals(months[i - 1] + 1, months[i]);
+        }
+    }
+
+    @Test
+    public void clearStartsOver() {
+        TripRollups rollups = new TripRollups();
+        rollups.add(BUS, COMPLETED, DEC_2024, 90, 53_000, 4200);
+        rollups.clear();
+        rollups.add(BOAT, PLANNED, JAN_2025, 30, 16_000, 0);
+
+        TripInsights insights = rollups.snapshot();
+        assertTotals(1, 16_000, 0, 30, insights.getOverall());
+        assertArrayEquals(new int[]{DateUtils.monthIndex(JAN_2025)}, insights.getMonths());
+    }
+
+    @Test
+    public void matchesARescanUnderRandomChurn() {
+        Random random = new Random(3);
+        int modes = Trip.TransportMode.values().length;
+        int[][] trips = new int[500][];
+        TripRollups rollups = new TripRollups();
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(trips.length);
+            if (trips[id] != null) {
+                int[] t = trips[id];
+                rollups.remove(t[0], t[1], t[2], t[3], t[4], t[5]);
+                trips[id] = null;
+            } else {
+                int[] t = {random.nextInt(modes), COMPLETED, random.nextInt(2000),
+                        random.nextInt(300), random.nextInt(100_000), random.nextInt(10_000)};
+                rollups.add(t[0], t[1], t[2], t[3], t[4], t[5]);
+                trips[id] = t;
+            }
+        }
+
+        int count = 0;
+        long meters = 0;
+        long grams = 0;
+        long minutes = 0;
+        int busCount = 0;
+        for (int[] t : trips) {
+            if (t != null) {
+                count++;
+                minutes += t[3];
+                meters += t[4];
+                grams += t[5];
+                if (t[0] == BUS) {
+                    busCount++;
+                }
+            }
+        }
+        TripInsights insights = rollups.snapshot();
+        assertTotals(count, meters, grams, minutes, insights.getOverall());
+        assertEquals(busCount, insights.getForMode(Trip.TransportMode.BUS).getTripCount());
+    }
+
+    private static void assertTotals(int count, long meters, long grams, long minutes,
+                                     TripInsights.Totals totals) {
+        assertEquals(count, totals.getTripCount());
+        assertEquals(meters, totals.getDistanceMeters());
+        assertEquals(grams, totals.getCarbonGrams());
+        assertEquals(minutes, totals.getDurationMinutes());
+    }
+}
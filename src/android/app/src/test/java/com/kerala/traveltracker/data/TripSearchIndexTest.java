@@ -0,0 +1,89 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.Trip;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TripSearchIndexTest {
+
+    @Test
+    public void tokenizesIntoLowerCaseWords() {
+        assertArrayEquals(new String[]{"fort", "kochi", "2024"},
+                TripSearchIndex.tokenize("Fort  Kochi, 2024!"));
+        assertArrayEquals(new String[0], TripSearchIndex.tokenize(null));
+        assertArrayEquals(new String[0], TripSearchIndex.tokenize(" - "));
+    }
+
+    @Test
+    public void keepsVowelSignsInIndicWords() {
+        assertArrayEquals(new String[]{"കൊച്ചി", "മൂന്നാർ"}, TripSearchIndex.tokenize("കൊച്ചി - മൂന്നാർ"));
+        assertArrayEquals(new String[]{"कोच्चि"}, TripSearchIndex.tokenize("कोच्चि"));
+    }
+
+    @Test
+    public void matchesPrefixesOfEveryQueryWord() {
+        TripSearchIndex index = new TripSearchIndex();
+        index.add(trip(1, "Kochi", "Munnar", null));
+        index.add(trip(2, "Kovalam", "Kochi", null));
+        index.add(trip(3, "Alappuzha", "Kumarakom", null));
+
+        assertArrayEquals(new int[]{2, 1}, index.search("koch", 10));
+        assertArrayEquals(new int[]{1}, index.search("ko mun", 10));
+        assertArrayEquals(new int[0], index.search("kochi thekkady", 10));
+        assertArrayEquals(new int[0], index.search("  ", 10));
+    }
+
+    @Test
+    public void ranksPlacesAboveNotesAndWholeWordsAbovePrefixes() {
+        TripSearchIndex index = new TripSearchIndex();
+        index.add(trip(1, "Kochi", "Munnar", null));
+        index.add(trip(2, "Alappuzha", "Kumarakom", "Ferry from kochi"));
+        index.add(trip(3, "Kochikode", "Wayanad", null));
+
+        assertArrayEquals(new int[]{1, 3, 2}, index.search("kochi", 10));
+        assertArrayEquals(new int[]{1, 3}, index.search("kochi", 2));
+    }
+
+    @Test
+    public void updatesAndRemovalsReplaceATripsWords() {
+        TripSearchIndex index = new TripSearchIndex();
+        index.add(trip(1, "Kochi", "Munnar", null));
+        index.add(trip(2, "Kochi", "Kovalam", null));
+        index.add(trip(1, "Thekkady", "Munnar", null));
+        index.remove(2);
+        index.remove(42);
+
+        assertArrayEquals(new int[0], index.search("kochi", 10));
+        assertArrayEquals(new int[]{1}, index.search("thek", 10));
+        assertEquals(1, index.size());
+
+        // Freed rows are reused by later trips
+        index.add(trip(3, "Kochi", "Varkala", null));
+        assertArrayEquals(new int[]{3}, index.search("varkala", 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        TripSearchIndex index = new TripSearchIndex();
+        index.add(trip(1, "Kochi", "Munnar", null));
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertArrayEquals(new int[0], index.search("kochi", 10));
+        index.add(trip(2, "Kochi", "Kovalam", null));
+        assertArrayEquals(new int[]{2}, index.search("kochi", 10));
+    }
+
+    private static Trip trip(int id, String origin, String destination, String notes) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setOrigin(origin);
+        trip.setDestination(destination);
+        trip.setNotes(notes);
+        return trip;
+    }
+}
@@ -0,0 +1,131 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.Trip;
+import com.kerala.traveltracker.utils.DateUtils;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TripSecondaryIndexTest {
+
+    private static final int BUS = Trip.TransportMode.BUS.ordinal();
+    private static final int BOAT = Trip.TransportMode.BOAT.ordinal();
+    private static final int COMPLETED = Trip.TripStatus.COMPLETED.ordinal();
+    private static final int PLANNED = Trip.TripStatus.PLANNED.ordinal();
+
+    @Test
+    public void listsNewestDateFirstThenHighestId() {
+        TripSecondaryIndex index = new TripSecondaryIndex();
+        index.add(1, BUS, COMPLETED, 100);
+        index.add(2, BUS, COMPLETED, 200);
+        index.add(3, BUS, COMPLETED, DateUtils.NO_DATE);
+        index.add(4, BUS, COMPLETED, 200);
+        index.add(5, BUS, COMPLETED, -10);
+
+        // Undated trips sort as the oldest
+        assertArrayEquals(new int[]{4, 2, 1, 5, 3}, index.newestFirst());
+    }
+
+    @Test
+    public void filtersByStatusAndMode() {
+        TripSecondaryIndex index = new TripSecondaryIndex();
+        index.add(1, BUS, COMPLETED, 100);
+        index.add(2, BOAT, PLANNED, 300);
+        index.add(3, BOAT, COMPLETED, 200);
+
+        assertArrayEquals(new int[]{3, 1}, index.newestFirst(Trip.TripStatus.COMPLETED));
+        assertArrayEquals(new int[]{2, 3}, index.newestFirst(Trip.TransportMode.BOAT));
+        assertArrayEquals(new int[0], index.newestFirst(Trip.TransportMode.WALK));
+        assertEquals(1, index.count(Trip.TripStatus.PLANNED));
+        assertEquals(1, index.count(Trip.TransportMode.BUS));
+
+        index.remove(3, BOAT, COMPLETED, 200);
+        assertArrayEquals(new int[]{1}, index.newestFirst(Trip.TripStatus.COMPLETED));
+        assertArrayEquals(new int[]{2}, index.newestFirst(Trip.TransportMode.BOAT));
+        assertArrayEquals(new int[]{2, 1}, index.newestFirst());
+    }
+
+    @Test
+    public void sharesListingsUntilTheNextChange() {
+        TripSecondaryIndex index = new TripSecondaryIndex();
+        index.add(1, BUS, COMPLETED, 100);
+        int[] first = index.newestFirst();
+
+        assertSame(first, index.newestFirst());
+        index.add(2, BUS, COMPLETED, 101);
+        int[] second = index.newestFirst();
+        assertNotSame(first, second);
+        assertArrayEquals(new int[]{1}, first);
+        assertArrayEquals(new int[]{2, 1}, second);
+    }
+
+    @Test
+    public void bulkLoadMatchesIncrementalAdds() {
+        Random random = new Random(7);
+        TripSecondaryIndex incremental = new TripSecondaryIndex();
+        TripSecondaryIndex bulk = new TripSecondaryIndex();
+        bulk.add(99_999, BUS, COMPLETED, 1);
+        bulk.clear();
+        for (int id = 1; id <= 3000; id++) {
+            int mode = random.nextInt(Trip.TransportMode.values().length);
+            int status = random.nextInt(Trip.TripStatus.values().length);
+            int epochDay = random.nextInt(400);
+            incremental.add(id, mode, status, epochDay);
+            bulk.append(id, mode, status, epochDay);
+        }
+        bulk.sort();
+
+        assertArrayEquals(incremental.newestFirst(), bulk.newestFirst());
+        for (Trip.TripStatus status : Trip.TripStatus.values()) {
+            assertArrayEquals(incremental.newestFirst(status), bulk.newestFirst(status));
+        }
+        for (Trip.TransportMode mode : Trip.TransportMode.values()) {
+            assertArrayEquals(incremental.newestFirst(mode), bulk.newestFirst(mode));
+        }
+    }
+
+    @Test
+    public void matchesSortedSetAcrossBlockSplitsAndRemovals() {
+        Random random = new Random(11);
+        TripSecondaryIndex index = new TripSecondaryIndex();
+        // Newest date first, then highest id, as the index orders them
+        TreeSet<int[]> expected = new TreeSet<>(Comparator
+                .<int[]>comparingInt(trip -> -trip[1])
+                .thenComparingInt(trip -> -trip[0]));
+        int[] days = new int[5000];
+        for (int i = 0; i < 40_000; i++) {
+            int id = random.nextInt(days.length);
+            if (days[id] != 0) {
+                index.remove(id, BUS, COMPLETED, days[id]);
+                expected.remove(new int[]{id, days[id]});
+                days[id] = 0;
+            } else {
+                days[id] = 1 + random.nextInt(50);
+                index.add(id, BUS, COMPLETED, days[id]);
+                expected.add(new int[]{id, days[id]});
+            }
+            if (i % 5000 == 0) {
+                assertListing(expected, index.newestFirst());
+            }
+        }
+        assertListing(expected, index.newestFirst());
+        assertEquals(expected.size(), index.count(Trip.TripStatus.COMPLETED));
+    }
+
+    private static void assertListing(TreeSet<int[]> expected, int[] actual) {
+        int[] ids = new int[expected.size()];
+        int i = 0;
+        for (int[] trip : expected) {
+            ids[i++] = trip[0];
+        }
+        assertArrayEquals(ids, actual);
+    }
+}
@@ -0,0 +1,58 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.User;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UserCodecTest {
+
+    @Test
+    public void roundTripsEveryField() {
+        User user = new User();
+        user.setAuthenticated(true);
+        user.setCreatedAt(1_700_000_000_000L);
+        user.setLastLoginAt(1_700_000_900_000L);
+        user.setName("Anjali Nair");
+        user.setEmail("anjali@example.com");
+        user.setAvatar("avatar.png");
+        user.setCity("തിരുവനന്തപുരം");
+        user.setPhone("+91 98470 00000");
+
+        User decoded = UserCodec.decode(UserCodec.encode(user));
+        assertTrue(decoded.isAuthenticated());
+        assertEquals(1_700_000_000_000L, decoded.getCreatedAt());
+        assertEquals(1_700_000_900_000L, decoded.getLastLoginAt());
+        assertEquals("Anjali Nair", decoded.getName());
+        assertEquals("anjali@example.com", decoded.getEmail());
+        assertEquals("avatar.png", decoded.getAvatar());
+        assertEquals("തിരുവനന്തപുരം", decoded.getCity());
+        assertEquals("+91 98470 00000", decoded.getPhone());
+    }
+
+    @Test
+    public void keepsMissingFields() {
+        User user = new User();
+        user.setName(null);
+        user.setEmail(null);
+
+        User decoded = UserCodec.decode(UserCodec.encode(user));
+        assertFalse(decoded.isAuthenticated());
+        assertNull(decoded.getName());
+        assertNull(decoded.getEmail());
+        assertNull(decoded.getAvatar());
+        assertNull(decoded.getCity());
+        assertNull(decoded.getPhone());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsUnknownVersion() {
+        byte[] record = UserCodec.encode(new User());
+        record[0] = 2;
+        UserCodec.decode(record);
+    }
+}
@@ -0,0 +1,94 @@
+package com.kerala.traveltracker.data;
+
+import com.kerala.traveltracker.models.User;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UserStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File recordFile;
+
+    @Before
+    public void setUp() {
+        recordFile = new File(folder.getRoot(), "user.record");
+    }
+
+    @Test
+    public void loadsNothingBeforeTheFirstSave() {
+        assertNull(new UserStore(recordFile).load());
+    }
+
+    @Test
+    public void savedUserSurvivesANewStore() throws Exception {
+        User user = new User();
+        user.setName("Anjali Nair");
+        user.setEmail("anjali@example.com");
+        new UserStore(recordFile).save(user).get();
+
+        User loaded = new UserStore(recordFile).load();
+        assertEquals("Anjali Nair", loaded.getName());
+        assertEquals("anjali@example.com", loaded.getEmail());
+    }
+
+    @Test
+    public void queuedSavesWriteOnlyTheLatest() throws Exception {
+        UserStore store = new UserStore(recordFile);
+        User user = new User();
+        Future<?> write = null;
+        for (int i = 0; i < 5; i++) {
+            user.setName("Name " + i);
+            write = store.save(user);
+            // Reads see the queued record before it is written
+            assertEquals("Name " + i, store.load().getName());
+        }
+        write.get();
+
+        assertEquals("Name 4", new UserStore(recordFile).load().getName());
+    }
+
+    @Test
+    public void saveSnapshotsTheUser() throws Exception {
+        UserStore store = new UserStore(recordFile);
+        User user = new User();
+        user.setName("Before");
+        Future<?> write = store.save(user);
+        user.setName("After");
+        write.get();
+
+        assertEquals("Before", store.load().getName());
+    }
+
+    @Test
+    public void deleteRemovesTheRecord() throws Exception {
+        UserStore store = new UserStore(recordFile);
+        store.save(new User()).get();
+        assertTrue(recordFile.exists());
+
+        store.delete().get();
+        assertFalse(recordFile.exists());
+        assertNull(store.load());
+    }
+
+    @Test
+    public void unreadableRecordLoadsAsNoUser() throws Exception {
+        try (FileOutputStream out = new FileOutputStream(recordFile)) {
+            out.write(new byte[]{1, 0, 5});
+        }
+        assertNull(new UserStore(recordFile).load());
+    }
+}
@@ -0,0 +1,106 @@
+package com.kerala.traveltracker.utils;
+
+import com.kerala.traveltracker.models.Trip;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CarbonCalculatorTest {
+
+    // Kochi and Alappuzha
+    private static final double KOCHI_LAT = 9.9312;
+    private static final double KOCHI_LNG = 76.2673;
+    private static final double ALAPPUZHA_LAT = 9.4981;
+    private static final double ALAPPUZHA_LNG = 76.3388;
+
+    @Test
+    public void usesTheEnteredDistanceFirst() {
+        Trip trip = new Trip();
+        trip.setMode(Trip.TransportMode.BUS);
+        trip.setDistance("100 km");
+        trip.setOriginLat(KOCHI_LAT);
+        trip.setOriginLng(KOCHI_LNG);
+        trip.setDestinationLat(ALAPPUZHA_LAT);
+        trip.setDestinationLng(ALAPPUZHA_LNG);
+
+        assertEquals(8200, CarbonCalculator.estimateGrams(trip));
+    }
+
+    @Test
+    public void fallsBackToCoordinatesWithADetour() {
+        Trip trip = new Trip();
+        trip.setMode(Trip.TransportMode.CAR);
+        trip.setOriginLat(KOCHI_LAT);
+        trip.setOriginLng(KOCHI_LNG);
+        trip.setDestinationLat(ALAPPUZHA_LAT);
+        trip.setDestinationLng(ALAPPUZHA_LNG);
+
+        double km = CarbonCalculator.greatCircleMeters(KOCHI_LAT, KOCHI_LNG, ALAPPUZHA_LAT, ALAPPUZHA_LNG)
+                * 1.3 / 1000;
+        assertEquals(Math.round(km * 171), CarbonCalculator.estimateGrams(trip));
+    }
+
+    @Test
+    public void unknownWithoutDistanceOrCoordinates() {
+        Trip trip = new Trip();
+        trip.setOriginLat(KOCHI_LAT);
+        trip.setOriginLng(KOCHI_LNG);
+
+        assertEquals(UnitUtils.UNKNOWN, CarbonCalculator.estimateGrams(trip));
+        assertEquals(UnitUtils.UNKNOWN, CarbonCalculator.estimateMeters(Trip.TransportMode.CAR,
+                KOCHI_LAT, KOCHI_LNG, 0, 0));
+    }
+
+    @Test
+    public void walkingIsFree() {
+        Trip trip = new Trip();
+        trip.setMode(Trip.TransportMode.WALK);
+        trip.setDistance("5 km");
+
+        assertEquals(0, CarbonCalculator.estimateGrams(trip));
+    }
+
+    @Test
+    public void greatCircleDistance() {
+        // One degree of latitude is about 111.2 km
+        assertEquals(111_195, CarbonCalculator.greatCircleMeters(0, 0, 1, 0), 1);
+        assertEquals(0, CarbonCalculator.greatCircleMeters(KOCHI_LAT, KOCHI_LNG, KOCHI_LAT, KOCHI_LNG), 0);
+        assertEquals(48_600, CarbonCalculator.greatCircleMeters(KOCHI_LAT, KOCHI_LNG,
+                ALAPPUZHA_LAT, ALAPPUZHA_LNG), 500);
+    }
+
+    @Test
+    public void batchMatchesSingleTrips() {
+        Trip.TransportMode[] modes = Trip.TransportMode.values();
+        int count = modes.length * 2;
+        byte[] modeOrdinals = new byte[count];
+        double[] distancesKm = new double[count];
+        double[] coordinates = new double[count * 4];
+        int[] expected = new int[count];
+        for (int i = 0; i < count; i++) {
+            Trip trip = new Trip();
+            trip.setMode(modes[i % modes.length]);
+            if (i < modes.length) {
+                trip.setDistance((10 + i) + " km");
+            }
+            trip.setOriginLat(KOCHI_LAT);
+            trip.setOriginLng(KOCHI_LNG);
+            trip.setDestinationLat(ALAPPUZHA_LAT);
+            trip.setDestinationLng(ALAPPUZHA_LNG);
+            expected[i] = CarbonCalculator.estimateGrams(trip);
+
+            modeOrdinals[i] = (byte) trip.getMode().ordinal();
+            distancesKm[i] = trip.getDistanceValue();
+            coordinates[i * 4] = KOCHI_LAT;
+            coordinates[i * 4 + 1] = KOCHI_LNG;
+            coordinates[i * 4 + 2] = ALAPPUZHA_LAT;
+            coordinates[i * 4 + 3] = ALAPPUZHA_LNG;
+        }
+
+        int[] grams = new int[count];
+        CarbonCalculator.estimateGrams(modeOrdinals, distancesKm, coordinates, count, grams);
+        assertArrayEquals(expected, grams);
+    }
+}
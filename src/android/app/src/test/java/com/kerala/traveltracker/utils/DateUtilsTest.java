@@ -0,0 +1,58 @@
+package com.kerala.traveltracker.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DateUtilsTest {
+
+    @Test
+    public void parsesDisplayDatesToEpochDays() {
+        assertEquals(0, DateUtils.parseEpochDay("1 Jan 1970"));
+        assertEquals(20072, DateUtils.parseEpochDay("15 Dec 2024"));
+        assertEquals(19782, DateUtils.parseEpochDay(" 29 Feb 2024 "));
+        assertEquals(-306, DateUtils.parseEpochDay("1 Mar 1969"));
+    }
+
+    @Test
+    public void rejectsTextThatIsNotADate() {
+        assertEquals(DateUtils.NO_DATE, DateUtils.parseEpochDay(null));
+        assertEquals(DateUtils.NO_DATE, DateUtils.parseEpochDay(""));
+        assertEquals(DateUtils.NO_DATE, DateUtils.parseEpochDay("tomorrow"));
+        // Not lenient, so impossible days do not roll over
+        assertEquals(DateUtils.NO_DATE, DateUtils.parseEpochDay("29 Feb 2023"));
+        assertEquals(DateUtils.NO_DATE, DateUtils.parseEpochDay("32 Jan 2024"));
+    }
+
+    @Test
+    public void formatsEpochDaysBackToDisplayText() {
+        assertEquals("15 Dec 2024", DateUtils.formatEpochDay(20072));
+        assertEquals("1 Mar 1969", DateUtils.formatEpochDay(-306));
+        assertEquals("8 Dec 2024", DateUtils.formatEpochDay(DateUtils.parseEpochDay("08 Dec 2024")));
+        assertNull(DateUtils.formatEpochDay(DateUtils.NO_DATE));
+    }
+
+    @Test
+    public void monthIndexesAreConsecutive() {
+        assertEquals(1970 * 12, DateUtils.monthIndex(0));
+        assertEquals(2024 * 12 + 1, DateUtils.monthIndex(DateUtils.parseEpochDay("29 Feb 2024")));
+        assertEquals(2024 * 12 + 2, DateUtils.monthIndex(DateUtils.parseEpochDay("1 Mar 2024")));
+        assertEquals(1969 * 12 + 11, DateUtils.monthIndex(-1));
+        assertEquals(1600 * 12, DateUtils.monthIndex(DateUtils.parseEpochDay("1 Jan 1600")));
+        assertEquals(DateUtils.NO_DATE, DateUtils.monthIndex(DateUtils.NO_DATE));
+    }
+
+    @Test
+    public void monthIndexMatchesFormattedDates() {
+        String[] months = {"Jan", "Feb", "Mar", "Apr", "May", "Jun",
+                "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+        for (int epochDay = -40_000; epochDay < 40_000; epochDay += 17) {
+            String[] parts = DateUtils.formatEpochDay(epochDay).split(" ");
+            int month = Arrays.asList(months).indexOf(parts[1]);
+            assertEquals(Integer.parseInt(parts[2]) * 12 + month, DateUtils.monthIndex(epochDay));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.kerala.traveltracker.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PlaceNameIndexTest {
+
+    private static final String GAZETTEER = ""
+            + "# English | variants | Malayalam | Hindi | Tamil\n"
+            + "Thiruvananthapuram|Trivandrum|തിരുവനന്തപുരം|तिरुवनंतपुरम|திருவனந்தபுரம்\n"
+            + "Kochi|Cochin|കൊച്ചി|कोच्चि|கொச்சி\n"
+            + "Kozhikode|Calicut|കോഴിക്കോട്|कोझिकोड|கோழிக்கோடு\n"
+            + "Kannur|Cannanore|കണ്ണൂർ|कन्नूर|கண்ணூர்\n"
+            + "Fort Kochi||ഫോർട്ട് കൊച്ചി|फोर्ट कोच्चि|ஃபோர்ட் கொச்சி\n";
+
+    // Folding
+
+    @Test
+    public void foldsRomanisationVariantsTogether() {
+        assertEquals(PlaceNameIndex.fold("Kozhikode"), PlaceNameIndex.fold("Kozikode"));
+        assertEquals(PlaceNameIndex.fold("Thekkady"), PlaceNameIndex.fold("Tekady"));
+        assertEquals(PlaceNameIndex.fold("Cochin"), PlaceNameIndex.fold("Kochin"));
+        assertEquals(PlaceNameIndex.fold("Alleppey"), PlaceNameIndex.fold("Aleppey"));
+        assertEquals(PlaceNameIndex.fold("Thrissur"), PlaceNameIndex.fold("Trisur"));
+        assertEquals(PlaceNameIndex.fold("Wayanad"), PlaceNameIndex.fold("Vayanad"));
+        assertEquals(PlaceNameIndex.fold("Ooty"), PlaceNameIndex.fold("Uty"));
+    }
+
+    @Test
+    public void dropsCaseDiacriticsSpacesAndPunctuation() {
+        assertEquals("koci", PlaceNameIndex.fold("Kochi"));
+        assertEquals(PlaceNameIndex.fold("kochi"), PlaceNameIndex.fold("KŌCHÍ"));
+        assertEquals(PlaceNameIndex.fold("FortKochi"), PlaceNameIndex.fold("Fort-Kochi "));
+        assertEquals("", PlaceNameIndex.fold(" - "));
+    }
+
+    @Test
+    public void foldsMalayalamChilluForms() {
+        // Atomic chillu, virama with zero-width joiner, and plain virama
+        String atomic = "കണ്ണൂർ";
+        String joined = "കണ്ണൂര്‍";
+        String virama = "കണ്ണൂര്";
+        assertEquals(PlaceNameIndex.fold(virama), PlaceNameIndex.fold(atomic));
+        assertEquals(PlaceNameIndex.fold(virama), PlaceNameIndex.fold(joined));
+    }
+
+    @Test
+    public void foldsHindiNasalConjunctsAndNukta() {
+        // Half न before त is written either way
+        assertEquals(PlaceNameIndex.fold("तिरुवनंतपुरम"), PlaceNameIndex.fold("तिरुवनन्तपुरम"));
+        assertEquals(PlaceNameIndex.fold("कोझिकोड"), PlaceNameIndex.fold("कोझ़िकोड"));
+        // A nasal before a vowel sign is not a conjunct
+        assertNotEquals(PlaceNameIndex.fold("नमक"), PlaceNameIndex.fold("नंक"));
+    }
+
+    @Test
+    public void keepsVowelSignsInIndicScripts() {
+        assertNotEquals(PlaceNameIndex.fold("கொச்சி"), PlaceNameIndex.fold("கச்சி"));
+        assertNotEquals(PlaceNameIndex.fold("കൊച്ചി"), PlaceNameIndex.fold("കച്ചി"));
+        assertNotEquals(PlaceNameIndex.fold("कोच्चि"), PlaceNameIndex.fold("कच्च"));
+        // Doubled Indic letters are distinct spellings, unlike doubled Latin ones
+        assertNotEquals(PlaceNameIndex.fold("കൊച്ചി"), PlaceNameIndex.fold("കൊചി"));
+    }
+
+    // Suggestions
+
+    @Test
+    public void suggestsNameMatchesBeforeLaterWords() throws IOException {
+        PlaceNameIndex index = load();
+
+        assertEquals(5, index.size());
+        assertEquals(names("Kochi", "Fort Kochi"), names(index.suggest("Koch", 10)));
+        assertEquals(names("Kochi"), names(index.suggest("Koch", 1)));
+    }
+
+    @Test
+    public void suggestsFromEveryScriptAndSpelling() throws IOException {
+        PlaceNameIndex index = load();
+
+        assertEquals(names("Kozhikode"), names(index.suggest("Calicut", 10)));
+        assertEquals(names("Kozhikode"), names(index.suggest("kozikode", 10)));
+        assertEquals(names("Thiruvananthapuram"), names(index.suggest("തിരുവന", 10)));
+        assertEquals(names("Thiruvananthapuram"), names(index.suggest("तिरुवनन्त", 10)));
+        assertEquals(names("Kannur"), names(index.suggest("കണ്ണൂര്", 10)));
+        assertEquals(names("Kochi", "Fort Kochi"), names(index.suggest("கொச்", 10)));
+    }
+
+    @Test
+    public void trailingLetterMayStartADigraph() throws IOException {
+        PlaceNameIndex index = load();
+
+        // "Koc" folds to "kok" but may be the start of "Koch"
+        assertTrue(names(index.suggest("Koc", 10)).contains("Kochi"));
+    }
+
+    @Test
+    public void emptyQueriesSuggestNothing() throws IOException {
+        PlaceNameIndex index = load();
+
+        assertEquals(0, index.suggest("", 10).size());
+        assertEquals(0, index.suggest(null, 10).size());
+        assertEquals(0, index.suggest("Kochi", 0).size());
+        assertEquals(0, index.suggest("Xyz", 10).size());
+    }
+
+    private static PlaceNameIndex load() throws IOException {
+        return PlaceNameIndex.load(new ByteArrayInputStream(GAZETTEER.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<String> names(String... names) {
+        List<String> list = new ArrayList<>();
+        for (String name : names) {
+            list.add(name);
+        }
+        return list;
+    }
+
+    private static List<String> names(List<PlaceNameIndex.Place> places) {
+        List<String> list = new ArrayList<>();
+        for (PlaceNameIndex.Place place : places) {
+            list.add(place.getName());
+        }
+        return list;
+    }
+}
@@ -0,0 +1,69 @@
+package com.kerala.traveltracker.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class UnitUtilsTest {
+
+    @Test
+    public void parsesDistances() {
+        assertEquals(53_000, UnitUtils.parseMeters("53 km"));
+        assertEquals(53_500, UnitUtils.parseMeters("53.5km"));
+        assertEquals(850, UnitUtils.parseMeters("850 m"));
+        assertEquals(12_000, UnitUtils.parseMeters("12"));
+        assertEquals(1_250_000, UnitUtils.parseMeters("1,250 KM"));
+        assertEquals(1, UnitUtils.parseMeters("0.0005 km"));
+    }
+
+    @Test
+    public void parsesFootprints() {
+        assertEquals(4200, UnitUtils.parseGrams("4.2 kg"));
+        assertEquals(300, UnitUtils.parseGrams("300 g"));
+        assertEquals(7000, UnitUtils.parseGrams("  7 kg CO₂"));
+    }
+
+    @Test
+    public void rejectsTextWithoutANumber() {
+        assertEquals(UnitUtils.UNKNOWN, UnitUtils.parseMeters(null));
+        assertEquals(UnitUtils.UNKNOWN, UnitUtils.parseMeters(""));
+        assertEquals(UnitUtils.UNKNOWN, UnitUtils.parseMeters("far"));
+        assertEquals(UnitUtils.UNKNOWN, UnitUtils.parseGrams("km"));
+        // Too large to hold in metres
+        assertEquals(UnitUtils.UNKNOWN, UnitUtils.parseMeters("99999999999 km"));
+        assertEquals(UnitUtils.UNKNOWN, UnitUtils.parseMeters("3000000 km"));
+    }
+
+    @Test
+    public void rejectsOtherUnits() {
+        // Only the exact tokens count; "mi" is not metres
+        assertEquals(UnitUtils.UNKNOWN, UnitUtils.parseMeters("12 mi"));
+        assertEquals(UnitUtils.UNKNOWN, UnitUtils.parseMeters("12 miles"));
+        assertEquals(UnitUtils.UNKNOWN, UnitUtils.parseMeters("12 kms"));
+        assertEquals(UnitUtils.UNKNOWN, UnitUtils.parseMeters("12 ft"));
+        assertEquals(UnitUtils.UNKNOWN, UnitUtils.parseGrams("9 lb"));
+        assertEquals(UnitUtils.UNKNOWN, UnitUtils.parseGrams("9 gallons"));
+        assertEquals(12_000, UnitUtils.parseMeters("12 Km"));
+        assertEquals(12, UnitUtils.parseMeters("12M"));
+    }
+
+    @Test
+    public void formatsWholeAndOneDecimalValues() {
+        assertEquals("53 km", UnitUtils.formatDistance(53_000));
+        assertEquals("53.5 km", UnitUtils.formatDistance(53_500));
+        assertEquals("1 km", UnitUtils.formatDistance(1000));
+        assertEquals("850 m", UnitUtils.formatDistance(850));
+        assertEquals("4.2 kg", UnitUtils.formatCarbon(4200));
+        assertEquals("0 g", UnitUtils.formatCarbon(0));
+        assertNull(UnitUtils.formatDistance(UnitUtils.UNKNOWN));
+        assertNull(UnitUtils.formatCarbon(UnitUtils.UNKNOWN));
+    }
+
+    @Test
+    public void formattedValuesParseBack() {
+        for (int meters = 0; meters < 500_000; meters += 100) {
+            assertEquals(meters, UnitUtils.parseMeters(UnitUtils.formatDistance(meters)));
+        }
+    }
+}